@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.cityteam.guests.client.FacilityClient;
+import org.cityteam.guests.endpoint.application.ObjectMapperProvider;
+import org.cityteam.guests.model.Facility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.cityteam.guests.client.AbstractClient.PROPERTY_BASE_URI;
+import static org.cityteam.guests.client.AbstractClient.PROPERTY_POOL_SIZE;
+
+/**
+ * <p>Load test of the <code>guests-client</code> transport against a local
+ * stub server that answers <code>GET /facilities</code> after a small
+ * fixed delay (standing in for network and server time).  Run it with
+ * increasing caller threads (<code>-Djmh.threads=N</code>); with a large
+ * enough connection pool, throughput should scale with the number of
+ * threads, while a pool of one connection serializes them.</p>
+ *
+ * <p>Each combination of parameters runs in its own fork, because the
+ * client transport is configured once per JVM.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ClientThroughputBenchmark {
+
+    // Instance Variables ----------------------------------------------------
+
+    private FacilityClient facilityClient;
+
+    private ExecutorService executor;
+
+    @Param({"1", "20"})
+    private int poolSize;
+
+    private HttpServer server;
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Delay (in milliseconds) before the stub server responds.</p>
+     */
+    private static final long DELAY = 2L;
+
+    /**
+     * <p>Number of facilities returned by the stub server.</p>
+     */
+    private static final int FACILITY_COUNT = 20;
+
+    // Setup Methods ---------------------------------------------------------
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapperProvider(false)
+                .getContext(Facility.class);
+        List<Facility> facilities = new ArrayList<>();
+        for (int i = 1; i <= FACILITY_COUNT; i++) {
+            Facility facility = new Facility(true, i + " Main Street", null,
+                    "San Jose", null, "Facility " + i, null, "CA", "95112");
+            facility.setId((long) i);
+            facilities.add(facility);
+        }
+        byte[] body = objectMapper.writeValueAsBytes(facilities);
+
+        server = HttpServer.create(new InetSocketAddress
+                (InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/facilities", exchange -> {
+            try {
+                Thread.sleep(DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+
+        System.setProperty(PROPERTY_BASE_URI, "http://127.0.0.1:" +
+                server.getAddress().getPort() + "/api");
+        System.setProperty(PROPERTY_POOL_SIZE, String.valueOf(poolSize));
+        facilityClient = new FacilityClient();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Benchmark Methods -----------------------------------------------------
+
+    @Benchmark
+    public List<Facility> findAll() throws Exception {
+        return facilityClient.findAll();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.benchmarks;
+
+import org.cityteam.guests.action.Assign;
+import org.cityteam.guests.action.ImportRequest;
+import org.cityteam.guests.model.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.cityteam.guests.model.types.FeatureType.H;
+import static org.cityteam.guests.model.types.PaymentType.$$;
+
+/**
+ * <p>Benchmarks for mapping a batch of {@link ImportRequest}s into the
+ * {@link Registration} and {@link Assign} objects that an import
+ * creates.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ImportRequestBenchmark {
+
+    // Instance Variables ----------------------------------------------------
+
+    private List<ImportRequest> importRequests;
+
+    private final LocalDate registrationDate = LocalDate.parse("2020-07-04");
+
+    // Setup Methods ---------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        importRequests = new ArrayList<>();
+        for (int matNumber = 1; matNumber <= 100; matNumber++) {
+            if ((matNumber % 3) == 0) {
+                importRequests.add(new ImportRequest(null, matNumber));
+            } else {
+                importRequests.add(new ImportRequest(
+                        "Imported comment",
+                        (matNumber % 4) == 0 ? Arrays.asList(H) : null,
+                        "First" + matNumber,
+                        "Last" + matNumber,
+                        matNumber,
+                        new BigDecimal("5.00"),
+                        $$,
+                        LocalTime.parse("03:30"),
+                        LocalTime.parse("04:00")
+                ));
+            }
+        }
+    }
+
+    // Benchmark Methods -----------------------------------------------------
+
+    @Benchmark
+    public void mapAll(Blackhole blackhole) {
+        long guestId = 1L;
+        for (ImportRequest importRequest : importRequests) {
+            blackhole.consume
+                    (importRequest.toRegistration(1L, registrationDate));
+            if (importRequest.getFirstName() != null) {
+                blackhole.consume(importRequest.toAssign(guestId++));
+            }
+        }
+    }
+
+}
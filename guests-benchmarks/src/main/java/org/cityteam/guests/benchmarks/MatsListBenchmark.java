@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.benchmarks;
+
+import org.cityteam.guests.model.types.MatsList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for parsing {@link MatsList} strings and checking
+ * membership, as done when templates are validated and generated.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MatsListBenchmark {
+
+    // Instance Variables ----------------------------------------------------
+
+    private MatsList allMats;
+
+    private String allMatsString;
+
+    private MatsList handicapMats;
+
+    private String handicapMatsString;
+
+    @Param({"60", "300", "1000"})
+    private int matCount;
+
+    // Setup Methods ---------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        allMatsString = "1-" + matCount;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= matCount; i += 4) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(i);
+        }
+        handicapMatsString = sb.toString();
+        allMats = new MatsList(allMatsString);
+        handicapMats = new MatsList(handicapMatsString);
+    }
+
+    // Benchmark Methods -----------------------------------------------------
+
+    @Benchmark
+    public void isMemberOf(Blackhole blackhole) {
+        for (int matNumber = 1; matNumber <= matCount; matNumber++) {
+            blackhole.consume(handicapMats.isMemberOf(matNumber));
+        }
+    }
+
+    @Benchmark
+    public boolean isSubsetOf() {
+        return handicapMats.isSubsetOf(allMats);
+    }
+
+    @Benchmark
+    public MatsList parseIndividuals() {
+        return new MatsList(handicapMatsString);
+    }
+
+    @Benchmark
+    public MatsList parseRange() {
+        return new MatsList(allMatsString);
+    }
+
+    @Benchmark
+    public String toStringIndividuals() {
+        return handicapMats.toString();
+    }
+
+}
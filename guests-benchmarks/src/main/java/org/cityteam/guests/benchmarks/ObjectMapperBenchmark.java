@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.cityteam.guests.endpoint.application.ObjectMapperProvider;
+import org.cityteam.guests.model.Registration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.cityteam.guests.model.types.FeatureType.H;
+import static org.cityteam.guests.model.types.FeatureType.S;
+import static org.cityteam.guests.model.types.PaymentType.$$;
+
+/**
+ * <p>Benchmarks for JSON serialization and deserialization of a nightly
+ * list of {@link Registration}s, using the same <code>ObjectMapper</code>
+ * configuration that the REST endpoints use, in the compact (default)
+ * and pretty printed JSON output profiles, and in CBOR.  Each benchmark
+ * also reports the number of bytes it serialized or deserialized, and the
+ * number of lists, as auxiliary counters, so the size of each serialized
+ * list is <code>bytes / lists</code>.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ObjectMapperBenchmark {
+
+    // Instance Variables ----------------------------------------------------
+
+    private byte[] json;
+
+    private ObjectMapper objectMapper;
+
+    @Param({"compact", "pretty", "cbor"})
+    private String profile;
+
+    @Param({"60", "300"})
+    private int registrationCount;
+
+    private List<Registration> registrations;
+
+    // Static Variables ------------------------------------------------------
+
+    private static final TypeReference<List<Registration>> REGISTRATIONS =
+            new TypeReference<List<Registration>>() { };
+
+    // Setup Methods ---------------------------------------------------------
+
+    @Setup
+    public void setup() throws Exception {
+        if ("cbor".equals(profile)) {
+            objectMapper = ObjectMapperProvider.configure
+                    (new ObjectMapper(new CBORFactory()), false);
+        } else {
+            objectMapper = new ObjectMapperProvider("pretty".equals(profile))
+                    .getContext(Registration.class);
+        }
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        LocalDateTime published = LocalDateTime.parse("2020-07-03T12:00:00");
+        registrations = new ArrayList<>();
+        for (int matNumber = 1; matNumber <= registrationCount; matNumber++) {
+            Registration registration;
+            if ((matNumber % 2) == 0) {
+                registration = new Registration(
+                        "Assigned comment",
+                        1L,
+                        (matNumber % 4) == 0 ? Arrays.asList(H, S) : null,
+                        (long) matNumber,
+                        matNumber,
+                        new BigDecimal("5.00"),
+                        $$,
+                        registrationDate,
+                        LocalTime.parse("03:30"),
+                        LocalTime.parse("04:00")
+                );
+            } else {
+                registration = new Registration(
+                        1L,
+                        null,
+                        matNumber,
+                        registrationDate
+                );
+            }
+            registration.setId((long) matNumber);
+            registration.setPublished(published);
+            registration.setUpdated(published);
+            registrations.add(registration);
+        }
+        json = objectMapper.writeValueAsBytes(registrations);
+    }
+
+    // Benchmark Methods -----------------------------------------------------
+
+    @Benchmark
+    public List<Registration> deserialize(Payload payload) throws Exception {
+        payload.bytes += json.length;
+        payload.lists++;
+        return objectMapper.readValue(json, REGISTRATIONS);
+    }
+
+    @Benchmark
+    public byte[] serialize(Payload payload) throws Exception {
+        byte[] serialized = objectMapper.writeValueAsBytes(registrations);
+        payload.bytes += serialized.length;
+        payload.lists++;
+        return serialized;
+    }
+
+    // Public Classes --------------------------------------------------------
+
+    /**
+     * <p>Auxiliary counters for the payloads processed in each
+     * iteration.</p>
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+
+        public long bytes;
+
+        public long lists;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            bytes = 0;
+            lists = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.benchmarks;
+
+import org.cityteam.guests.model.Registration;
+import org.cityteam.guests.model.types.FeatureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.cityteam.guests.model.types.FeatureType.H;
+import static org.cityteam.guests.model.types.FeatureType.S;
+
+/**
+ * <p>Benchmarks for the conversion between the <code>features</code>
+ * string stored in the database and the list of {@link FeatureType}s
+ * exposed by {@link Registration}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RegistrationFeaturesBenchmark {
+
+    // Instance Variables ----------------------------------------------------
+
+    private List<FeatureType> features;
+
+    private Registration registration;
+
+    // Setup Methods ---------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        features = Arrays.asList(H, S);
+        registration = new Registration();
+        registration.setFeatures(features);
+    }
+
+    // Benchmark Methods -----------------------------------------------------
+
+    @Benchmark
+    public List<FeatureType> getFeatures() {
+        return registration.getFeatures();
+    }
+
+    @Benchmark
+    public Registration setFeatures() {
+        registration.setFeatures(features);
+        return registration;
+    }
+
+}
@@ -15,13 +15,26 @@
  */
 package org.cityteam.guests.client;
 
+import org.craigmcc.library.shared.exception.BadRequest;
+import org.craigmcc.library.shared.exception.InternalServerError;
+import org.craigmcc.library.shared.exception.NotFound;
+import org.craigmcc.library.shared.exception.NotUnique;
+
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
 
 /**
  * <p>Abstract base class for JAX-RS client implementations for the
@@ -45,6 +58,20 @@ public abstract class AbstractClient {
     public static final String PROPERTY_BASE_URI =
             "org.cityteam.guests.client.baseUri";
 
+    /**
+     * <p>System property that, if set to <code>true</code>, causes request
+     * and response entities to be exchanged as CBOR rather than JSON.
+     * If not specified, JSON is used.</p>
+     */
+    public static final String PROPERTY_CBOR =
+            "org.cityteam.guests.client.cbor";
+
+    /**
+     * <p>Default maximum number of pooled connections to the server,
+     * if not specified.</p>
+     */
+    public static final int DEFAULT_POOL_SIZE = 20;
+
     /**
      * <p>System property containing the connect timeout in milliseconds.
      * If not specified, this property is not configured, so the
@@ -53,6 +80,18 @@ public abstract class AbstractClient {
     public static final String PROPERTY_CONNECT_TIMEOUT =
             "org.cityteam.guests.client.connectTimeout";
 
+    /**
+     * <p>System property containing the maximum number of pooled (and
+     * kept alive) connections to the server, which is also the number of
+     * requests that can be in progress at once.  If not specified,
+     * defaults to DEFAULT_POOL_SIZE defined above.  Transports that
+     * multiplex requests over fewer connections treat it as the number of
+     * requests that can be in progress at once, and transports that do not
+     * pool connections ignore it.</p>
+     */
+    public static final String PROPERTY_POOL_SIZE =
+            "org.cityteam.guests.client.poolSize";
+
     /**
      * <p>System property containing the read timeout in milliseconds.
      * If not specified, this property is not configured, so the
@@ -61,6 +100,21 @@ public abstract class AbstractClient {
     public static final String PROPERTY_READ_TIMEOUT =
             "org.cityteam.guests.client.readTimeout";
 
+    /**
+     * <p>System property containing the fully qualified name of the
+     * {@link ClientTransport} implementation class to use.  If not
+     * specified, {@link ResteasyClientTransport} is used when the JAX-RS
+     * implementation is RESTEasy, and {@link JaxrsClientTransport}
+     * otherwise.</p>
+     */
+    public static final String PROPERTY_TRANSPORT =
+            "org.cityteam.guests.client.transport";
+
+    /**
+     * <p>Package prefix of the RESTEasy JAX-RS implementation.</p>
+     */
+    private static final String RESTEASY_PACKAGE = "org.jboss.resteasy.";
+
     // Response Status Integer Values
     public static final int RESPONSE_BAD_REQUEST =
             Response.Status.BAD_REQUEST.getStatusCode();
@@ -77,20 +131,194 @@ public abstract class AbstractClient {
     public static final int RESPONSE_OK =
             Response.Status.OK.getStatusCode();
 
-    // Static Variables ------------------------------------------------------
+    // Protected Methods -----------------------------------------------------
 
     /**
-     * <p>Base <code>WebTarget</code> for the REST API of the
-     * CityTeam Guests Application.</p>
+     * <p>Complete an asynchronous request by applying
+     * {@link #expect(int, Class, Class[])} to its response.</p>
+     *
+     * @param stage Stage that completes with the response
+     * @param status Expected status of a successful response
+     * @param type Type of the response entity
+     * @param errors Exception types this request reports
+     * @param <T> Type of the response entity
+     *
+     * @return Stage that completes with the response entity
      */
-    private static WebTarget baseTarget = null;
+    protected <T> CompletionStage<T> complete(CompletionStage<Response> stage,
+                                              int status,
+                                              Class<T> type,
+                                              Class<?>... errors) {
+        return stage.thenApply(expect(status, type, errors));
+    }
 
     /**
-     * <p>JAX-RS <code>Client</code> for interacting with the server.</p>
+     * <p>Complete an asynchronous request by applying
+     * {@link #expect(int, GenericType, Class[])} to its response.</p>
+     *
+     * @param stage Stage that completes with the response
+     * @param status Expected status of a successful response
+     * @param type Generic type of the response entity
+     * @param errors Exception types this request reports
+     * @param <T> Type of the response entity
+     *
+     * @return Stage that completes with the response entity
      */
-    private static Client client = null;
+    protected <T> CompletionStage<T> complete(CompletionStage<Response> stage,
+                                              int status,
+                                              GenericType<T> type,
+                                              Class<?>... errors) {
+        return stage.thenApply(expect(status, type, errors));
+    }
 
-    // Protected Methods -----------------------------------------------------
+    /**
+     * <p>Return a function that reads the response entity as the specified
+     * type, if the response has the expected status.  Otherwise, it throws
+     * a <code>CompletionException</code> wrapping the exception for the
+     * response status, if it is one of the specified exception types
+     * (<code>BadRequest</code> for 400, <code>NotFound</code> for 404, or
+     * <code>NotUnique</code> for 409), or wrapping
+     * <code>InternalServerError</code> if it is not.  The response is
+     * closed either way.  Blocking and asynchronous requests share this
+     * mapping, so that they report exactly the same exceptions.</p>
+     *
+     * @param status Expected status of a successful response
+     * @param type Type of the response entity
+     * @param errors Exception types this request reports
+     * @param <T> Type of the response entity
+     */
+    protected <T> Function<Response, T> expect(int status,
+                                               Class<T> type,
+                                               Class<?>... errors) {
+        return expectWith(status, errors, response -> response.readEntity(type));
+    }
+
+    /**
+     * <p>Return a function that reads the response entity as the specified
+     * generic type, as described for
+     * {@link #expect(int, Class, Class[])}.</p>
+     *
+     * @param status Expected status of a successful response
+     * @param type Generic type of the response entity
+     * @param errors Exception types this request reports
+     * @param <T> Type of the response entity
+     */
+    protected <T> Function<Response, T> expect(int status,
+                                               GenericType<T> type,
+                                               Class<?>... errors) {
+        return expectWith(status, errors, response -> response.readEntity(type));
+    }
+
+    /**
+     * <p>Apply a function returned by <code>expect()</code> to the response
+     * of a blocking request that reports no exceptions of its own.</p>
+     *
+     * @param response Response to the request
+     * @param reader Function returned by <code>expect()</code>
+     * @param <T> Type of the result
+     *
+     * @throws InternalServerError If a server level error has occurred
+     */
+    protected <T> T receive(Response response, Function<Response, T> reader)
+            throws InternalServerError {
+        return receive(response, reader, InternalServerError.class,
+                InternalServerError.class, InternalServerError.class);
+    }
+
+    /**
+     * <p>Apply a function returned by <code>expect()</code> to the response
+     * of a blocking request that reports one exception type of its
+     * own.</p>
+     *
+     * @param response Response to the request
+     * @param reader Function returned by <code>expect()</code>
+     * @param error1 Exception type the request reports
+     * @param <T> Type of the result
+     * @param <E1> Exception type the request reports
+     *
+     * @throws E1 If the request reports it
+     * @throws InternalServerError If a server level error has occurred
+     */
+    protected <T, E1 extends Exception> T receive
+            (Response response, Function<Response, T> reader, Class<E1> error1)
+            throws E1, InternalServerError {
+        return receive(response, reader, error1, error1, error1);
+    }
+
+    /**
+     * <p>Apply a function returned by <code>expect()</code> to the response
+     * of a blocking request that reports two exception types of its
+     * own.</p>
+     *
+     * @param response Response to the request
+     * @param reader Function returned by <code>expect()</code>
+     * @param error1 First exception type the request reports
+     * @param error2 Second exception type the request reports
+     * @param <T> Type of the result
+     * @param <E1> First exception type the request reports
+     * @param <E2> Second exception type the request reports
+     *
+     * @throws E1 If the request reports it
+     * @throws E2 If the request reports it
+     * @throws InternalServerError If a server level error has occurred
+     */
+    protected <T, E1 extends Exception, E2 extends Exception> T receive
+            (Response response, Function<Response, T> reader,
+             Class<E1> error1, Class<E2> error2)
+            throws E1, E2, InternalServerError {
+        return receive(response, reader, error1, error2, error2);
+    }
+
+    /**
+     * <p>Apply a function returned by <code>expect()</code> to the response
+     * of a blocking request that reports three exception types of its own,
+     * and throw the exception it reports (if any) directly.  Blocking
+     * requests use the synchronous invoker, so they run on the calling
+     * thread rather than on the client's asynchronous executor.</p>
+     *
+     * @param response Response to the request
+     * @param reader Function returned by <code>expect()</code>
+     * @param error1 First exception type the request reports
+     * @param error2 Second exception type the request reports
+     * @param error3 Third exception type the request reports
+     * @param <T> Type of the result
+     * @param <E1> First exception type the request reports
+     * @param <E2> Second exception type the request reports
+     * @param <E3> Third exception type the request reports
+     *
+     * @throws E1 If the request reports it
+     * @throws E2 If the request reports it
+     * @throws E3 If the request reports it
+     * @throws InternalServerError If a server level error has occurred
+     */
+    protected <T, E1 extends Exception, E2 extends Exception,
+            E3 extends Exception> T receive
+            (Response response, Function<Response, T> reader,
+             Class<E1> error1, Class<E2> error2, Class<E3> error3)
+            throws E1, E2, E3, InternalServerError {
+        try {
+            return reader.apply(response);
+        } catch (CompletionException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            if (error1.isInstance(cause)) {
+                throw error1.cast(cause);
+            } else if (error2.isInstance(cause)) {
+                throw error2.cast(cause);
+            } else if (error3.isInstance(cause)) {
+                throw error3.cast(cause);
+            } else if (cause instanceof InternalServerError) {
+                throw (InternalServerError) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new InternalServerError(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    // Public Methods --------------------------------------------------------
 
     /**
      * <p>Acquire the {@link WebTarget} for the base URI for the
@@ -99,22 +327,8 @@ public abstract class AbstractClient {
      *
      * @return Configured {@link WebTarget} object
      */
-    public synchronized WebTarget getBaseTarget() {
-        if (baseTarget == null) {
-            URI baseURI;
-            try {
-                baseURI = new URI(System.getProperty(
-                        PROPERTY_BASE_URI, DEFAULT_BASE_URI)
-                );
-            } catch (URISyntaxException e) {
-                throw new IllegalArgumentException("Invalid base URI " +
-                        System.getProperty(
-                                PROPERTY_BASE_URI, DEFAULT_BASE_URI)
-                );
-            }
-           baseTarget = getClient().target(baseURI);
-        }
-        return baseTarget;
+    public WebTarget getBaseTarget() {
+        return Transport.get().baseTarget;
     }
 
     /**
@@ -124,22 +338,191 @@ public abstract class AbstractClient {
      *
      * @return Configured {@link Client} object
      */
-    public synchronized Client getClient() {
-        if (client == null) {
+    public Client getClient() {
+        return Transport.get().client;
+    }
+
+    /**
+     * <p>Return the media type to use for request and response entities,
+     * as configured by the <code>PROPERTY_CBOR</code> system property.</p>
+     *
+     * @return Media type for entities
+     */
+    public String getMediaType() {
+        return Transport.get().mediaType;
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return <code>true</code> if the specified exception type is one
+     * of the specified exception types.</p>
+     */
+    private static boolean reports(Class<?>[] errors, Class<?> error) {
+        for (Class<?> candidate : errors) {
+            if (candidate == error) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> Function<Response, T> expectWith(int status,
+                                                 Class<?>[] errors,
+                                                 Function<Response, T> reader) {
+        return response -> {
+            try {
+                if (response.getStatus() == status) {
+                    return reader.apply(response);
+                }
+                String message = response.readEntity(String.class);
+                if ((response.getStatus() == RESPONSE_BAD_REQUEST) &&
+                        reports(errors, BadRequest.class)) {
+                    throw new CompletionException(new BadRequest(message));
+                } else if ((response.getStatus() == RESPONSE_CONFLICT) &&
+                        reports(errors, NotUnique.class)) {
+                    throw new CompletionException(new NotUnique(message));
+                } else if ((response.getStatus() == RESPONSE_NOT_FOUND) &&
+                        reports(errors, NotFound.class)) {
+                    throw new CompletionException(new NotFound(message));
+                } else {
+                    throw new CompletionException
+                            (new InternalServerError(message));
+                }
+            } finally {
+                response.close();
+            }
+        };
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Shared client state, created from the system properties the first
+     * time any client needs it.  Creation is lock-free: if several threads
+     * race to create it, one instance wins and the others are discarded.
+     * Invalid system properties are reported with an
+     * <code>IllegalArgumentException</code> each time a client needs this
+     * state, rather than leaving it permanently broken.</p>
+     */
+    private static final class Transport {
+
+        private static final AtomicReference<Transport> INSTANCE =
+                new AtomicReference<>();
+
+        private final WebTarget baseTarget;
+        private final Client client;
+        private final String mediaType;
+
+        private Transport() {
+            mediaType = Boolean.parseBoolean(System.getProperty(PROPERTY_CBOR))
+                    ? APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+            URI baseURI = createBaseURI();
+            client = createClient(mediaType);
+            baseTarget = client.target(baseURI);
+        }
+
+        /**
+         * <p>Return the shared state, creating it if necessary.</p>
+         *
+         * @throws IllegalArgumentException If a system property is invalid
+         */
+        private static Transport get() {
+            Transport transport = INSTANCE.get();
+            if (transport == null) {
+                Transport created = new Transport();
+                if (INSTANCE.compareAndSet(null, created)) {
+                    transport = created;
+                } else {
+                    created.client.close();
+                    transport = INSTANCE.get();
+                }
+            }
+            return transport;
+        }
+
+        private static URI createBaseURI() {
+            String value = System.getProperty(PROPERTY_BASE_URI, DEFAULT_BASE_URI);
+            URI uri;
+            try {
+                uri = new URI(value);
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException
+                        ("Invalid base URI " + value, e);
+            }
+            if (!uri.isAbsolute() || (uri.getHost() == null)) {
+                throw new IllegalArgumentException
+                        ("Invalid base URI " + value + ", must be absolute");
+            }
+            return uri;
+        }
+
+        private static Client createClient(String mediaType) {
             ClientBuilder clientBuilder = ClientBuilder.newBuilder();
-            String value = System.getProperty(PROPERTY_CONNECT_TIMEOUT);
+            Integer value = intProperty(PROPERTY_CONNECT_TIMEOUT, 0);
             if (value != null) {
-                clientBuilder.connectTimeout(Long.valueOf(value),
-                        TimeUnit.MILLISECONDS);
+                clientBuilder.connectTimeout(value, TimeUnit.MILLISECONDS);
             }
-            value = System.getProperty(PROPERTY_READ_TIMEOUT);
+            value = intProperty(PROPERTY_READ_TIMEOUT, 0);
             if (value != null) {
-                clientBuilder.readTimeout(Long.valueOf(value),
-                        TimeUnit.MILLISECONDS);
+                clientBuilder.readTimeout(value, TimeUnit.MILLISECONDS);
+            }
+            if (APPLICATION_CBOR.equals(mediaType)) {
+                clientBuilder.register(CborProvider.class);
+            }
+            Integer poolSize = intProperty(PROPERTY_POOL_SIZE, 1);
+            return createTransport(clientBuilder).build(clientBuilder,
+                    (poolSize != null) ? poolSize : DEFAULT_POOL_SIZE);
+        }
+
+        private static ClientTransport createTransport(ClientBuilder clientBuilder) {
+            String className = System.getProperty(PROPERTY_TRANSPORT);
+            if (className == null) {
+                // Pool connections if the JAX-RS implementation supports it
+                className = clientBuilder.getClass().getName()
+                        .startsWith(RESTEASY_PACKAGE)
+                        ? ResteasyClientTransport.class.getName()
+                        : JaxrsClientTransport.class.getName();
+            }
+            try {
+                return (ClientTransport) Class.forName(className, true,
+                        AbstractClient.class.getClassLoader())
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException |
+                    LinkageError e) {
+                throw new IllegalArgumentException
+                        ("Invalid client transport " + className, e);
             }
-            client = clientBuilder.build();
         }
-        return client;
+
+        /**
+         * <p>Return the value of the specified system property as an
+         * integer, or <code>null</code> if it is not set.</p>
+         *
+         * @param name Name of the system property
+         * @param minimum Smallest valid value
+         *
+         * @throws IllegalArgumentException If the value is not an integer
+         *  of at least the minimum
+         */
+        private static Integer intProperty(String name, int minimum) {
+            String value = System.getProperty(name);
+            if (value == null) {
+                return null;
+            }
+            try {
+                int result = Integer.parseInt(value.trim());
+                if (result >= minimum) {
+                    return result;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through
+            }
+            throw new IllegalArgumentException(String.format
+                    ("Invalid %s %s, must be an integer of at least %d",
+                            name, value, minimum));
+        }
+
     }
 
 }
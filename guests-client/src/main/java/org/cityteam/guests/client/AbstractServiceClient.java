@@ -23,6 +23,7 @@ import org.craigmcc.library.shared.exception.NotUnique;
 
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * <p>Standard CRUD interface methods for interacting with REST services
@@ -61,6 +62,16 @@ public abstract class AbstractServiceClient<M extends Model>
     public abstract @NotNull M delete(@NotNull Long id)
             throws InternalServerError, NotFound;
 
+    /**
+     * <p>Asynchronous version of {@link #delete(Long)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     *
+     * @param id Primary key of the specified {@link Model} object.
+     *
+     * @return Stage that completes with the deleted {@link Model} object.
+     */
+    public abstract @NotNull CompletionStage<M> deleteAsync(@NotNull Long id);
+
     /**
      * <p>Retrieve and return the specified {@link Model} object by
      * identifier.</p>
@@ -76,6 +87,16 @@ public abstract class AbstractServiceClient<M extends Model>
     public abstract @NotNull M find(@NotNull Long id)
             throws InternalServerError, NotFound;
 
+    /**
+     * <p>Asynchronous version of {@link #find(Long)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     *
+     * @param id Primary key of the specified {@link Model} object.
+     *
+     * @return Stage that completes with the matching {@link Model} object.
+     */
+    public abstract @NotNull CompletionStage<M> findAsync(@NotNull Long id);
+
     /**
      * <p>Retrieve and return all {@link Model} objects of the specified
      * type.</p>
@@ -86,6 +107,14 @@ public abstract class AbstractServiceClient<M extends Model>
      */
     public abstract @NotNull List<M> findAll() throws InternalServerError;
 
+    /**
+     * <p>Asynchronous version of {@link #findAll()}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     *
+     * @return Stage that completes with the matching {@link Model} objects.
+     */
+    public abstract @NotNull CompletionStage<List<M>> findAllAsync();
+
     /**
      * <p>Insert and return the specified {@link Model} object.</p>
      *
@@ -101,6 +130,17 @@ public abstract class AbstractServiceClient<M extends Model>
     public abstract @NotNull M insert(@NotNull M model)
             throws BadRequest, InternalServerError, NotUnique;
 
+    /**
+     * <p>Asynchronous version of {@link #insert(Model)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     *
+     * @param model The {@link Model} object to be inserted
+     *              (any specified PK will be ignored).
+     *
+     * @return Stage that completes with the inserted {@link Model} object.
+     */
+    public abstract @NotNull CompletionStage<M> insertAsync(@NotNull M model);
+
     /**
      * <p>Update and return the specified {@link Model} object.</p>
      *
@@ -119,4 +159,16 @@ public abstract class AbstractServiceClient<M extends Model>
     public abstract @NotNull M update(@NotNull Long id, @NotNull M model)
             throws BadRequest, InternalServerError, NotFound, NotUnique;
 
+    /**
+     * <p>Asynchronous version of {@link #update(Long, Model)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     *
+     * @param id Primary key of the specified {@link Model} object.
+     * @param model The {@link Model} object to be updated.
+     *
+     * @return Stage that completes with the updated {@link Model} object.
+     */
+    public abstract @NotNull CompletionStage<M> updateAsync(@NotNull Long id,
+                                                           @NotNull M model);
+
 }
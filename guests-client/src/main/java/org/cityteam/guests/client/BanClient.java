@@ -27,10 +27,10 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 public class BanClient extends AbstractServiceClient<Ban> {
 
@@ -47,15 +47,23 @@ public class BanClient extends AbstractServiceClient<Ban> {
 
         Response response = banTarget
                 .path(banId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Ban.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Ban.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Ban> deleteAsync(@NotNull Long banId) {
+
+        CompletionStage<Response> stage = banTarget
+                .path(banId.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK, Ban.class, NotFound.class);
 
     }
 
@@ -65,15 +73,23 @@ public class BanClient extends AbstractServiceClient<Ban> {
 
         Response response = banTarget
                 .path(banId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, Ban.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Ban> findAsync(@NotNull Long banId) {
+
+        CompletionStage<Response> stage = banTarget
+                .path(banId.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Ban.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Ban.class, NotFound.class);
 
     }
 
@@ -82,13 +98,21 @@ public class BanClient extends AbstractServiceClient<Ban> {
             throws InternalServerError {
 
         Response response = banTarget
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Ban>>() {}));
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<List<Ban>> findAllAsync() {
+
+        CompletionStage<Response> stage = banTarget
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Ban>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, new GenericType<List<Ban>>() {});
 
     }
 
@@ -97,17 +121,56 @@ public class BanClient extends AbstractServiceClient<Ban> {
             throws BadRequest, InternalServerError, NotUnique {
 
         Response response = banTarget
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(ban, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(Ban.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(ban, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, Ban.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Ban> insertAsync(@NotNull Ban ban) {
+
+        CompletionStage<Response> stage = banTarget
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(ban, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, Ban.class, BadRequest.class,
+                NotUnique.class);
+
+    }
+
+    public @NotNull List<Ban> insertAll(@NotNull List<Ban> bans)
+            throws BadRequest, InternalServerError, NotUnique {
+
+        Response response = banTarget
+                .path("bulk")
+                .request(getMediaType())
+                .post(Entity.entity(bans, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, new GenericType<List<Ban>>() {},
+                        BadRequest.class, NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #insertAll(List)}.  The returned stage
+     * fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Ban>> insertAllAsync
+            (@NotNull List<Ban> bans) {
+
+        CompletionStage<Response> stage = banTarget
+                .path("bulk")
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(bans, getMediaType()));
+        return complete(stage, RESPONSE_CREATED,
+                new GenericType<List<Ban>>() {}, BadRequest.class,
+                NotUnique.class);
 
     }
 
@@ -118,19 +181,26 @@ public class BanClient extends AbstractServiceClient<Ban> {
 
         Response response = banTarget
                 .path(banId.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .put(Entity.entity(ban, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Ban.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .put(Entity.entity(ban, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Ban.class, BadRequest.class, NotFound.class,
+                        NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Ban> updateAsync
+            (@NotNull Long banId, @NotNull Ban ban) {
+
+        CompletionStage<Response> stage = banTarget
+                .path(banId.toString())
+                .request(getMediaType())
+                .rx()
+                .put(Entity.entity(ban, getMediaType()));
+        return complete(stage, RESPONSE_OK, Ban.class, BadRequest.class,
+                NotFound.class, NotUnique.class);
 
     }
 
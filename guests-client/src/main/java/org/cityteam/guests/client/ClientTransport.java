@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.client;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * <p>Pluggable strategy for creating the JAX-RS {@link Client} shared by
+ * all clients, selected by the <code>PROPERTY_TRANSPORT</code> system
+ * property of {@link AbstractClient}.  This is where the HTTP engine and
+ * its connection management (pooling, keep-alive, and protocol version)
+ * can be chosen.  Implementations must have a public no-args
+ * constructor.</p>
+ */
+public interface ClientTransport {
+
+    /**
+     * <p>Build a {@link Client} from the specified builder, which has
+     * already been configured with timeouts and providers.</p>
+     *
+     * @param clientBuilder Configured client builder
+     * @param poolSize Maximum number of concurrent connections to the server
+     *
+     * @return Configured {@link Client} object
+     */
+    @NotNull
+    Client build(@NotNull ClientBuilder clientBuilder, int poolSize);
+
+}
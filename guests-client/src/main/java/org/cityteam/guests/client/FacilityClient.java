@@ -30,10 +30,11 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 public class FacilityClient extends AbstractServiceClient<Facility> {
 
@@ -50,15 +51,24 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
 
         Response response = facilityTarget
                 .path(facilityId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Facility.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Facility.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Facility> deleteAsync
+            (@NotNull Long facilityId) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK, Facility.class, NotFound.class);
 
     }
 
@@ -70,14 +80,30 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path(facilityId.toString())
                 .path("/registrations")
                 .path(registrationDate.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity
-                    (new GenericType<List<Registration>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #deleteRegistrationsByFacilityAndDate(Long, LocalDate)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Registration>> deleteRegistrationsByFacilityAndDateAsync
+            (@NotNull Long facilityId, @NotNull LocalDate registrationDate) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/registrations")
+                .path(registrationDate.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Registration>>() {});
 
     }
 
@@ -87,15 +113,24 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
 
         Response response = facilityTarget
                 .path(facilityId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, Facility.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Facility> findAsync
+            (@NotNull Long facilityId) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Facility.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Facility.class, NotFound.class);
 
     }
 
@@ -104,13 +139,76 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
             throws InternalServerError {
 
         Response response = facilityTarget
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Facility>>() {}));
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<List<Facility>> findAllAsync() {
+
+        CompletionStage<Response> stage = facilityTarget
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Facility>>() {});
+
+    }
+
+    /**
+     * <p>Return the last day of the ban covering the specified registration
+     * date for each of the specified guests that is banned on that date,
+     * keyed by guestId.  If no guests are specified, all banned guests of
+     * the specified facility are returned.</p>
+     *
+     * @param facilityId ID of the facility the guests belong to
+     * @param registrationDate Registration date to be checked
+     * @param guestIds IDs of the guests to be checked (or empty for all)
+     *
+     * @return Map of guestId to last day of ban, for banned guests only
+     *
+     * @throws InternalServerError If an internal server error has occurred
+     */
+    public @NotNull Map<Long, LocalDate> findBannedGuestsByFacilityAndDate
+            (@NotNull Long facilityId, @NotNull LocalDate registrationDate,
+             @NotNull List<Long> guestIds)
+        throws InternalServerError {
+
+        Response response = facilityTarget
+                .path(facilityId.toString())
+                .path("/bans")
+                .path(registrationDate.toString())
+                .queryParam("guestId", guestIds.toArray())
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<Map<Long, LocalDate>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #findBannedGuestsByFacilityAndDate(Long, LocalDate, List)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<Map<Long, LocalDate>> findBannedGuestsByFacilityAndDateAsync
+            (@NotNull Long facilityId,
+             @NotNull LocalDate registrationDate,
+             @NotNull List<Long> guestIds) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/bans")
+                .path(registrationDate.toString())
+                .queryParam("guestId", guestIds.toArray())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Facility>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK,
+                new GenericType<Map<Long, LocalDate>>() {});
 
     }
 
@@ -127,13 +225,26 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
 
         Response response = facilityTarget
                 .path("/active")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Facility>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findByActive()}.  The returned stage
+     * fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Facility>> findByActiveAsync() {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path("/active")
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Facility>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Facility>>() {});
 
     }
 
@@ -153,15 +264,28 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
         Response response = facilityTarget
                 .path("/name")
                 .path(name)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(
-                        new GenericType<List<Facility>>() {}
-                    );
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Facility>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findByName(String)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Facility>> findByNameAsync
+            (@NotNull String name) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path("/name")
+                .path(name)
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Facility>>() {});
 
     }
 
@@ -171,15 +295,28 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
         Response response = facilityTarget
                 .path("/nameExact")
                 .path(name)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Facility.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Facility.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findByNameExact(String)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<Facility> findByNameExactAsync
+            (@NotNull String name) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path("/nameExact")
+                .path(name)
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK, Facility.class, NotFound.class);
 
     }
 
@@ -201,16 +338,27 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
         Response response = facilityTarget
                 .path(facilityId.toString())
                 .path("/guests")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Guest>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findGuestsByFacilityId(Long)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Guest>> findGuestsByFacilityIdAsync
+            (@NotNull Long facilityId) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/guests")
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(
-                    new GenericType<List<Guest>>() {
-                    }
-            );
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, new GenericType<List<Guest>>() {});
 
     }
 
@@ -237,18 +385,32 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path("/guests")
                 .path("/name")
                 .path(name)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Guest>>() {},
+                        NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findGuestsByName(Long, String)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Guest>> findGuestsByNameAsync
+            (@NotNull Long facilityId, @NotNull String name) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/guests")
+                .path("/name")
+                .path(name)
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(
-                    new GenericType<List<Guest>>() {
-                    }
-            );
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, new GenericType<List<Guest>>() {},
+                NotFound.class);
 
     }
 
@@ -277,15 +439,34 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path("/nameExact")
                 .path(firstName)
                 .path(lastName)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Guest.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Guest.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findGuestsByNameExact(Long, String,
+     * String)}.  The returned stage fails with the same exceptions it would
+     * throw.</p>
+     */
+    public @NotNull CompletionStage<Guest> findGuestsByNameExactAsync
+            (@NotNull Long facilityId,
+             @NotNull String firstName,
+             @NotNull String lastName) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/guests")
+                .path("/nameExact")
+                .path(firstName)
+                .path(lastName)
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK, Guest.class, NotFound.class);
 
     }
 
@@ -297,14 +478,87 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path(facilityId.toString())
                 .path("/registrations")
                 .path(registrationDate.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #findRegistrationsByFacilityAndDate(Long, LocalDate)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Registration>> findRegistrationsByFacilityAndDateAsync
+            (@NotNull Long facilityId, @NotNull LocalDate registrationDate) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/registrations")
+                .path(registrationDate.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity
-                    (new GenericType<List<Registration>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Registration>>() {});
+
+    }
+
+    /**
+     * <p>Return a list of {@link Registration} objects for the specified
+     * facility and inclusive range of registration dates, ordered by
+     * registrationDate and matNumber.</p>
+     *
+     * @param facilityId ID of the facility for which to retrieve registrations
+     * @param fromDate First registration date (inclusive) to retrieve
+     * @param toDate Last registration date (inclusive) to retrieve
+     *
+     * @return List of {@link Registration} objects in this date range
+     *
+     * @throws BadRequest If toDate is before fromDate
+     * @throws InternalServerError If an internal server error has occurred
+     */
+    public @NotNull List<Registration> findRegistrationsByFacilityAndDateRange
+            (@NotNull Long facilityId,
+             @NotNull LocalDate fromDate,
+             @NotNull LocalDate toDate)
+        throws BadRequest, InternalServerError {
+
+        Response response = facilityTarget
+                .path(facilityId.toString())
+                .path("/registrations")
+                .path(fromDate.toString())
+                .path(toDate.toString())
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {},
+                        BadRequest.class),
+                BadRequest.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #findRegistrationsByFacilityAndDateRange(Long, LocalDate, LocalDate)}.
+     * The returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Registration>> findRegistrationsByFacilityAndDateRangeAsync
+            (@NotNull Long facilityId,
+             @NotNull LocalDate fromDate,
+             @NotNull LocalDate toDate) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/registrations")
+                .path(fromDate.toString())
+                .path(toDate.toString())
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Registration>>() {}, BadRequest.class);
 
     }
 
@@ -326,16 +580,28 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
         Response response = facilityTarget
                 .path(facilityId.toString())
                 .path("/templates")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Template>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findTemplatesByFacilityId(Long)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Template>> findTemplatesByFacilityIdAsync
+            (@NotNull Long facilityId) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/templates")
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(
-                    new GenericType<List<Template>>() {
-                    }
-            );
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Template>>() {});
 
     }
 
@@ -362,18 +628,32 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path("/templates")
                 .path("/name")
                 .path(name)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(
-                    new GenericType<List<Template>>() {
-                    }
-            );
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Template>>() {},
+                        NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findTemplatesByName(Long, String)}.
+     * The returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Template>> findTemplatesByNameAsync
+            (@NotNull Long facilityId, @NotNull String name) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/templates")
+                .path("/name")
+                .path(name)
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Template>>() {}, NotFound.class);
 
     }
 
@@ -399,15 +679,31 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path("/templates")
                 .path("/nameExact")
                 .path(name)
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Template.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Template.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findTemplatesByNameExact(Long,
+     * String)}.  The returned stage fails with the same exceptions it would
+     * throw.</p>
+     */
+    public @NotNull CompletionStage<Template> findTemplatesByNameExactAsync
+            (@NotNull Long facilityId, @NotNull String name) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/templates")
+                .path("/nameExact")
+                .path(name)
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK, Template.class, NotFound.class);
 
     }
 
@@ -421,17 +717,34 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
                 .path(facilityId.toString())
                 .path("/registrations")
                 .path(registrationDate.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(importRequests, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(ImportResults.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(importRequests, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, ImportResults.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #importRegistrationsByFacilityAndDate(Long, LocalDate, List)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<ImportResults> importRegistrationsByFacilityAndDateAsync
+            (@NotNull Long facilityId,
+             @NotNull LocalDate registrationDate,
+             @NotNull List<ImportRequest> importRequests) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .path("/registrations")
+                .path(registrationDate.toString())
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(importRequests, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, ImportResults.class,
+                BadRequest.class, NotUnique.class);
 
     }
 
@@ -440,17 +753,25 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
             throws BadRequest, InternalServerError, NotUnique {
 
         Response response = facilityTarget
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(facility, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(Facility.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(facility, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, Facility.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Facility> insertAsync
+            (@NotNull Facility facility) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(facility, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, Facility.class,
+                BadRequest.class, NotUnique.class);
 
     }
 
@@ -461,19 +782,26 @@ public class FacilityClient extends AbstractServiceClient<Facility> {
 
         Response response = facilityTarget
                 .path(facilityId.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .put(Entity.entity(facility, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Facility.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .put(Entity.entity(facility, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Facility.class, BadRequest.class,
+                        NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Facility> updateAsync
+            (@NotNull Long facilityId, @NotNull Facility facility) {
+
+        CompletionStage<Response> stage = facilityTarget
+                .path(facilityId.toString())
+                .request(getMediaType())
+                .rx()
+                .put(Entity.entity(facility, getMediaType()));
+        return complete(stage, RESPONSE_OK, Facility.class, BadRequest.class,
+                NotFound.class, NotUnique.class);
 
     }
 
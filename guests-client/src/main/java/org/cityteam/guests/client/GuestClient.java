@@ -27,10 +27,10 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 public class GuestClient extends AbstractServiceClient<Guest> {
 
@@ -47,15 +47,23 @@ public class GuestClient extends AbstractServiceClient<Guest> {
 
         Response response = guestTarget
                 .path(guestId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Guest.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Guest.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Guest> deleteAsync(@NotNull Long guestId) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK, Guest.class, NotFound.class);
 
     }
 
@@ -65,15 +73,23 @@ public class GuestClient extends AbstractServiceClient<Guest> {
 
         Response response = guestTarget
                 .path(guestId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, Guest.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Guest> findAsync(@NotNull Long guestId) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Guest.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Guest.class, NotFound.class);
 
     }
 
@@ -82,13 +98,21 @@ public class GuestClient extends AbstractServiceClient<Guest> {
             throws InternalServerError {
 
         Response response = guestTarget
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Guest>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Guest>>() {}));
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<List<Guest>> findAllAsync() {
+
+        CompletionStage<Response> stage = guestTarget
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK, new GenericType<List<Guest>>() {});
 
     }
 
@@ -98,13 +122,27 @@ public class GuestClient extends AbstractServiceClient<Guest> {
         Response response = guestTarget
                 .path(guestId.toString())
                 .path("/bans")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Ban>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findBansByGuestId(Long)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Ban>> findBansByGuestIdAsync
+            (@NotNull Long guestId) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .path("/bans")
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Ban>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, new GenericType<List<Ban>>() {});
 
     }
 
@@ -116,15 +154,30 @@ public class GuestClient extends AbstractServiceClient<Guest> {
                 .path(guestId.toString())
                 .path("/bans")
                 .path(registrationDate.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Ban.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Ban.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link
+     * #findBansByGuestIdAndRegistrationDate(Long, LocalDate)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<Ban> findBansByGuestIdAndRegistrationDateAsync
+            (@NotNull Long guestId, @NotNull LocalDate registrationDate) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .path("/bans")
+                .path(registrationDate.toString())
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK, Ban.class, NotFound.class);
 
     }
 
@@ -135,14 +188,29 @@ public class GuestClient extends AbstractServiceClient<Guest> {
         Response response = guestTarget
                 .path(guestId.toString())
                 .path("/registrations")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity
-                    (new GenericType<List<Registration>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {}));
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #findRegistrationsByGuestId(Long)}.
+     * The returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Registration>> findRegistrationsByGuestIdAsync
+            (@NotNull Long guestId) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .path("/registrations")
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Registration>>() {});
+
     }
 
     @Override
@@ -150,17 +218,24 @@ public class GuestClient extends AbstractServiceClient<Guest> {
             throws BadRequest, InternalServerError, NotUnique {
 
         Response response = guestTarget
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(guest, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(Guest.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(guest, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, Guest.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Guest> insertAsync(@NotNull Guest guest) {
+
+        CompletionStage<Response> stage = guestTarget
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(guest, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, Guest.class, BadRequest.class,
+                NotUnique.class);
 
     }
 
@@ -171,19 +246,26 @@ public class GuestClient extends AbstractServiceClient<Guest> {
 
         Response response = guestTarget
                 .path(guestId.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .put(Entity.entity(guest, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Guest.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .put(Entity.entity(guest, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Guest.class, BadRequest.class,
+                        NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Guest> updateAsync
+            (@NotNull Long guestId, @NotNull Guest guest) {
+
+        CompletionStage<Response> stage = guestTarget
+                .path(guestId.toString())
+                .request(getMediaType())
+                .rx()
+                .put(Entity.entity(guest, getMediaType()));
+        return complete(stage, RESPONSE_OK, Guest.class, BadRequest.class,
+                NotFound.class, NotUnique.class);
 
     }
 
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.client;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * <p>{@link ClientTransport} that uses whatever HTTP engine the JAX-RS
+ * implementation provides by default.  The pool size is ignored, because
+ * there is no portable way to configure it.</p>
+ */
+public class JaxrsClientTransport implements ClientTransport {
+
+    @Override
+    public Client build(ClientBuilder clientBuilder, int poolSize) {
+        return clientBuilder.build();
+    }
+
+}
@@ -26,9 +26,9 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 public class RegistrationClient extends AbstractServiceClient<Registration> {
 
@@ -46,17 +46,30 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
         Response response = registrationTarget
                 .path(registrationId.toString())
                 .path("/assign")
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(assign, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(assign, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Registration.class, BadRequest.class,
+                        NotFound.class),
+                BadRequest.class, NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #assign(Long, Assign)}.  The returned
+     * stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<Registration> assignAsync
+            (@NotNull Long registrationId, @NotNull Assign assign) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .path(registrationId.toString())
+                .path("/assign")
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(assign, getMediaType()));
+        return complete(stage, RESPONSE_OK, Registration.class,
+                BadRequest.class, NotFound.class);
 
     }
 
@@ -66,17 +79,30 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
         Response response = registrationTarget
                 .path(registrationId.toString())
                 .path("/deassign")
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .post(Entity.json(""));
+        return receive(response,
+                expect(RESPONSE_OK, Registration.class, BadRequest.class,
+                        NotFound.class),
+                BadRequest.class, NotFound.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #deassign(Long)}.  The returned stage
+     * fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<Registration> deassignAsync
+            (@NotNull Long registrationId) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .path(registrationId.toString())
+                .path("/deassign")
+                .request(getMediaType())
+                .rx()
                 .post(Entity.json(""));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Registration.class,
+                BadRequest.class, NotFound.class);
 
     }
 
@@ -86,15 +112,24 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
 
         Response response = registrationTarget
                 .path(registrationId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Registration.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Registration> deleteAsync
+            (@NotNull Long registrationId) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .path(registrationId.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK, Registration.class, NotFound.class);
 
     }
 
@@ -104,15 +139,24 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
 
         Response response = registrationTarget
                 .path(registrationId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, Registration.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Registration> findAsync
+            (@NotNull Long registrationId) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .path(registrationId.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Registration.class, NotFound.class);
 
     }
 
@@ -121,13 +165,22 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
             throws InternalServerError {
 
         Response response = registrationTarget
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {}));
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<List<Registration>> findAllAsync() {
+
+        CompletionStage<Response> stage = registrationTarget
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Registration>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Registration>>() {});
 
     }
 
@@ -136,17 +189,25 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
             throws BadRequest, InternalServerError, NotUnique {
 
         Response response = registrationTarget
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(registration, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(registration, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, Registration.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Registration> insertAsync
+            (@NotNull Registration registration) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(registration, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, Registration.class,
+                BadRequest.class, NotUnique.class);
 
     }
 
@@ -157,19 +218,26 @@ public class RegistrationClient extends AbstractServiceClient<Registration> {
 
         Response response = registrationTarget
                 .path(registrationId.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .put(Entity.entity(registration, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Registration.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .put(Entity.entity(registration, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Registration.class, BadRequest.class,
+                        NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Registration> updateAsync
+            (@NotNull Long registrationId, @NotNull Registration registration) {
+
+        CompletionStage<Response> stage = registrationTarget
+                .path(registrationId.toString())
+                .request(getMediaType())
+                .rx()
+                .put(Entity.entity(registration, getMediaType()));
+        return complete(stage, RESPONSE_OK, Registration.class,
+                BadRequest.class, NotFound.class, NotUnique.class);
 
     }
 
@@ -15,6 +15,7 @@
  */
 package org.cityteam.guests.client;
 
+import org.cityteam.guests.action.GenerateResult;
 import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.Template;
 import org.craigmcc.library.shared.exception.BadRequest;
@@ -26,10 +27,10 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 public class TemplateClient extends AbstractServiceClient<Template> {
 
@@ -46,15 +47,24 @@ public class TemplateClient extends AbstractServiceClient<Template> {
 
         Response response = templateTarget
                 .path(templateId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .delete();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Template.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, Template.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Template> deleteAsync
+            (@NotNull Long templateId) {
+
+        CompletionStage<Response> stage = templateTarget
+                .path(templateId.toString())
+                .request(getMediaType())
+                .rx()
+                .delete();
+        return complete(stage, RESPONSE_OK, Template.class, NotFound.class);
 
     }
 
@@ -64,15 +74,24 @@ public class TemplateClient extends AbstractServiceClient<Template> {
 
         Response response = templateTarget
                 .path(templateId.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .get();
+        return receive(response,
+                expect(RESPONSE_OK, Template.class, NotFound.class),
+                NotFound.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Template> findAsync
+            (@NotNull Long templateId) {
+
+        CompletionStage<Response> stage = templateTarget
+                .path(templateId.toString())
+                .request(getMediaType())
+                .rx()
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Template.class);
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return complete(stage, RESPONSE_OK, Template.class, NotFound.class);
 
     }
 
@@ -81,13 +100,22 @@ public class TemplateClient extends AbstractServiceClient<Template> {
             throws InternalServerError {
 
         Response response = templateTarget
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
                 .get();
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<List<Template>>() {});
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Template>>() {}));
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<List<Template>> findAllAsync() {
+
+        CompletionStage<Response> stage = templateTarget
+                .request(getMediaType())
+                .rx()
+                .get();
+        return complete(stage, RESPONSE_OK,
+                new GenericType<List<Template>>() {});
 
     }
 
@@ -118,19 +146,93 @@ public class TemplateClient extends AbstractServiceClient<Template> {
                 .path("/" + templateId)
                 .path("/registrations")
                 .path("/" + registrationDate.toString())
-                .request(MediaType.APPLICATION_JSON)
+                .request(getMediaType())
+                .post(Entity.json(null));
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {},
+                        BadRequest.class, NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #generate(Long, LocalDate)}.  The
+     * returned stage fails with the same exceptions it would throw.</p>
+     */
+    public @NotNull CompletionStage<List<Registration>> generateAsync
+            (@NotNull Long templateId, @NotNull LocalDate registrationDate) {
+
+        CompletionStage<Response> stage = templateTarget
+                .path("/" + templateId)
+                .path("/registrations")
+                .path("/" + registrationDate.toString())
+                .request(getMediaType())
+                .rx()
+                .post(Entity.json(null));
+        return complete(stage, RESPONSE_OK, new GenericType<>() {},
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    /**
+     * <p>For the given templateId, create unassigned {@link Registration}
+     * objects for each registration date from <code>fromDate</code> through
+     * <code>toDate</code> (inclusive), in a single transaction.  Dates that
+     * already have registrations are skipped and reported.</p>
+     *
+     * @param templateId ID of the template used as the basis for
+     *                   generating {@link Registration} objects
+     * @param fromDate First date for which to generate registrations
+     * @param toDate Last date for which to generate registrations
+     *
+     * @return Outcome for each date in the range, in date order
+     *
+     * @throws BadRequest If the date range is empty or too long
+     * @throws InternalServerError If a server side processing error occurs
+     * @throws NotFound If no template with the specified ID can be found
+     * @throws NotUnique If attempting to add the same mat number twice
+     */
+    public @NotNull List<GenerateResult> generateRange
+            (@NotNull Long templateId,
+             @NotNull LocalDate fromDate,
+             @NotNull LocalDate toDate)
+        throws BadRequest, InternalServerError, NotFound, NotUnique {
+
+        Response response = templateTarget
+                .path("/" + templateId)
+                .path("/registrations")
+                .queryParam("from", fromDate.toString())
+                .queryParam("to", toDate.toString())
+                .request(getMediaType())
                 .post(Entity.json(null));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(new GenericType<>() {});
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+        return receive(response,
+                expect(RESPONSE_OK, new GenericType<List<Registration>>() {},
+                        BadRequest.class, NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    /**
+     * <p>Asynchronous version of {@link #generateRange(Long, LocalDate,
+     * LocalDate)}.  The returned stage fails with the same exceptions it would
+     * throw.</p>
+     */
+    public @NotNull CompletionStage<List<GenerateResult>> generateRangeAsync
+            (@NotNull Long templateId,
+             @NotNull LocalDate fromDate,
+             @NotNull LocalDate toDate) {
+
+        CompletionStage<Response> stage = templateTarget
+                .path("/" + templateId)
+                .path("/registrations")
+                .queryParam("from", fromDate.toString())
+                .queryParam("to", toDate.toString())
+                .request(getMediaType())
+                .rx()
+                .post(Entity.json(null));
+        return complete(stage, RESPONSE_OK, new GenericType<>() {},
+                BadRequest.class, NotFound.class, NotUnique.class);
+
     }
 
     @Override
@@ -138,17 +240,25 @@ public class TemplateClient extends AbstractServiceClient<Template> {
             throws BadRequest, InternalServerError, NotUnique {
 
         Response response = templateTarget
-                .request(MediaType.APPLICATION_JSON)
-                .post(Entity.entity(template, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_CREATED) {
-            return response.readEntity(Template.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .post(Entity.entity(template, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_CREATED, Template.class, BadRequest.class,
+                        NotUnique.class),
+                BadRequest.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Template> insertAsync
+            (@NotNull Template template) {
+
+        CompletionStage<Response> stage = templateTarget
+                .request(getMediaType())
+                .rx()
+                .post(Entity.entity(template, getMediaType()));
+        return complete(stage, RESPONSE_CREATED, Template.class,
+                BadRequest.class, NotUnique.class);
 
     }
 
@@ -159,19 +269,26 @@ public class TemplateClient extends AbstractServiceClient<Template> {
 
         Response response = templateTarget
                 .path(templateId.toString())
-                .request(MediaType.APPLICATION_JSON)
-                .put(Entity.entity(template, MediaType.APPLICATION_JSON));
-        if (response.getStatus() == RESPONSE_OK) {
-            return response.readEntity(Template.class);
-        } else if (response.getStatus() == RESPONSE_BAD_REQUEST) {
-            throw new BadRequest(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_CONFLICT) {
-            throw new NotUnique(response.readEntity(String.class));
-        } else if (response.getStatus() == RESPONSE_NOT_FOUND) {
-            throw new NotFound(response.readEntity(String.class));
-        } else {
-            throw new InternalServerError(response.readEntity(String.class));
-        }
+                .request(getMediaType())
+                .put(Entity.entity(template, getMediaType()));
+        return receive(response,
+                expect(RESPONSE_OK, Template.class, BadRequest.class,
+                        NotFound.class, NotUnique.class),
+                BadRequest.class, NotFound.class, NotUnique.class);
+
+    }
+
+    @Override
+    public @NotNull CompletionStage<Template> updateAsync
+            (@NotNull Long templateId, @NotNull Template template) {
+
+        CompletionStage<Response> stage = templateTarget
+                .path(templateId.toString())
+                .request(getMediaType())
+                .rx()
+                .put(Entity.entity(template, getMediaType()));
+        return complete(stage, RESPONSE_OK, Template.class, BadRequest.class,
+                NotFound.class, NotUnique.class);
 
     }
 
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.client;
+
+import org.craigmcc.library.shared.exception.BadRequest;
+import org.craigmcc.library.shared.exception.InternalServerError;
+import org.craigmcc.library.shared.exception.NotFound;
+import org.craigmcc.library.shared.exception.NotUnique;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>Unit tests for the mapping of response statuses to exceptions, which
+ * blocking and asynchronous requests share.</p>
+ */
+@Category(UnitTests.class)
+public class AbstractClientUnitTest {
+
+    private static final String MESSAGE = "Server message";
+
+    private final TestClient client = new TestClient();
+
+    // Test Methods ----------------------------------------------------------
+
+    @Test
+    public void badRequestNotReported() throws Exception {
+
+        FakeResponse response = new FakeResponse(400, MESSAGE);
+        try {
+            client.receive(response, client.expect(200, String.class,
+                    NotFound.class), NotFound.class);
+            fail("Should have thrown InternalServerError");
+        } catch (InternalServerError e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+        assertThat(response.closed, is(true));
+
+    }
+
+    @Test
+    public void badRequestReported() throws Exception {
+
+        FakeResponse response = new FakeResponse(400, MESSAGE);
+        try {
+            client.receive(response, client.expect(201, String.class,
+                    BadRequest.class, NotUnique.class),
+                    BadRequest.class, NotUnique.class);
+            fail("Should have thrown BadRequest");
+        } catch (BadRequest e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+        assertThat(response.closed, is(true));
+
+    }
+
+    @Test
+    public void conflictNotReported() throws Exception {
+
+        // For example, deleteRegistrationsByFacilityAndDate()
+        FakeResponse response = new FakeResponse(409, MESSAGE);
+        try {
+            client.receive(response, client.expect(200,
+                    new GenericType<List<String>>() {}));
+            fail("Should have thrown InternalServerError");
+        } catch (InternalServerError e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+
+    }
+
+    @Test
+    public void conflictReported() throws Exception {
+
+        FakeResponse response = new FakeResponse(409, MESSAGE);
+        try {
+            client.receive(response, client.expect(201, String.class,
+                    BadRequest.class, NotUnique.class),
+                    BadRequest.class, NotUnique.class);
+            fail("Should have thrown NotUnique");
+        } catch (NotUnique e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+
+    }
+
+    @Test
+    public void expectedStatus() throws Exception {
+
+        FakeResponse response = new FakeResponse(200, MESSAGE);
+        assertThat(client.receive(response, client.expect(200,
+                String.class, NotFound.class), NotFound.class),
+                is(equalTo(MESSAGE)));
+        assertThat(response.closed, is(true));
+
+    }
+
+    @Test
+    public void notFoundNotReported() throws Exception {
+
+        // For example, deleteRegistrationsByFacilityAndDate()
+        FakeResponse response = new FakeResponse(404, MESSAGE);
+        try {
+            client.receive(response, client.expect(200, String.class));
+            fail("Should have thrown InternalServerError");
+        } catch (InternalServerError e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+
+        // The asynchronous caller sees the same exception
+        CompletionStage<String> stage = client.complete
+                (stage(new FakeResponse(404, MESSAGE)), 200, String.class);
+        Throwable thrown = stage.handle((value, t) -> t)
+                .toCompletableFuture().join();
+        assertThat(thrown.getCause() instanceof InternalServerError, is(true));
+
+    }
+
+    @Test
+    public void notFoundReported() throws Exception {
+
+        FakeResponse response = new FakeResponse(404, MESSAGE);
+        try {
+            client.receive(response, client.expect(200, String.class,
+                    NotFound.class), NotFound.class);
+            fail("Should have thrown NotFound");
+        } catch (NotFound e) {
+            assertThat(e.getMessage(), is(equalTo(MESSAGE)));
+        }
+
+    }
+
+    @Test
+    public void processingExceptionPassedThrough() throws Exception {
+
+        ProcessingException exception =
+                new ProcessingException("Connection reset");
+        FakeResponse response = new FakeResponse(200, MESSAGE) {
+            @Override
+            public <T> T readEntity(Class<T> type) {
+                throw exception;
+            }
+        };
+        try {
+            client.receive(response, client.expect(200, String.class,
+                    NotFound.class), NotFound.class);
+            fail("Should have thrown ProcessingException");
+        } catch (ProcessingException e) {
+            assertThat(e, is(sameInstance(exception)));
+        }
+        assertThat(response.closed, is(true));
+
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private CompletionStage<Response> stage(Response response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Response that holds a string entity, which is all that
+     * {@link AbstractClient} reads from it.</p>
+     */
+    private static class FakeResponse extends Response {
+
+        private boolean closed = false;
+        private final String entity;
+        private final int status;
+
+        private FakeResponse(int status, String entity) {
+            this.entity = entity;
+            this.status = status;
+        }
+
+        @Override
+        public boolean bufferEntity() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Set<String> getAllowedMethods() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, NewCookie> getCookies() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Date getDate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getEntity() {
+            return entity;
+        }
+
+        @Override
+        public EntityTag getEntityTag() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getHeaderString(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Locale getLanguage() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Date getLastModified() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getLength() {
+            return entity.length();
+        }
+
+        @Override
+        public Link getLink(String relation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Link.Builder getLinkBuilder(String relation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Link> getLinks() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public URI getLocation() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.TEXT_PLAIN_TYPE;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getMetadata() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public StatusType getStatusInfo() {
+            return Status.fromStatusCode(status);
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getStringHeaders() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasEntity() {
+            return true;
+        }
+
+        @Override
+        public boolean hasLink(String relation) {
+            return false;
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> type) {
+            return type.cast(entity);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T readEntity(GenericType<T> type) {
+            return (T) List.of(entity);
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> type, Annotation[] annotations) {
+            return readEntity(type);
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> type, Annotation[] annotations) {
+            return readEntity(type);
+        }
+
+    }
+
+    /**
+     * <p>Client that exposes the protected methods of
+     * {@link AbstractClient}, without needing a server.</p>
+     */
+    private static class TestClient extends AbstractClient {
+    }
+
+}
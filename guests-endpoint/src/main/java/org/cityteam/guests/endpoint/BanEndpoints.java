@@ -44,11 +44,14 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
+import java.util.List;
+
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
 
 @ApplicationScoped
 @Path("/bans")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
+@Produces({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
 @Tag(
         description = "CRUD operations for managing banning of a " +
                 "particular guest (of a particular facility) " +
@@ -236,6 +239,70 @@ public class BanEndpoints {
         }
     }
 
+    @POST
+    @Path("/bulk")
+    @Operation(description = "Insert a list of new bans, for any number " +
+            "of guests.  If any ban is invalid, none are inserted.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            implementation = Ban.class,
+                            type = SchemaType.ARRAY)
+                    ),
+                    description = "The inserted bans.",
+                    responseCode = "201"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Uniqueness conflict message.",
+                    responseCode = "409"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response insertAll(
+            @Parameter(
+                    description = "Bans to be inserted.",
+                    name = "bans",
+                    schema = @Schema(
+                            implementation = Ban.class,
+                            type = SchemaType.ARRAY)
+            )
+                    List<Ban> bans
+    ) {
+        try {
+            bans = banService.insertAll(bans);
+            URI uri = UriBuilder.fromResource(BanEndpoints.class)
+                    .build();
+            return Response.created(uri)
+                    .entity(bans)
+                    .build();
+        } catch (BadRequest e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (InternalServerError e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (NotUnique e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     @PUT
     @Path("/{banId}")
     @Operation(description = "Update an existing ban.")
@@ -15,15 +15,26 @@
  */
 package org.cityteam.guests.endpoint;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.cityteam.guests.action.ImportRequest;
 import org.cityteam.guests.action.ImportResults;
+import org.cityteam.guests.action.RegistrationChange;
+import org.cityteam.guests.action.RegistrationSummary;
+import org.cityteam.guests.endpoint.application.ObjectMapperProvider;
 import org.cityteam.guests.model.Facility;
 import org.cityteam.guests.model.Guest;
 import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.Template;
+import org.cityteam.guests.service.BanService;
 import org.cityteam.guests.service.FacilityService;
 import org.cityteam.guests.service.GuestService;
 import org.cityteam.guests.service.RegistrationService;
+import org.cityteam.guests.service.RegistrationSnapshotService;
 import org.cityteam.guests.service.TemplateService;
 import org.craigmcc.library.shared.exception.BadRequest;
 import org.craigmcc.library.shared.exception.InternalServerError;
@@ -50,17 +61,35 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Function;
+
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
+import static org.cityteam.guests.model.Constants.VIEW_FULL;
+import static org.cityteam.guests.model.Constants.VIEW_SUMMARY;
 
 @ApplicationScoped
 @Path("/facilities")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
+@Produces({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
 @Tag(
         description = "CRUD operations for managing separate CityTeam " +
                 "facilities, that each have their own guests, " +
@@ -71,20 +100,116 @@ public class FacilityEndpoints {
 
     // Instance Variables ----------------------------------------------------
     
+    @Inject
+    private BanService banService;
+
     @Inject
     private FacilityService facilityService;
 
     @Inject
     private GuestService guestService;
 
+    @Inject
+    private RegistrationChangeBroadcaster registrationChangeBroadcaster;
+
     @Inject
     private RegistrationService registrationService;
 
     @Inject
     private TemplateService templateService;
 
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Number of registrations retrieved per query when streaming
+     * registrations for a date range.</p>
+     */
+    private static final int STREAM_PAGE_SIZE = 500;
+
+    /**
+     * <p>Representations that a registration date range can be streamed
+     * in, JSON being preferred.</p>
+     */
+    private static final List<Variant> STREAM_VARIANTS = Variant.mediaTypes
+            (MediaType.APPLICATION_JSON_TYPE, MediaType.valueOf(APPLICATION_CBOR))
+            .build();
+
+    /**
+     * <p>Mapper used to stream registration date ranges as CBOR, configured
+     * the same way as the one used by <code>CborProvider</code>.</p>
+     */
+    private static final ObjectMapper CBOR_MAPPER = ObjectMapperProvider.configure
+            (new ObjectMapper(new CBORFactory()), false);
+
+    /**
+     * <p>Response header containing the cursor for the next page of a
+     * keyset paginated search.</p>
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String CURSOR_SEPARATOR = "\u0000";
+
+    /**
+     * <p>Largest page size a keyset paginated search will return, whatever
+     * limit was requested.</p>
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
     // Endpoint Methods ------------------------------------------------------
 
+    @POST
+    @Path("/{facilityId}/registrations/{registrationDate}/deassign")
+    @Operation(description = "Deassign all assigned registrations for a " +
+            "facility and specific registration date (optionally only the " +
+            "specified mat numbers) in a single bulk update, such as when " +
+            "resetting a night.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            implementation = Integer.class)
+                    ),
+                    description = "The number of deassigned registrations.",
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response deassignRegistrationsByFacilityAndDate(
+            @Parameter(description = "Facility ID for which to deassign " +
+                    "registrations.")
+            @PathParam("facilityId") Long facilityId,
+            @Parameter(description = "Registration date for which to " +
+                    "deassign registrations.")
+            @PathParam("registrationDate") String registrationDate,
+            @Parameter(description = "Mat numbers to deassign (may be " +
+                    "repeated, omit for all mats).")
+            @QueryParam("matNumber") List<Integer> matNumbers
+    ) {
+        try {
+            return Response.ok(registrationService.deassignByFacilityAndDate
+                    (facilityId, LocalDate.parse(registrationDate),
+                            matNumbers)).build();
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (InternalServerError e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     @DELETE
     @Path("/{facilityId}")
     @Operation(description = "Delete a facility by ID.")
@@ -255,6 +380,59 @@ public class FacilityEndpoints {
         }
     }
 
+    @GET
+    @Path("/{facilityId}/bans/{registrationDate}")
+    @Operation(description = "Find which guests of a facility are banned " +
+            "on a registration date, returning the last day of each " +
+            "guest's ban keyed by guestId.  If no guestId parameters are " +
+            "specified, all banned guests of the facility are returned.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            type = SchemaType.OBJECT)
+                    ),
+                    description = "The banned guests.",
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response findBannedGuestsByFacilityAndDate(
+            @Parameter(description = "Facility ID for which to find " +
+                    "banned guests.")
+            @PathParam("facilityId") Long facilityId,
+            @Parameter(description = "Registration date for which to " +
+                    "find banned guests.")
+            @PathParam("registrationDate") String registrationDate,
+            @Parameter(description = "IDs of the guests to check " +
+                    "(may be repeated).")
+            @QueryParam("guestId") List<Long> guestIds
+    ) {
+        try {
+            return Response.ok(banService.findBannedGuests
+                    (facilityId, LocalDate.parse(registrationDate),
+                            guestIds)).build();
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (InternalServerError e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     @GET
     @Path("/active")
     @Operation(description = "Find all active facilities, " +
@@ -398,7 +576,11 @@ public class FacilityEndpoints {
     @Path("/{facilityId}/guests/name/{name}")
     @Operation(description = "Find guests for this facility " +
             "matching name segment, " +
-            "ordered by lastName, firstName.")
+            "ordered by lastName, firstName (or, for substring matches " +
+            "served from the guest name index, ranked by closeness of " +
+            "match and then by lastName, firstName).  If there may be more " +
+            "matches, the " + NEXT_CURSOR_HEADER + " response header " +
+            "contains a cursor value that retrieves the next page.")
     @APIResponses(value = {
             @APIResponse(
                     content = @Content(schema = @Schema(
@@ -408,6 +590,11 @@ public class FacilityEndpoints {
                     description = "The found guests.",
                     responseCode = "200"
             ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Invalid cursor or limit message.",
+                    responseCode = "400"
+            ),
             @APIResponse(
                     content = @Content(mediaType = MediaType.TEXT_PLAIN),
                     description = "Internal server error message.",
@@ -419,14 +606,51 @@ public class FacilityEndpoints {
             @PathParam("facilityId") Long facilityId,
             @Parameter(description = "Name segment match for guests to find.")
             @PathParam("name") String name,
-            @Parameter(description = "Zero-relative index of first guest to return.")
+            @Parameter(description = "Zero-relative index of first guest " +
+                    "to return.  Deprecated, use cursor instead.")
             @QueryParam("offset") @DefaultValue("0") Integer offset,
-            @Parameter(description = "Maximum number of results to return.")
-            @QueryParam("limit") @DefaultValue("25") Integer limit
+            @Parameter(description = "Maximum number of results to return " +
+                    "(at most " + MAX_PAGE_SIZE + " when paging by cursor).")
+            @QueryParam("limit") @DefaultValue("25") Integer limit,
+            @Parameter(description = "Cursor from the " + NEXT_CURSOR_HEADER +
+                    " header of the previous page (omit for the first page).")
+            @QueryParam("cursor") String cursor,
+            @Parameter(description = "Match only last names starting with " +
+                    "the name segment (case sensitive, and much faster for " +
+                    "facilities with many guests).")
+            @QueryParam("prefix") @DefaultValue("false") boolean prefix
     ) {
         try {
-            return Response.ok(guestService.findByNamePaginated
-                    (facilityId, name, offset, limit)).build();
+            if (limit < 1) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("limit: Must be positive")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            if ((offset > 0) && (cursor == null)) {
+                return Response.ok(guestService.findByNamePaginated
+                        (facilityId, name, offset, limit)).build();
+            }
+            String[] after = decodeCursor(cursor);
+            if (after == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("cursor: Invalid cursor value")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            limit = Math.min(limit, MAX_PAGE_SIZE);
+            List<Guest> guests = guestService.findByNameKeyset
+                    (facilityId, name, prefix, after[0], after[1], limit + 1);
+            Response.ResponseBuilder builder;
+            if (guests.size() > limit) {
+                guests = guests.subList(0, limit);
+                Guest last = guests.get(limit - 1);
+                builder = Response.ok(guests).header(NEXT_CURSOR_HEADER,
+                        encodeCursor(last.getLastName(), last.getFirstName()));
+            } else {
+                builder = Response.ok(guests);
+            }
+            return builder.build();
         } catch (InternalServerError e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(e.getMessage())
@@ -485,16 +709,32 @@ public class FacilityEndpoints {
     @GET
     @Path("/{facilityId}/registrations/{registrationDate}")
     @Operation(description = "Find registrations for a facility and " +
-            "specific registration date, ordered by matNumber.")
+            "specific registration date, ordered by matNumber.  The " +
+            "response carries an ETag, so a client polling for changes " +
+            "can send If-None-Match and receive 304 if nothing changed.  " +
+            "With view=summary, lightweight summaries (including only the " +
+            "name of each assigned guest) are returned instead, without " +
+            "an ETag.")
     @APIResponses(value = {
             @APIResponse(
                     content = @Content(schema = @Schema(
                             implementation = Registration.class,
                             type = SchemaType.ARRAY)
                     ),
-                    description = "The found registrations.",
+                    description = "The found registrations (or " +
+                            "RegistrationSummary objects for view=summary).",
                     responseCode = "200"
             ),
+            @APIResponse(
+                    description = "Registrations have not changed since " +
+                            "the specified ETag.",
+                    responseCode = "304"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
             @APIResponse(
                     content = @Content(mediaType = MediaType.TEXT_PLAIN),
                     description = "Internal server error message.",
@@ -507,11 +747,42 @@ public class FacilityEndpoints {
             @PathParam("facilityId") Long facilityId,
             @Parameter(description = "Registration date for which to " +
                     "find registrations.")
-            @PathParam("registrationDate") String registrationDate
+            @PathParam("registrationDate") String registrationDate,
+            @Parameter(description = "Representation to return: full " +
+                    "(the default) or summary.")
+            @QueryParam("view") @DefaultValue(VIEW_FULL) String view,
+            @Context Request request
     ) {
+        LocalDate date;
         try {
-            return Response.ok(registrationService.findByFacilityAndDate
-                    (facilityId, LocalDate.parse(registrationDate))).build();
+            date = LocalDate.parse(registrationDate);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        try {
+            if (VIEW_SUMMARY.equals(view)) {
+                return Response.ok(registrationService
+                        .findSummariesByFacilityAndDate(facilityId, date))
+                        .build();
+            } else if (!VIEW_FULL.equals(view)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(String.format("view: Unknown view '%s'", view))
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            RegistrationSnapshotService.Snapshot snapshot =
+                    registrationService.findSnapshotByFacilityAndDate
+                            (facilityId, date);
+            EntityTag entityTag = new EntityTag(snapshot.getTag(), true);
+            Response.ResponseBuilder builder =
+                    request.evaluatePreconditions(entityTag);
+            if (builder == null) {
+                builder = Response.ok(snapshot.getRegistrations());
+            }
+            return builder.tag(entityTag).build();
         } catch (InternalServerError e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(e.getMessage())
@@ -520,6 +791,90 @@ public class FacilityEndpoints {
         }
     }
 
+    @GET
+    @Path("/{facilityId}/registrations/{fromDate}/{toDate}")
+    @Operation(description = "Stream registrations for a facility and " +
+            "inclusive range of registration dates, ordered by " +
+            "registrationDate and matNumber.  Rows are retrieved and " +
+            "written a page at a time, so this is suitable for exporting " +
+            "large date ranges.  The array is written as JSON or CBOR, as " +
+            "negotiated by the Accept header.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            implementation = Registration.class,
+                            type = SchemaType.ARRAY)
+                    ),
+                    description = "The found registrations.",
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response findRegistrationsByFacilityAndDateRange(
+            @Parameter(description = "Facility ID for which to find " +
+                    "registrations.")
+            @PathParam("facilityId") Long facilityId,
+            @Parameter(description = "First registration date (inclusive) " +
+                    "for which to find registrations.")
+            @PathParam("fromDate") String fromDate,
+            @Parameter(description = "Last registration date (inclusive) " +
+                    "for which to find registrations.")
+            @PathParam("toDate") String toDate,
+            @Parameter(description = "Representation to return: full " +
+                    "(the default) or summary.")
+            @QueryParam("view") @DefaultValue(VIEW_FULL) String view,
+            @Context Providers providers,
+            @Context Request request
+    ) {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromDate);
+            to = LocalDate.parse(toDate);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        if (from.isAfter(to)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("toDate: Cannot be before fromDate")
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        if (VIEW_SUMMARY.equals(view)) {
+            return streamRange(providers, request,
+                    RegistrationSummary.class, from,
+                    (afterDate, afterMatNumber) -> registrationService
+                            .findSummariesByFacilityAndDateRange(facilityId,
+                                    to, afterDate, afterMatNumber,
+                                    STREAM_PAGE_SIZE),
+                    RegistrationSummary::getRegistrationDate,
+                    RegistrationSummary::getMatNumber);
+        } else if (!VIEW_FULL.equals(view)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(String.format("view: Unknown view '%s'", view))
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        return streamRange(providers, request, Registration.class, from,
+                (afterDate, afterMatNumber) -> registrationService
+                        .findByFacilityAndDateRange(facilityId, to,
+                                afterDate, afterMatNumber, STREAM_PAGE_SIZE),
+                Registration::getRegistrationDate,
+                Registration::getMatNumber);
+    }
+
     @POST
     @Path("/{facilityId}/registrations/{registrationDate}")
     @Operation(description = "Import registration information by " +
@@ -853,4 +1208,171 @@ public class FacilityEndpoints {
 
     }
 
+    @GET
+    @Path("/{facilityId}/registrations/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(description = "Stream changes to the mat board of a " +
+            "facility as Server-Sent Events, one \"registration\" event " +
+            "(containing a RegistrationChange) per committed assign or " +
+            "deassign, for any registration date.  A client that falls " +
+            "too far behind is disconnected, and should reconnect and " +
+            "reload the registrations it is displaying.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(
+                            mediaType = MediaType.SERVER_SENT_EVENTS,
+                            schema = @Schema(
+                                    implementation = RegistrationChange.class)
+                    ),
+                    description = "The stream of registration changes.",
+                    responseCode = "200"
+            )
+    })
+    public void watchRegistrationsByFacility(
+            @Parameter(description = "Facility ID for which to watch " +
+                    "registration changes.")
+            @PathParam("facilityId") Long facilityId,
+            @Context SseEventSink sink,
+            @Context Sse sse
+    ) {
+        registrationChangeBroadcaster.subscribe(facilityId, sink, sse);
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Decode a cursor created by <code>encodeCursor()</code> into the
+     * lastName and firstName to search after.  A <code>null</code> cursor
+     * decodes to empty names, which starts at the beginning.</p>
+     *
+     * @param cursor Cursor value to decode (may be null)
+     *
+     * @return The decoded names, or <code>null</code> if the cursor is
+     *         not valid
+     */
+    private String[] decodeCursor(String cursor) {
+        if ((cursor == null) || cursor.isEmpty()) {
+            return new String[] { "", "" };
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String[] names = new String(bytes, StandardCharsets.UTF_8)
+                .split(CURSOR_SEPARATOR, -1);
+        return (names.length == 2) ? names : null;
+    }
+
+    /**
+     * <p>Encode the names of the last guest returned into an opaque
+     * cursor value for retrieving the next page.</p>
+     *
+     * @param lastName Last name of the last guest returned
+     * @param firstName First name of the last guest returned
+     */
+    private String encodeCursor(String lastName, String firstName) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString
+                ((lastName + CURSOR_SEPARATOR + firstName)
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>Return the <code>ObjectMapper</code> configured for this
+     * application, for use by endpoints that generate JSON themselves.</p>
+     *
+     * @param providers JAX-RS providers for this request
+     */
+    private ObjectMapper objectMapper(Providers providers) {
+        ContextResolver<ObjectMapper> resolver = providers.getContextResolver
+                (ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE);
+        ObjectMapper objectMapper = (resolver != null)
+                ? resolver.getContext(Registration.class) : null;
+        return (objectMapper != null)
+                ? objectMapper : new ObjectMapperProvider().getContext(null);
+    }
+
+    /**
+     * <p>Stream the rows of a registration date range as a JSON or CBOR
+     * array (whichever the request negotiates), retrieving them a page at
+     * a time.  The first page is retrieved before anything is committed,
+     * so that failures can still be reported with an appropriate
+     * status.</p>
+     *
+     * @param providers JAX-RS providers for this request
+     * @param request JAX-RS request, used to negotiate the media type
+     * @param type Type of the rows being streamed
+     * @param from First registration date (inclusive) of the range
+     * @param page Retrieves the page of rows after a given row
+     * @param registrationDate Returns the registration date of a row
+     * @param matNumber Returns the mat number of a row
+     * @param <T> Type of the rows being streamed
+     */
+    private <T> Response streamRange(Providers providers,
+                                     Request request,
+                                     Class<T> type,
+                                     LocalDate from,
+                                     RangePage<T> page,
+                                     Function<T, LocalDate> registrationDate,
+                                     Function<T, Integer> matNumber) {
+        List<T> first;
+        try {
+            first = page.after(from.minusDays(1), Integer.MAX_VALUE);
+        } catch (InternalServerError e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        Variant variant = request.selectVariant(STREAM_VARIANTS);
+        MediaType mediaType = (variant != null)
+                ? variant.getMediaType() : MediaType.APPLICATION_JSON_TYPE;
+        ObjectMapper objectMapper =
+                MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)
+                        ? objectMapper(providers) : CBOR_MAPPER;
+        StreamingOutput stream = output -> {
+            ObjectWriter writer = objectMapper.writerFor(type)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory()
+                    .createGenerator(output, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                generator.writeStartArray();
+                List<T> rows = first;
+                while (true) {
+                    for (T row : rows) {
+                        writer.writeValue(generator, row);
+                    }
+                    generator.flush();
+                    if (rows.size() < STREAM_PAGE_SIZE) {
+                        break;
+                    }
+                    T last = rows.get(rows.size() - 1);
+                    rows = page.after(registrationDate.apply(last),
+                            matNumber.apply(last));
+                }
+                generator.writeEndArray();
+            } catch (InternalServerError e) {
+                // The status has already been sent, so abort the response
+                // rather than completing it with a truncated array
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+        return Response.ok(stream, mediaType).build();
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Retrieves the page of a registration date range that follows the
+     * row with the specified registration date and mat number.</p>
+     */
+    @FunctionalInterface
+    private interface RangePage<T> {
+
+        List<T> after(LocalDate afterDate, Integer afterMatNumber)
+                throws InternalServerError;
+
+    }
+
 }
@@ -38,22 +38,28 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 import java.time.LocalDate;
 
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
+import static org.cityteam.guests.model.Constants.VIEW_FULL;
+import static org.cityteam.guests.model.Constants.VIEW_SUMMARY;
+
 @ApplicationScoped
 @Path("/guests")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
+@Produces({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
 @Tag(
         description = "CRUD operations for managing overnight guests " +
                 "of a particular CityTeam facility.  Guests within a " +
@@ -267,16 +273,23 @@ public class GuestEndpoints {
     @GET
     @Path("/{guestId}/registrations")
     @Operation(description = "Find all registrations by guest ID, ordered " +
-            "by registrationDate.")
+            "by registrationDate.  With view=summary, lightweight summaries " +
+            "are returned instead.")
     @APIResponses(value = {
             @APIResponse(
                     content = @Content(schema = @Schema(
                             implementation = Registration.class,
                             type = SchemaType.ARRAY)
                     ),
-                    description = "The found registrations.",
+                    description = "The found registrations (or " +
+                            "RegistrationSummary objects for view=summary).",
                     responseCode = "200"
             ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
             @APIResponse(
                     content = @Content(mediaType = MediaType.TEXT_PLAIN),
                     description = "Internal server error message.",
@@ -285,9 +298,21 @@ public class GuestEndpoints {
     })
     public Response findRegistrationsByGuestId(
             @Parameter(description = "ID of the guest for which to find registrations.")
-            @PathParam("guestId") Long guestId
+            @PathParam("guestId") Long guestId,
+            @Parameter(description = "Representation to return: full " +
+                    "(the default) or summary.")
+            @QueryParam("view") @DefaultValue(VIEW_FULL) String view
     ) {
         try {
+            if (VIEW_SUMMARY.equals(view)) {
+                return Response.ok(registrationService
+                        .findSummariesByGuestId(guestId)).build();
+            } else if (!VIEW_FULL.equals(view)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(String.format("view: Unknown view '%s'", view))
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
             return Response.ok(registrationService.findByGuestId(guestId)).build();
         } catch (InternalServerError e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint;
+
+import org.cityteam.guests.service.MetricsService;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+@ApplicationScoped
+@Path("/metrics")
+@Tag(
+        description = "Service method metrics in the Prometheus text " +
+                "exposition format, for scraping by monitoring systems.",
+        name = "Metrics Endpoints"
+)
+public class MetricsEndpoints {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Inject
+    private MetricsService metricsService;
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Content type of the Prometheus text exposition format.</p>
+     */
+    public static final String PROMETHEUS_TEXT =
+            "text/plain; version=0.0.4; charset=utf-8";
+
+    // Endpoint Methods ------------------------------------------------------
+
+    @GET
+    @Operation(description = "Call counts, latency histograms, error " +
+            "counts by exception type, and rows returned, for each " +
+            "service method that has been called.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "The metrics, in Prometheus text format.",
+                    responseCode = "200"
+            )
+    })
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response metrics() {
+        return Response.ok(metricsService.prometheus())
+                .type(PROMETHEUS_TEXT)
+                .build();
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint;
+
+import org.cityteam.guests.action.RegistrationChange;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * <p>Pushes committed {@link RegistrationChange}s to every Server-Sent Events
+ * subscriber watching the mat board of the affected facility.</p>
+ *
+ * <p>Each subscriber has its own bounded buffer, drained by asynchronous
+ * sends, so publishing a change never waits on a client.  A subscriber
+ * that falls so far behind that its buffer overflows is disconnected;
+ * its client is expected to reconnect and reload the mat board.</p>
+ *
+ * <p>Each sink is also registered with its own {@link SseBroadcaster},
+ * purely so that the container reports when the client disconnects.
+ * Disconnected subscribers are removed as soon as that is detected,
+ * rather than lingering until the next change is sent to them.</p>
+ */
+@ApplicationScoped
+public class RegistrationChangeBroadcaster {
+
+    // Instance Variables ----------------------------------------------------
+
+    /**
+     * <p>Source of event IDs.</p>
+     */
+    private final AtomicLong eventIds = new AtomicLong();
+
+    /**
+     * <p>Current subscribers, keyed by the facilityId they are watching.</p>
+     */
+    private final Map<Long, Set<Subscriber>> subscribers =
+            new ConcurrentHashMap<>();
+
+    // Static Variables ------------------------------------------------------
+
+    private static final Logger LOG =
+            Logger.getLogger(RegistrationChangeBroadcaster.class.getSimpleName());
+
+    /**
+     * <p>Name of the events sent for each change.</p>
+     */
+    static final String EVENT_NAME = "registration";
+
+    /**
+     * <p>Maximum number of events buffered for a single subscriber.</p>
+     */
+    static final int MAX_PENDING_EVENTS = 64;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Close all subscriber connections.</p>
+     */
+    @PreDestroy
+    public void close() {
+        for (Set<Subscriber> facilitySubscribers : subscribers.values()) {
+            for (Subscriber subscriber : facilitySubscribers) {
+                subscriber.close();
+            }
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * <p>Send the specified change to each subscriber for its facility,
+     * once the transaction that made it has committed.</p>
+     *
+     * @param change Change that was made
+     */
+    public void publish(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                                RegistrationChange change) {
+        Set<Subscriber> facilitySubscribers =
+                subscribers.get(change.getFacilityId());
+        if ((facilitySubscribers == null) || facilitySubscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : facilitySubscribers) {
+            subscriber.offer(change);
+        }
+    }
+
+    /**
+     * <p>Start sending changes for the specified facility to the specified
+     * event sink, until it is closed.</p>
+     *
+     * @param facilityId ID of the facility whose changes are wanted
+     * @param sink Event sink for this subscriber
+     * @param sse Factory for outbound events
+     */
+    public void subscribe(@NotNull Long facilityId,
+                          @NotNull SseEventSink sink,
+                          @NotNull Sse sse) {
+        Subscriber subscriber = new Subscriber(facilityId, sink, sse);
+        subscribers.computeIfAbsent(facilityId,
+                k -> ConcurrentHashMap.newKeySet())
+                .add(subscriber);
+        subscriber.watch();
+    }
+
+    // Package Methods -------------------------------------------------------
+
+    /**
+     * <p>Return the number of current subscribers for the specified
+     * facility.</p>
+     *
+     * @param facilityId ID of the facility whose subscribers are counted
+     */
+    int subscriberCount(@NotNull Long facilityId) {
+        Set<Subscriber> facilitySubscribers = subscribers.get(facilityId);
+        return (facilitySubscribers == null) ? 0 : facilitySubscribers.size();
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private void unsubscribe(Subscriber subscriber) {
+        Set<Subscriber> facilitySubscribers =
+                subscribers.get(subscriber.facilityId);
+        if (facilitySubscribers != null) {
+            facilitySubscribers.remove(subscriber);
+        }
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>A single connected client, with its bounded buffer of events that
+     * have not been sent yet.  At most one send is in progress at a time,
+     * so events are delivered in order.</p>
+     */
+    private final class Subscriber {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Long facilityId;
+        private final SseBroadcaster lifecycle;
+        private final Queue<OutboundSseEvent> pendings =
+                new ArrayBlockingQueue<>(MAX_PENDING_EVENTS);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final SseEventSink sink;
+        private final Sse sse;
+
+        private Subscriber(Long facilityId, SseEventSink sink, Sse sse) {
+            this.facilityId = facilityId;
+            this.lifecycle = sse.newBroadcaster();
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            unsubscribe(this);
+            pendings.clear();
+            try {
+                lifecycle.close();
+                sink.close();
+            } catch (Exception e) {
+                LOG.log(FINE, String.format("close(%d): %s",
+                        facilityId, e.getMessage()), e);
+            }
+        }
+
+        private void drain() {
+            while (sending.compareAndSet(false, true)) {
+                OutboundSseEvent event = pendings.poll();
+                if (event == null) {
+                    sending.set(false);
+                    if (pendings.isEmpty()) {
+                        return;
+                    }
+                    continue; // Raced with offer(), so try again
+                }
+                if (sink.isClosed()) {
+                    close();
+                    return;
+                }
+                sink.send(event).whenComplete((result, throwable) -> {
+                    sending.set(false);
+                    if (throwable != null) {
+                        close();
+                    } else {
+                        drain();
+                    }
+                });
+                return;
+            }
+        }
+
+        private void offer(RegistrationChange change) {
+            OutboundSseEvent event = sse.newEventBuilder()
+                    .id(Long.toString(eventIds.incrementAndGet()))
+                    .name(EVENT_NAME)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(RegistrationChange.class, change)
+                    .build();
+            if (!pendings.offer(event)) {
+                LOG.fine(String.format("Disconnecting slow subscriber " +
+                        "for facility %d", facilityId));
+                close();
+                return;
+            }
+            drain();
+        }
+
+        private void watch() {
+            lifecycle.onClose(s -> close());
+            lifecycle.onError((s, throwable) -> close());
+            lifecycle.register(sink);
+            if (sink.isClosed()) {
+                close(); // Disconnected before we started watching
+            }
+        }
+
+    }
+
+}
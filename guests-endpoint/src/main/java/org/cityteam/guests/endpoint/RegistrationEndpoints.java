@@ -46,10 +46,12 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
+
 @ApplicationScoped
 @Path("/registrations")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
+@Produces({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
 @Tag(
         description = "CRUD operations for managing registrations of " +
                 "a particular guest, within a particular facility, " +
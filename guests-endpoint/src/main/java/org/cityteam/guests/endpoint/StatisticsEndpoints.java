@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint;
+
+import org.cityteam.guests.service.CacheService;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.SEVERE;
+
+@ApplicationScoped
+@Path("/statistics")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(
+        description = "Operational statistics for monitoring the " +
+                "behavior of the application.",
+        name = "Statistics Endpoints"
+)
+public class StatisticsEndpoints {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Inject
+    private CacheService cacheService;
+
+    // Static Variables ------------------------------------------------------
+
+    private static final Logger LOG =
+            Logger.getLogger(StatisticsEndpoints.class.getSimpleName());
+
+    // Endpoint Methods ------------------------------------------------------
+
+    @GET
+    @Path("/cache")
+    @Operation(description = "Hit, miss, and put counts for the second " +
+            "level cache, the query cache, and each cache region.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            type = SchemaType.OBJECT)
+                    ),
+                    description = "The cache statistics, keyed by region.",
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response cache() {
+        try {
+            return Response.ok(cacheService.statistics()).build();
+        } catch (Exception e) {
+            LOG.log(SEVERE, String.format("cache(): %s", e.getMessage()), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.cityteam.guests.endpoint;
 
+import org.cityteam.guests.action.GenerateResult;
 import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.Template;
 import org.cityteam.guests.service.RegistrationService;
@@ -42,16 +43,20 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
 
 @ApplicationScoped
 @Path("/templates")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
+@Produces({ MediaType.APPLICATION_JSON, APPLICATION_CBOR })
 @Tag(
         description = "CRUD operations for managing templates used to " +
                 "generate registrations for a particular facility and " +
@@ -248,6 +253,90 @@ public class TemplateEndpoints {
         }
     }
 
+    @POST
+    @Path("/{templateId}/registrations")
+    @Operation(description = "Generate unassigned registrations for the " +
+                             "specified template ID and each registration " +
+                             "date in an inclusive range, in a single " +
+                             "transaction.  Dates that already have " +
+                             "registrations are skipped, and the outcome " +
+                             "for each date is reported.")
+    @APIResponses(value = {
+            @APIResponse(
+                    content = @Content(schema = @Schema(
+                            implementation = GenerateResult.class,
+                            type = SchemaType.ARRAY)
+                    ),
+                    description = "The outcome for each registration date.",
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Bad request message.",
+                    responseCode = "400"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Missing template message.",
+                    responseCode = "404"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Uniqueness conflict message.",
+                    responseCode = "409"
+            ),
+            @APIResponse(
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    description = "Internal server error message.",
+                    responseCode = "500"
+            )
+    })
+    public Response generateRange(
+            @Parameter(description = "Template ID for which to " +
+                                     "generate registrations.")
+            @PathParam("templateId") Long templateId,
+            @Parameter(description = "First registration date for which " +
+                                     "to generate registrations.")
+            @QueryParam("from") String fromDate,
+            @Parameter(description = "Last registration date for which " +
+                                     "to generate registrations.")
+            @QueryParam("to") String toDate
+    ) {
+        try {
+            if ((fromDate == null) || (toDate == null)) {
+                throw new BadRequest("from, to: Both dates are required");
+            }
+            return Response.ok(templateService.generateRange
+                    (templateId, LocalDate.parse(fromDate),
+                            LocalDate.parse(toDate))).build();
+        } catch (BadRequest e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (InternalServerError e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (NotFound e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (NotUnique e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     @POST
     @Operation(description = "Insert a new template.")
     @APIResponses(value = {
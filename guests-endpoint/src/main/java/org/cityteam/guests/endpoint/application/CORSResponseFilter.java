@@ -41,6 +41,7 @@ public class CORSResponseFilter implements ContainerResponseFilter {
         headers.add("Access-Control-Allow-Headers", "*");
         headers.add("Access-Control-Allow-Methods", "*");
         headers.add("Access-Control-Allow-Origin", "*");
+        headers.add("Access-Control-Expose-Headers", "*");
 
     }
 
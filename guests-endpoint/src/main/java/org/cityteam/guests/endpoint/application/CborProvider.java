@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.ext.Provider;
+
+import static org.cityteam.guests.model.Constants.APPLICATION_CBOR;
+
+/**
+ * <p>Read and write request and response entities as CBOR (a binary
+ * encoding of the same data model as JSON) for clients that ask for
+ * <code>application/cbor</code>, using the same configuration as the
+ * {@link ObjectMapperProvider}.  CBOR is smaller and cheaper to generate
+ * and parse than JSON, which matters for large guest and registration
+ * lists.</p>
+ */
+@Provider
+@Consumes(APPLICATION_CBOR)
+@Produces(APPLICATION_CBOR)
+public class CborProvider extends JacksonCBORProvider {
+
+    public CborProvider() {
+        super(ObjectMapperProvider.configure
+                (new ObjectMapper(new CBORFactory()), false));
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint.application;
+
+import org.cityteam.guests.model.Registration;
+import org.craigmcc.library.model.Model;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * <p>JAX-RS response filter to support conditional GETs of model objects
+ * (and lists of them).  A weak entity tag is computed from the latest
+ * <code>updated</code> timestamp in the result, along with the number and
+ * IDs of the objects it contains (so that deletions also change the tag)
+ * and the media type (so that JSON and CBOR representations differ),
+ * and a request whose <code>If-None-Match</code> header matches that tag
+ * is answered with <code>304 Not Modified</code> and no body.  For
+ * registrations, the embedded guest (if any) is included too, so that
+ * renaming a guest changes the tag.  The tag is weak, because the same
+ * tag is served for gzip encoded and unencoded bodies.</p>
+ *
+ * <p>Responses that already carry an entity tag (such as the mat board
+ * snapshots) keep it.  Every tagged response varies by
+ * <code>Accept</code> and <code>Accept-Encoding</code>, and every GET
+ * response gets a <code>Cache-Control</code> header, which tells browsers
+ * to revalidate before reusing a response and not to share it, because
+ * it may contain guest information.</p>
+ */
+@Provider
+public class ConditionalGetFilter implements ContainerResponseFilter {
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Value of the <code>Cache-Control</code> header for GET responses.</p>
+     */
+    static final String CACHE_CONTROL = "private, no-cache";
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public void filter
+            (ContainerRequestContext requestContext,
+             ContainerResponseContext responseContext)
+            throws IOException {
+
+        String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        if (!headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        if (headers.containsKey(HttpHeaders.ETAG)) {
+            vary(headers);
+            return;
+        }
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+
+        // Calculate the tag (if this is a model object or list of them)
+        Collection<?> models = models(responseContext.getEntity());
+        if (models == null) {
+            return;
+        }
+        LocalDateTime updated = null;
+        int hash = Objects.hashCode(responseContext.getMediaType());
+        for (Object model : models) {
+            Model<?> item = (Model<?>) model;
+            updated = latest(updated, item.getUpdated());
+            hash = (31 * hash) + Objects.hashCode(item.getId());
+            if (item instanceof Registration) {
+                Model<?> guest = ((Registration) item).getGuest();
+                if (guest != null) {
+                    updated = latest(updated, guest.getUpdated());
+                    hash = (31 * hash) + Objects.hashCode(guest.getId());
+                }
+            }
+        }
+        Date lastModified = (updated != null)
+                ? Date.from(updated.atZone(ZoneId.systemDefault()).toInstant())
+                : null;
+        EntityTag entityTag = new EntityTag(
+                Long.toString((lastModified != null)
+                        ? lastModified.getTime()
+                        : 0L, 36) +
+                "-" + Integer.toString(models.size(), 36) +
+                "-" + Integer.toString(hash, 36),
+                true);
+
+        // Answer a matching conditional request with no body
+        headers.putSingle(HttpHeaders.ETAG, entityTag);
+        vary(headers);
+        if (lastModified != null) {
+            headers.putSingle(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        if (requestContext.getRequest().evaluatePreconditions(entityTag) != null) {
+            responseContext.setStatus(Response.Status.NOT_MODIFIED.getStatusCode());
+            responseContext.setEntity(null);
+        }
+
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return the later of the specified timestamps, either of which
+     * may be <code>null</code>.</p>
+     *
+     * @param latest Latest timestamp so far
+     * @param updated Timestamp to be considered
+     */
+    private LocalDateTime latest(LocalDateTime latest, LocalDateTime updated) {
+        if ((updated != null) && ((latest == null) || updated.isAfter(latest))) {
+            return updated;
+        }
+        return latest;
+    }
+
+    /**
+     * <p>Return the model objects in the specified entity, or
+     * <code>null</code> if it is not a model object or a list of them.</p>
+     *
+     * @param entity Response entity
+     */
+    private Collection<?> models(Object entity) {
+        if (entity instanceof Model) {
+            return Collections.singletonList(entity);
+        } else if (entity instanceof Collection) {
+            for (Object item : (Collection<?>) entity) {
+                if (!(item instanceof Model)) {
+                    return null;
+                }
+            }
+            return (Collection<?>) entity;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * <p>Record that a tagged response varies by media type and content
+     * encoding, so that caches never match a tag against the wrong
+     * representation.</p>
+     *
+     * @param headers Response headers
+     */
+    private void vary(MultivaluedMap<String, Object> headers) {
+        GzipWriterInterceptor.vary(headers, HttpHeaders.ACCEPT);
+        GzipWriterInterceptor.vary(headers, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+}
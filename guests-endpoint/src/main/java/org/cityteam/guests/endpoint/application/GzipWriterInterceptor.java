@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint.application;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>JAX-RS writer interceptor to gzip-encode response bodies for clients
+ * that accept it.  The first {@link #MIN_GZIP_SIZE} bytes are buffered, so
+ * that small bodies (where compression saves little) are sent as is, and
+ * only larger bodies are compressed.  Compressed output is flushed as the
+ * endpoint flushes, so streamed responses still arrive a page at a time.</p>
+ *
+ * <p>Every body that could be compressed varies by
+ * <code>Accept-Encoding</code>, whether or not this client accepts gzip,
+ * so that caches do not hand an unencoded body to a gzip client (or the
+ * reverse).  A strong entity tag on a compressed body is weakened, because
+ * it no longer identifies the exact bytes that were sent.  Server-Sent
+ * Events streams are never compressed.</p>
+ */
+@Provider
+public class GzipWriterInterceptor implements WriterInterceptor {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Context
+    private HttpHeaders httpHeaders;
+
+    // Static Variables ------------------------------------------------------
+
+    static final String GZIP = "gzip";
+
+    /**
+     * <p>Smallest response body (in bytes) that will be compressed.</p>
+     */
+    static final int MIN_GZIP_SIZE = 1024;
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context)
+            throws IOException, WebApplicationException {
+
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) ||
+                isEventStream(context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+        vary(headers, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip()) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream stream =
+                new ThresholdOutputStream(context.getOutputStream(), headers);
+        context.setOutputStream(stream);
+        context.proceed();
+        stream.finish();
+
+    }
+
+    // Package Methods -------------------------------------------------------
+
+    /**
+     * <p>Add the specified request header name to the <code>Vary</code>
+     * header of a response, unless it is already there.</p>
+     *
+     * @param headers Response headers
+     * @param name Request header name the response varies by
+     */
+    static void vary(MultivaluedMap<String, Object> headers, String name) {
+        List<Object> values = headers.get(HttpHeaders.VARY);
+        if (values != null) {
+            for (Object value : values) {
+                for (String element : String.valueOf(value).split(",")) {
+                    if (name.equalsIgnoreCase(element.trim())) {
+                        return;
+                    }
+                }
+            }
+        }
+        headers.add(HttpHeaders.VARY, name);
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return <code>true</code> if the client accepts gzip encoding
+     * (and is not asking for an event stream).</p>
+     */
+    private boolean acceptsGzip() {
+        for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+            if (isEventStream(mediaType)) {
+                return false;
+            }
+        }
+        List<String> values =
+                httpHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (GZIP.equalsIgnoreCase(parts[0].trim()) &&
+                        ((parts.length < 2) ||
+                                !parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isEventStream(MediaType mediaType) {
+        return (mediaType != null) &&
+                MediaType.SERVER_SENT_EVENTS_TYPE.getType().equals(mediaType.getType()) &&
+                MediaType.SERVER_SENT_EVENTS_TYPE.getSubtype().equals(mediaType.getSubtype());
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Output stream that buffers the body until it reaches
+     * {@link #MIN_GZIP_SIZE} bytes, then sets the
+     * <code>Content-Encoding</code> header (nothing has been sent yet, so
+     * the headers are still writable) and compresses everything from
+     * there on.</p>
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+
+        private ByteArrayOutputStream buffer =
+                new ByteArrayOutputStream(MIN_GZIP_SIZE);
+        private boolean finished = false;
+        private GZIPOutputStream gzip = null;
+        private final MultivaluedMap<String, Object> headers;
+        private final OutputStream output;
+
+        private ThresholdOutputStream(OutputStream output,
+                                      MultivaluedMap<String, Object> headers) {
+            this.headers = headers;
+            this.output = output;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (gzip != null) {
+                gzip.flush();
+            } // Otherwise, hold small bodies until we know their size
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                throw new IOException("Stream has already been finished");
+            }
+            if (gzip == null) {
+                if ((buffer.size() + len) < MIN_GZIP_SIZE) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                weaken();
+                gzip = new GZIPOutputStream(output, MIN_GZIP_SIZE, true);
+                buffer.writeTo(gzip);
+                buffer = null;
+            }
+            gzip.write(b, off, len);
+        }
+
+        /**
+         * <p>Replace a strong entity tag with the equivalent weak one.</p>
+         */
+        private void weaken() {
+            Object value = headers.getFirst(HttpHeaders.ETAG);
+            if (value == null) {
+                return;
+            }
+            EntityTag entityTag = (value instanceof EntityTag)
+                    ? (EntityTag) value : EntityTag.valueOf(value.toString());
+            if (!entityTag.isWeak()) {
+                headers.putSingle(HttpHeaders.ETAG,
+                        new EntityTag(entityTag.getValue(), true));
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (gzip != null) {
+                gzip.finish();
+            } else {
+                buffer.writeTo(output);
+            }
+            output.flush();
+        }
+
+    }
+
+}
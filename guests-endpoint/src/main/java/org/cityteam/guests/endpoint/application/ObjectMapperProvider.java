@@ -19,6 +19,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.eclipse.microprofile.config.ConfigProvider;
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
@@ -26,35 +28,81 @@ import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
 
 /**
- * <p>Provide a Jackson ObjectMapper that pretty prints JSON and does not
- * explode on LocalDateTime and friends.</p>
+ * <p>Provide a Jackson ObjectMapper that does not explode on LocalDateTime
+ * and friends, and uses bytecode-generated (rather than reflective)
+ * accessors for the model classes.</p>
+ *
+ * <p>Output is compact by default.  Set <code>json.output.pretty</code> to
+ * <code>true</code> to pretty print every response, or add
+ * <code>?pretty=true</code> to a request to pretty print just that
+ * response (see {@link PrettyPrintFilter}).</p>
  */
 @Provider
 @Produces(MediaType.APPLICATION_JSON)
 public class ObjectMapperProvider implements ContextResolver<ObjectMapper> {
 
+    // Instance Variables ----------------------------------------------------
+
     private final ObjectMapper objectMapper;
 
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Name of the configuration property that turns on pretty printing
+     * for every response.</p>
+     */
+    public static final String PRETTY_PROPERTY = "json.output.pretty";
+
+    // Constructors ----------------------------------------------------------
+
     public ObjectMapperProvider() {
-        this.objectMapper = createObjectMapper();
+        this(ConfigProvider.getConfig()
+                .getOptionalValue(PRETTY_PROPERTY, Boolean.class)
+                .orElse(false));
+    }
+
+    /**
+     * <p>Constructor for use outside the application server, where there is
+     * no configuration to consult.</p>
+     *
+     * @param pretty Should every response be pretty printed?
+     */
+    public ObjectMapperProvider(boolean pretty) {
+        this.objectMapper = createObjectMapper(pretty);
     }
 
+    // Public Methods --------------------------------------------------------
+
     @Override
     public ObjectMapper getContext(Class<?> type) {
         return objectMapper;
     }
 
-    private ObjectMapper createObjectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * <p>Apply this application's configuration to the specified
+     * <code>ObjectMapper</code>, which may be for a binary format such
+     * as CBOR, and return it.</p>
+     *
+     * @param objectMapper ObjectMapper to be configured
+     * @param pretty Should output be pretty printed?
+     */
+    public static ObjectMapper configure(ObjectMapper objectMapper,
+                                         boolean pretty) {
+        objectMapper.registerModule(new AfterburnerModule());
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
         objectMapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, pretty);
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         objectMapper.disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
         objectMapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
-        objectMapper.registerModule(new JavaTimeModule());
         return objectMapper;
     }
 
+    // Private Methods -------------------------------------------------------
+
+    private ObjectMapper createObjectMapper(boolean pretty) {
+        return configure(new ObjectMapper(), pretty);
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint.application;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.jaxrs.cfg.EndpointConfigBase;
+import com.fasterxml.jackson.jaxrs.cfg.ObjectWriterInjector;
+import com.fasterxml.jackson.jaxrs.cfg.ObjectWriterModifier;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+
+/**
+ * <p>JAX-RS response filter to pretty print the JSON for a single response
+ * when the request includes <code>?pretty=true</code>, even though the
+ * {@link ObjectMapperProvider} writes compact JSON by default.</p>
+ *
+ * <p>The request is passed to the Jackson provider in a thread local, so
+ * any value left over from a previous request on the same thread (whose
+ * entity was not written by Jackson after all) is cleared first.</p>
+ */
+@Provider
+public class PrettyPrintFilter
+        implements ContainerRequestFilter, ContainerResponseFilter {
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Name of the query parameter that requests pretty printing.</p>
+     */
+    public static final String PRETTY_PARAM = "pretty";
+
+    private static final ObjectWriterModifier PRETTY =
+            new ObjectWriterModifier() {
+                @Override
+                public ObjectWriter modify
+                        (EndpointConfigBase<?> endpoint,
+                         MultivaluedMap<String, Object> responseHeaders,
+                         Object valueToWrite,
+                         ObjectWriter writer,
+                         JsonGenerator generator) {
+                    generator.useDefaultPrettyPrinter();
+                    return writer.with(SerializationFeature.INDENT_OUTPUT);
+                }
+            };
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public void filter(ContainerRequestContext requestContext)
+            throws IOException {
+
+        ObjectWriterInjector.getAndClear();
+
+    }
+
+    @Override
+    public void filter
+            (ContainerRequestContext requestContext,
+             ContainerResponseContext responseContext)
+            throws IOException {
+
+        // The Jackson provider picks this up (and clears it) when it
+        // writes this response entity, on the same thread
+        if (responseContext.hasEntity() &&
+                MediaType.APPLICATION_JSON_TYPE.isCompatible
+                        (responseContext.getMediaType()) &&
+                Boolean.parseBoolean(requestContext.getUriInfo()
+                        .getQueryParameters().getFirst(PRETTY_PARAM))) {
+            ObjectWriterInjector.set(PRETTY);
+        }
+
+    }
+
+}
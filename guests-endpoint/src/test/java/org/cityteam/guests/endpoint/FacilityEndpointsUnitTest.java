@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint;
+
+import org.cityteam.guests.model.Guest;
+import org.cityteam.guests.service.GuestNameIndexService;
+import org.cityteam.guests.service.GuestService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.cityteam.guests.endpoint.FacilityEndpoints.NEXT_CURSOR_HEADER;
+import static org.cityteam.guests.model.Constants.VIEW_FULL;
+import static org.cityteam.guests.model.Constants.VIEW_SUMMARY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@Category(UnitTests.class)
+public class FacilityEndpointsUnitTest {
+
+    private static final Long FACILITY_ID = 1L;
+
+    private final FacilityEndpoints facilityEndpoints = new FacilityEndpoints();
+    private final FakeGuestNameIndexService guestNameIndexService =
+            new FakeGuestNameIndexService();
+    private final GuestService guestService = new GuestService();
+
+    // Lifecycle Methods -----------------------------------------------------
+
+    @Before
+    public void before() throws Exception {
+        inject(guestService, "guestNameIndexService", guestNameIndexService);
+        inject(facilityEndpoints, "guestService", guestService);
+        guestNameIndexService.ranked = Arrays.asList(
+                guest(1L, "Fred", "Flintstone"),
+                guest(2L, "Robert", "Fredericks"),
+                guest(3L, "Freddy", "Krueger"),
+                guest(4L, "Alfred", "Zed")
+        );
+    }
+
+    // Test Methods ----------------------------------------------------------
+
+    @Test
+    public void findGuestsByNameCursor() {
+
+        // Page through one guest at a time, in ranked order
+        List<Guest> actuals = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            Response response = facilityEndpoints.findGuestsByName
+                    (FACILITY_ID, "fred", 0, 1, cursor, false);
+            assertThat(response.getStatus(), is(equalTo(200)));
+            actuals.addAll(guests(response));
+            cursor = response.getHeaderString(NEXT_CURSOR_HEADER);
+            if (cursor == null) {
+                break;
+            }
+        }
+
+        assertThat(ids(actuals), is(equalTo(ids(guestNameIndexService.ranked))));
+        assertThat(guestNameIndexService.searches > 0, is(true));
+
+    }
+
+    @Test
+    public void findGuestsByNameCursorLastPage() {
+
+        Response response = facilityEndpoints.findGuestsByName
+                (FACILITY_ID, "fred", 0, 3, null, false);
+        assertThat(ids(guests(response)), is(equalTo(Arrays.asList(1L, 2L, 3L))));
+        String cursor = response.getHeaderString(NEXT_CURSOR_HEADER);
+        assertThat(cursor, is(notNullValue()));
+
+        response = facilityEndpoints.findGuestsByName
+                (FACILITY_ID, "fred", 0, 3, cursor, false);
+        assertThat(ids(guests(response)), is(equalTo(Arrays.asList(4L))));
+        assertThat(response.getHeaderString(NEXT_CURSOR_HEADER), is(nullValue()));
+
+    }
+
+    @Test
+    public void findGuestsByNameOffset() {
+
+        Response response = facilityEndpoints.findGuestsByName
+                (FACILITY_ID, "fred", 1, 2, null, false);
+        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(ids(guests(response)), is(equalTo(Arrays.asList(2L, 3L))));
+
+        response = facilityEndpoints.findGuestsByName
+                (FACILITY_ID, "fred", 9, 2, null, false);
+        assertThat(guests(response).size(), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void findRegistrationsByFacilityAndDateInvalid() {
+
+        // Both views must reject a malformed date before any lookup
+        for (String view : Arrays.asList(VIEW_FULL, VIEW_SUMMARY)) {
+            Response response = facilityEndpoints
+                    .findRegistrationsByFacilityAndDate
+                            (FACILITY_ID, "2020-13-45", view, null);
+            assertThat(response.getStatus(), is(equalTo(400)));
+        }
+
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private Guest guest(Long id, String firstName, String lastName) {
+        Guest guest = new Guest(null, FACILITY_ID, firstName, lastName);
+        guest.setId(id);
+        return guest;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Guest> guests(Response response) {
+        return (List<Guest>) response.getEntity();
+    }
+
+    private List<Long> ids(List<Guest> guests) {
+        List<Long> ids = new ArrayList<>();
+        for (Guest guest : guests) {
+            ids.add(guest.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * <p>Set the specified (normally container injected) field.</p>
+     */
+    private void inject(Object target, String name, Object value)
+            throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Index that returns a fixed ranked list of matches, rather than
+     * loading guests from the database.  Paging over that list is left to
+     * {@link GuestNameIndexService} itself.</p>
+     */
+    private static class FakeGuestNameIndexService
+            extends GuestNameIndexService {
+
+        private List<Guest> ranked = new ArrayList<>();
+        private int searches = 0;
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public List<Guest> search(Long facilityId, String name) {
+            searches++;
+            return ranked;
+        }
+
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.endpoint;
+
+import org.cityteam.guests.action.RegistrationChange;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.cityteam.guests.endpoint.RegistrationChangeBroadcaster.EVENT_NAME;
+import static org.cityteam.guests.endpoint.RegistrationChangeBroadcaster.MAX_PENDING_EVENTS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+@Category(UnitTests.class)
+public class RegistrationChangeBroadcasterUnitTest {
+
+    private static final LocalDate REGISTRATION_DATE =
+            LocalDate.parse("2020-07-04");
+
+    private final RegistrationChangeBroadcaster broadcaster =
+            new RegistrationChangeBroadcaster();
+    private final FakeSse sse = new FakeSse();
+
+    // Test Methods ----------------------------------------------------------
+
+    @Test
+    public void closeClosesAllSubscribers() {
+
+        FakeSink sink1 = new FakeSink(true);
+        FakeSink sink2 = new FakeSink(true);
+        broadcaster.subscribe(1L, sink1, sse);
+        broadcaster.subscribe(2L, sink2, sse);
+
+        broadcaster.close();
+        assertThat(sink1.isClosed(), is(true));
+        assertThat(sink2.isClosed(), is(true));
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(0)));
+        assertThat(broadcaster.subscriberCount(2L), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void disconnectedBeforeSubscribe() {
+
+        FakeSink sink = new FakeSink(true);
+        sink.closed = true;
+        broadcaster.subscribe(1L, sink, sse);
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void disconnectRemovesSubscriber() {
+
+        FakeSink sink1 = new FakeSink(true);
+        FakeSink sink2 = new FakeSink(true);
+        broadcaster.subscribe(1L, sink1, sse);
+        broadcaster.subscribe(1L, sink2, sse);
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(2)));
+
+        // Removed as soon as the disconnect is reported, without a send
+        sink1.disconnect();
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(1)));
+
+        broadcaster.publish(change(1L));
+        assertThat(sink1.sents.size(), is(equalTo(0)));
+        assertThat(sink2.sents.size(), is(equalTo(1)));
+
+    }
+
+    @Test
+    public void failedSendRemovesSubscriber() {
+
+        FakeSink sink = new FakeSink(false);
+        broadcaster.subscribe(1L, sink, sse);
+
+        broadcaster.publish(change(1L));
+        assertThat(sink.sents.size(), is(equalTo(1)));
+        sink.completeNext(new IllegalStateException("Connection reset"));
+        assertThat(sink.isClosed(), is(true));
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void publishBuffersWhileSending() {
+
+        FakeSink sink = new FakeSink(false);
+        broadcaster.subscribe(1L, sink, sse);
+
+        // Only one send is in progress at a time
+        RegistrationChange change1 = change(1L);
+        RegistrationChange change2 = change(1L);
+        RegistrationChange change3 = change(1L);
+        broadcaster.publish(change1);
+        broadcaster.publish(change2);
+        broadcaster.publish(change3);
+        assertThat(sink.sents.size(), is(equalTo(1)));
+
+        // Buffered events follow in order as each send completes
+        sink.completeNext(null);
+        assertThat(sink.sents.size(), is(equalTo(2)));
+        sink.completeNext(null);
+        assertThat(sink.sents.size(), is(equalTo(3)));
+        sink.completeNext(null);
+        assertThat(sink.sents.get(0).getData(), is(sameInstance(change1)));
+        assertThat(sink.sents.get(1).getData(), is(sameInstance(change2)));
+        assertThat(sink.sents.get(2).getData(), is(sameInstance(change3)));
+        assertThat(sink.isClosed(), is(false));
+
+    }
+
+    @Test
+    public void publishDisconnectsSlowSubscriber() {
+
+        FakeSink sink = new FakeSink(false);
+        broadcaster.subscribe(1L, sink, sse);
+
+        // One event in flight, and a full buffer behind it
+        for (int i = 0; i <= MAX_PENDING_EVENTS; i++) {
+            broadcaster.publish(change(1L));
+        }
+        assertThat(sink.isClosed(), is(false));
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(1)));
+
+        // One more overflows the buffer
+        broadcaster.publish(change(1L));
+        assertThat(sink.isClosed(), is(true));
+        assertThat(broadcaster.subscriberCount(1L), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void publishSendsToFacilitySubscribers() {
+
+        FakeSink sink1 = new FakeSink(true);
+        FakeSink sink2 = new FakeSink(true);
+        broadcaster.subscribe(1L, sink1, sse);
+        broadcaster.subscribe(2L, sink2, sse);
+
+        RegistrationChange change = change(1L);
+        broadcaster.publish(change);
+        assertThat(sink1.sents.size(), is(equalTo(1)));
+        assertThat(sink1.sents.get(0).getName(), is(equalTo(EVENT_NAME)));
+        assertThat(sink1.sents.get(0).getData(), is(sameInstance(change)));
+        assertThat(sink2.sents.size(), is(equalTo(0)));
+
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private RegistrationChange change(Long facilityId) {
+        return new RegistrationChange(facilityId, REGISTRATION_DATE);
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Broadcaster that only reports when its sinks are closed, which is
+     * all that {@link RegistrationChangeBroadcaster} uses it for.</p>
+     */
+    private static class FakeBroadcaster implements SseBroadcaster {
+
+        private final List<Consumer<SseEventSink>> onCloses = new ArrayList<>();
+        private final List<SseEventSink> sinks = new ArrayList<>();
+
+        @Override
+        public CompletionStage<?> broadcast(OutboundSseEvent event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            for (SseEventSink sink : new ArrayList<>(sinks)) {
+                sink.close();
+            }
+        }
+
+        @Override
+        public void onClose(Consumer<SseEventSink> onClose) {
+            onCloses.add(onClose);
+        }
+
+        @Override
+        public void onError(BiConsumer<SseEventSink, Throwable> onError) {
+        }
+
+        @Override
+        public void register(SseEventSink sink) {
+            sinks.add(sink);
+            ((FakeSink) sink).closeListeners.add(() -> {
+                for (Consumer<SseEventSink> onClose : onCloses) {
+                    onClose.accept(sink);
+                }
+            });
+        }
+
+    }
+
+    private static class FakeEvent implements OutboundSseEvent {
+
+        private final Object data;
+        private final String id;
+        private final String name;
+
+        private FakeEvent(String id, String name, Object data) {
+            this.data = data;
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public String getComment() {
+            return null;
+        }
+
+        @Override
+        public Object getData() {
+            return data;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return (data == null) ? null : data.getClass();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.APPLICATION_JSON_TYPE;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return (data == null) ? null : data.getClass();
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return false;
+        }
+
+    }
+
+    private static class FakeEventBuilder implements OutboundSseEvent.Builder {
+
+        private Object data;
+        private String id;
+        private String name;
+
+        @Override
+        public OutboundSseEvent build() {
+            return new FakeEvent(id, name, data);
+        }
+
+        @Override
+        public OutboundSseEvent.Builder comment(String comment) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Class type, Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(GenericType type, Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder mediaType(MediaType mediaType) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder reconnectDelay(long milliseconds) {
+            return this;
+        }
+
+    }
+
+    /**
+     * <p>Sink that records the events sent to it.  If it does not complete
+     * automatically, each send stays in progress until the test calls
+     * {@link #completeNext(Throwable)}.</p>
+     */
+    private static class FakeSink implements SseEventSink {
+
+        private final boolean autoComplete;
+        private final List<Runnable> closeListeners = new ArrayList<>();
+        private boolean closed = false;
+        private final Queue<CompletableFuture<Object>> inProgress =
+                new LinkedList<>();
+        private final List<OutboundSseEvent> sents = new ArrayList<>();
+
+        private FakeSink(boolean autoComplete) {
+            this.autoComplete = autoComplete;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                closeListeners.forEach(Runnable::run);
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            sents.add(event);
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            if (autoComplete) {
+                future.complete(null);
+            } else {
+                inProgress.add(future);
+            }
+            return future;
+        }
+
+        private void completeNext(Throwable throwable) {
+            CompletableFuture<Object> future = inProgress.remove();
+            if (throwable == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        }
+
+        /**
+         * <p>Simulate the client going away, as reported by the
+         * container.</p>
+         */
+        private void disconnect() {
+            close();
+        }
+
+    }
+
+    private static class FakeSse implements Sse {
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            return new FakeBroadcaster();
+        }
+
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new FakeEventBuilder();
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.action;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.cityteam.guests.model.Registration;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.cityteam.guests.model.Constants.GENERATE_RESULT_NAME;
+import static org.cityteam.guests.model.Constants.MESSAGE_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATIONS_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
+
+// API Documentation ---------------------------------------------------------
+
+@Schema(
+        description = "Outcome of generating registrations from a template " +
+                      "for one registration date within a range.",
+        name = GENERATE_RESULT_NAME
+)
+
+public class GenerateResult {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Schema(description = "Reason no registrations were generated for " +
+            "this date (null if they were).")
+    private String message;
+
+    @Schema(description = "Registration date of this outcome.")
+    private LocalDate registrationDate;
+
+    @Schema(description = "Registrations generated for this date " +
+            "(empty if none were).")
+    private List<Registration> registrations;
+
+    // Constructors ----------------------------------------------------------
+
+    public GenerateResult() { }
+
+    public GenerateResult(
+            String message,
+            LocalDate registrationDate,
+            List<Registration> registrations
+    ) {
+        this.message = message;
+        this.registrationDate = registrationDate;
+        this.registrations = registrations;
+    }
+
+    // Property Methods ------------------------------------------------------
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public List<Registration> getRegistrations() {
+        return registrations;
+    }
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append(MESSAGE_COLUMN, this.message)
+                .append(REGISTRATION_DATE_COLUMN, this.registrationDate)
+                .append(REGISTRATIONS_COLUMN, this.registrations)
+                .toString();
+    }
+
+}
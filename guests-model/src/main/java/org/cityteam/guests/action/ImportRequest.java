@@ -18,11 +18,13 @@ package org.cityteam.guests.action;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.cityteam.guests.model.Constants;
+import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.types.FeatureType;
 import org.cityteam.guests.model.types.PaymentType;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -157,6 +159,40 @@ public class ImportRequest implements Constants {
 
     // Public Methods --------------------------------------------------------
 
+    /**
+     * <p>Return an {@link Assign} containing the assignment details from
+     * this request, for the specified guest.</p>
+     *
+     * @param guestId ID of the guest being assigned
+     */
+    public Assign toAssign(Long guestId) {
+        return new Assign(
+                this.comments,
+                guestId,
+                this.paymentAmount,
+                this.paymentType,
+                this.showerTime,
+                this.wakeupTime
+        );
+    }
+
+    /**
+     * <p>Return an unassigned {@link Registration} for the mat described
+     * by this request.</p>
+     *
+     * @param facilityId ID of the facility being imported into
+     * @param registrationDate Registration date being imported into
+     */
+    public Registration toRegistration(Long facilityId,
+                                       LocalDate registrationDate) {
+        return new Registration(
+                facilityId,
+                this.features,
+                this.matNumber,
+                registrationDate
+        );
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
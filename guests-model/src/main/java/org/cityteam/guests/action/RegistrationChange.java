@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.action;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.cityteam.guests.model.Constants;
+import org.cityteam.guests.model.Registration;
+import org.cityteam.guests.model.types.PaymentType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+import static org.cityteam.guests.model.Constants.REGISTRATION_CHANGE_NAME;
+
+// API Documentation ---------------------------------------------------------
+
+@Schema(
+        description = "Change in the assignment of a particular mat, " +
+                      "pushed to clients that are watching the mat board " +
+                      "for a facility.  A null guestId means the mat " +
+                      "has been deassigned.  A null registrationId means " +
+                      "that several mats for this registration date have " +
+                      "changed at once, and the mat board should be " +
+                      "reloaded.",
+        name = REGISTRATION_CHANGE_NAME
+)
+
+public class RegistrationChange implements Constants {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Schema(description = "ID of the facility this registration belongs to.")
+    private Long facilityId;
+
+    @Schema(description = "ID of the guest now assigned to this mat " +
+            "(or null if the mat is now unassigned).")
+    private Long guestId;
+
+    @Schema(description = "Mat number of the changed registration.")
+    private Integer matNumber;
+
+    @Schema(description = "Type of payment for this registration " +
+            "(or null if the mat is now unassigned).")
+    private PaymentType paymentType;
+
+    @Schema(description = "Registration date of the changed registration.")
+    private LocalDate registrationDate;
+
+    @Schema(description = "ID of the changed registration (or null if " +
+            "several registrations changed at once).")
+    private Long registrationId;
+
+    // Constructors ----------------------------------------------------------
+
+    public RegistrationChange() { }
+
+    /**
+     * <p>Change to several registrations for the specified facility and
+     * registration date at once, such as a bulk deassign.</p>
+     */
+    public RegistrationChange(Long facilityId, LocalDate registrationDate) {
+        this.facilityId = facilityId;
+        this.registrationDate = registrationDate;
+    }
+
+    public RegistrationChange(Registration registration) {
+        this.facilityId = registration.getFacilityId();
+        this.guestId = registration.getGuestId();
+        this.matNumber = registration.getMatNumber();
+        this.paymentType = registration.getPaymentType();
+        this.registrationDate = registration.getRegistrationDate();
+        this.registrationId = registration.getId();
+    }
+
+    // Property Methods ------------------------------------------------------
+
+    public Long getFacilityId() {
+        return facilityId;
+    }
+
+    public Long getGuestId() {
+        return guestId;
+    }
+
+    public Integer getMatNumber() {
+        return matNumber;
+    }
+
+    public PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public Long getRegistrationId() {
+        return registrationId;
+    }
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append(FACILITY_ID_COLUMN, this.facilityId)
+                .append(GUEST_ID_COLUMN, this.guestId)
+                .append(MAT_NUMBER_COLUMN, this.matNumber)
+                .append(PAYMENT_TYPE_COLUMN, this.paymentType)
+                .append(REGISTRATION_DATE_COLUMN, this.registrationDate)
+                .append(REGISTRATION_ID_COLUMN, this.registrationId)
+                .toString();
+    }
+
+}
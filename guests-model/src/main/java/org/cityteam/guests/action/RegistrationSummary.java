@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.action;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.cityteam.guests.model.Constants;
+import org.cityteam.guests.model.Registration;
+import org.cityteam.guests.model.types.FeatureType;
+import org.cityteam.guests.model.types.PaymentType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.cityteam.guests.model.Constants.REGISTRATION_SUMMARY_NAME;
+import static org.craigmcc.library.model.Constants.ID_COLUMN;
+
+// API Documentation ---------------------------------------------------------
+
+@Schema(
+        description = "Lightweight view of a registration, including the " +
+                      "name (but not the other details) of the assigned " +
+                      "guest, suitable for displaying a mat board.",
+        name = REGISTRATION_SUMMARY_NAME
+)
+
+public class RegistrationSummary implements Constants {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Schema(description = "Optional comments about this registration.")
+    private String comments;
+
+    @Schema(description = "ID of the facility to which this " +
+            "registration belongs.")
+    private Long facilityId;
+
+    @Schema(description = "Feature identifiers for this matNumber.")
+    private String features;
+
+    @Schema(description = "First name of the assigned guest " +
+            "(if this mat has been assigned).")
+    private String firstName;
+
+    @Schema(description = "ID of the guest assigned in this registration " +
+            "(if this mat has been assigned).")
+    private Long guestId;
+
+    @Schema(description = "Primary key of the registration.")
+    private Long id;
+
+    @Schema(description = "Last name of the assigned guest " +
+            "(if this mat has been assigned).")
+    private String lastName;
+
+    @Schema(description = "Mat number for this registration.")
+    private Integer matNumber;
+
+    @Schema(description = "Payment amount for this registration.")
+    private BigDecimal paymentAmount;
+
+    @Schema(description = "Type of payment for this registration.")
+    private PaymentType paymentType;
+
+    @Schema(description = "Date for which this registration is available.")
+    private LocalDate registrationDate;
+
+    @Schema(description = "Time this guest wishes to be awoken " +
+            "for a shower.")
+    private LocalTime showerTime;
+
+    @Schema(description = "Time this guest wishes to be awoken.")
+    private LocalTime wakeupTime;
+
+    // Constructors ----------------------------------------------------------
+
+    public RegistrationSummary() { }
+
+    /**
+     * <p>Constructor used by JPQL constructor expressions, which is why
+     * the guest name comes last and features are the raw column value.</p>
+     */
+    public RegistrationSummary(
+            Long id,
+            Long facilityId,
+            LocalDate registrationDate,
+            Integer matNumber,
+            String features,
+            Long guestId,
+            PaymentType paymentType,
+            BigDecimal paymentAmount,
+            LocalTime showerTime,
+            LocalTime wakeupTime,
+            String comments,
+            String firstName,
+            String lastName
+    ) {
+        this.comments = comments;
+        this.facilityId = facilityId;
+        this.features = features;
+        this.firstName = firstName;
+        this.guestId = guestId;
+        this.id = id;
+        this.lastName = lastName;
+        this.matNumber = matNumber;
+        this.paymentAmount = paymentAmount;
+        this.paymentType = paymentType;
+        this.registrationDate = registrationDate;
+        this.showerTime = showerTime;
+        this.wakeupTime = wakeupTime;
+    }
+
+    // Property Methods ------------------------------------------------------
+
+    public String getComments() {
+        return comments;
+    }
+
+    public Long getFacilityId() {
+        return facilityId;
+    }
+
+    public List<FeatureType> getFeatures() {
+        return Registration.parseFeatures(this.features);
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public Long getGuestId() {
+        return guestId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public Integer getMatNumber() {
+        return matNumber;
+    }
+
+    public BigDecimal getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public LocalTime getShowerTime() {
+        return showerTime;
+    }
+
+    public LocalTime getWakeupTime() {
+        return wakeupTime;
+    }
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append(ID_COLUMN, this.id)
+                .append(COMMENTS_COLUMN, this.comments)
+                .append(FACILITY_ID_COLUMN, this.facilityId)
+                .append(FEATURES_COLUMN, this.features)
+                .append(FIRST_NAME_COLUMN, this.firstName)
+                .append(GUEST_ID_COLUMN, this.guestId)
+                .append(LAST_NAME_COLUMN, this.lastName)
+                .append(MAT_NUMBER_COLUMN, this.matNumber)
+                .append(PAYMENT_AMOUNT_COLUMN, this.paymentAmount)
+                .append(PAYMENT_TYPE_COLUMN, this.paymentType)
+                .append(REGISTRATION_DATE_COLUMN, this.registrationDate)
+                .append(SHOWER_TIME_COLUMN, this.showerTime)
+                .append(WAKEUP_TIME_COLUMN, this.wakeupTime)
+                .toString();
+    }
+
+}
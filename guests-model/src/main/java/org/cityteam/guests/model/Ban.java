@@ -38,10 +38,13 @@ import javax.persistence.Table;
 
 import java.time.LocalDate;
 
+import static org.cityteam.guests.model.Constants.ACTIVE_COLUMN;
 import static org.cityteam.guests.model.Constants.BAN_FROM_COLUMN;
 import static org.cityteam.guests.model.Constants.BAN_NAME;
 import static org.cityteam.guests.model.Constants.BAN_TABLE;
 import static org.cityteam.guests.model.Constants.BAN_TO_COLUMN;
+import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
+import static org.cityteam.guests.model.Constants.GUEST_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
@@ -64,6 +67,16 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
 @Access(AccessType.FIELD)
 
 @NamedQueries({
+        @NamedQuery(
+                name = BAN_NAME + ".findActiveByFacilityId",
+                query = "SELECT b FROM " + BAN_NAME + " b " +
+                        "JOIN b." + GUEST_COLUMN + " g " +
+                        "WHERE g." + FACILITY_ID_COLUMN + " = :" +
+                        FACILITY_ID_COLUMN + " AND b." +
+                        ACTIVE_COLUMN + " = true " +
+                        "ORDER BY b." + GUEST_ID_COLUMN + ", b." +
+                        BAN_FROM_COLUMN
+        ),
         @NamedQuery(
                 name = BAN_NAME + ".findAll",
                 query = "SELECT b FROM " + BAN_NAME + " b " +
@@ -97,6 +110,16 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         "WHERE b." + BAN_FROM_COLUMN + " <= :" +
                         REGISTRATION_DATE_COLUMN + " AND b." +
                         BAN_TO_COLUMN + " >= :" + REGISTRATION_DATE_COLUMN
+        ),
+        @NamedQuery(
+                name = BAN_NAME + ".findOverlapping",
+                query = "SELECT b FROM " + BAN_NAME + " b " +
+                        "WHERE b." + GUEST_ID_COLUMN + " = :" +
+                        GUEST_ID_COLUMN + " AND b." +
+                        BAN_FROM_COLUMN + " <= :" + BAN_TO_COLUMN +
+                        " AND b." + BAN_TO_COLUMN + " >= :" +
+                        BAN_FROM_COLUMN + " " +
+                        "ORDER BY b." + BAN_FROM_COLUMN + " ASC"
         )
 })
 
@@ -58,6 +58,8 @@ public interface Constants {
     String FIRST_NAME_VALIDATION_MESSAGE =
             "firstName: Required and must not be blank";
 
+    String FROM_DATE_COLUMN = "fromDate";
+
     String GUEST_COLUMN = "guest";
 
     String GUEST_ID_COLUMN = "guestId";
@@ -76,6 +78,10 @@ public interface Constants {
     String MAT_NUMBER_VALIDATION_MESSAGE =
             "matNumber: Required and must not be blank";
 
+    String MAT_NUMBERS_COLUMN = "matNumbers";
+
+    String MESSAGE_COLUMN = "message";
+
     String NAME_COLUMN = "name";
     String NAME_VALIDATION_MESSAGE =
             "name: Required and must not be blank";
@@ -106,10 +112,38 @@ public interface Constants {
 
     String TEMPLATES_COLUMN = "templates";
 
+    String TO_DATE_COLUMN = "toDate";
+
     String WAKEUP_TIME_COLUMN = "wakeupTime";
 
     String ZIPCODE_COLUMN = "zipCode";
 
+    // Query Cache Constants -------------------------------------------------
+
+    // Hibernate query hints, spelled out to avoid a compile dependency
+    String CACHEABLE_HINT = "org.hibernate.cacheable";
+    String CACHE_REGION_HINT = "org.hibernate.cacheRegion";
+
+    String FACILITY_QUERY_REGION = "Facility.queries";
+
+    String TEMPLATE_QUERY_REGION = "Template.queries";
+
+    // Projection Constants --------------------------------------------------
+
+    /**
+     * <p>JPQL constructor expression for a RegistrationSummary, given a
+     * Registration aliased as "r" and its (left joined) Guest as "g".</p>
+     */
+    String SUMMARY_CONSTRUCTOR =
+            "org.cityteam.guests.action.RegistrationSummary(" +
+            "r.id, r." + FACILITY_ID_COLUMN +
+            ", r." + REGISTRATION_DATE_COLUMN + ", r." + MAT_NUMBER_COLUMN +
+            ", r." + FEATURES_COLUMN + ", r." + GUEST_ID_COLUMN +
+            ", r." + PAYMENT_TYPE_COLUMN + ", r." + PAYMENT_AMOUNT_COLUMN +
+            ", r." + SHOWER_TIME_COLUMN + ", r." + WAKEUP_TIME_COLUMN +
+            ", r." + COMMENTS_COLUMN +
+            ", g." + FIRST_NAME_COLUMN + ", g." + LAST_NAME_COLUMN + ")";
+
     // Per-Table Constants ---------------------------------------------------
 
     // Not really a table, but documented like one
@@ -121,6 +155,9 @@ public interface Constants {
     String FACILITY_NAME = "Facility";
     String FACILITY_TABLE = "facilities";
 
+    // Not really a table, but documented like one
+    String GENERATE_RESULT_NAME = "GenerateResult";
+
     String GUEST_NAME = "Guest";
     String GUEST_TABLE = "guests";
 
@@ -133,10 +170,40 @@ public interface Constants {
     // Not really a table, but documented like one
     String IMPORT_RESULTS_NAME = "ImportResults";
 
+    // Not really a table, but documented like one
+    String REGISTRATION_CHANGE_NAME = "RegistrationChange";
+
     String REGISTRATION_NAME = "Registration";
     String REGISTRATION_TABLE = "registrations";
 
+    // Not really a table, but documented like one
+    String REGISTRATION_SUMMARY_NAME = "RegistrationSummary";
+
     String TEMPLATE_NAME = "Template";
     String TEMPLATE_TABLE = "templates";
 
+    // Media Type Constants --------------------------------------------------
+
+    // Binary (CBOR) alternative to application/json for REST requests
+    String APPLICATION_CBOR = "application/cbor";
+
+    // Unique Index Constants ------------------------------------------------
+
+    // Services translate violations of these into NotUnique
+    String GUEST_NAME_INDEX = "IX_" + GUEST_TABLE + "_" +
+            LAST_NAME_COLUMN + "_" + FIRST_NAME_COLUMN;
+
+    String REGISTRATION_GUEST_INDEX = "IX_" + REGISTRATION_TABLE + "_" +
+            REGISTRATION_DATE_COLUMN + "_" + GUEST_ID_COLUMN;
+
+    String REGISTRATION_MAT_INDEX = "IX_" + REGISTRATION_TABLE + "_" +
+            REGISTRATION_DATE_COLUMN + "_" + MAT_NUMBER_COLUMN;
+
+    // View Constants --------------------------------------------------------
+
+    // Values of the "view" query parameter on registration lists, selecting
+    // full Registrations or lightweight RegistrationSummaries
+    String VIEW_FULL = "full";
+    String VIEW_SUMMARY = "summary";
+
 }
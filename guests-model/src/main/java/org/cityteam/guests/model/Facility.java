@@ -24,6 +24,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 import javax.persistence.Access;
 import javax.persistence.AccessType;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -33,12 +34,16 @@ import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.OrderBy;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import java.util.Comparator;
 import java.util.List;
 
 import static org.cityteam.guests.model.Constants.ACTIVE_COLUMN;
+import static org.cityteam.guests.model.Constants.CACHEABLE_HINT;
+import static org.cityteam.guests.model.Constants.CACHE_REGION_HINT;
 import static org.cityteam.guests.model.Constants.FACILITY_NAME;
+import static org.cityteam.guests.model.Constants.FACILITY_QUERY_REGION;
 import static org.cityteam.guests.model.Constants.FACILITY_TABLE;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
@@ -57,6 +62,7 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
         name = FACILITY_TABLE
 )
 @Access(AccessType.FIELD)
+@Cacheable
 
 // Named Queries -------------------------------------------------------------
 
@@ -70,7 +76,12 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                 name = FACILITY_NAME + ".findByActive",
                 query = "SELECT f FROM " + FACILITY_NAME + " f " +
                         "WHERE f." + ACTIVE_COLUMN + " = true " +
-                        "ORDER BY f." + NAME_COLUMN + " ASC"
+                        "ORDER BY f." + NAME_COLUMN + " ASC",
+                hints = {
+                        @QueryHint(name = CACHEABLE_HINT, value = "true"),
+                        @QueryHint(name = CACHE_REGION_HINT,
+                                value = FACILITY_QUERY_REGION)
+                }
         ),
         @NamedQuery(
                 name = FACILITY_NAME + ".findById",
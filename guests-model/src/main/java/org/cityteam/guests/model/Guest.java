@@ -46,6 +46,7 @@ import java.util.List;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.FIRST_NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_NAME;
+import static org.cityteam.guests.model.Constants.GUEST_NAME_INDEX;
 import static org.cityteam.guests.model.Constants.GUEST_TABLE;
 import static org.cityteam.guests.model.Constants.LAST_NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
@@ -60,8 +61,7 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         columnList = FACILITY_ID_COLUMN + " ASC, " +
                                      LAST_NAME_COLUMN + " ASC, " +
                                      FIRST_NAME_COLUMN + " ASC",
-                        name = "IX_" + GUEST_TABLE + "_" + LAST_NAME_COLUMN +
-                               "_" + FIRST_NAME_COLUMN,
+                        name = GUEST_NAME_INDEX,
                         unique = true
                 )
         },
@@ -103,6 +103,22 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         "ORDER BY g." + FACILITY_ID_COLUMN + ", g." +
                         LAST_NAME_COLUMN + ", g." + FIRST_NAME_COLUMN
         ),
+        @NamedQuery(
+                name = GUEST_NAME + ".findByNameAfter",
+                query = "SELECT g FROM " + GUEST_NAME + " g " +
+                        "WHERE g." + FACILITY_ID_COLUMN + " = :" +
+                        FACILITY_ID_COLUMN + " AND (" +
+                        "(LOWER(g." + FIRST_NAME_COLUMN +
+                        ") LIKE LOWER(CONCAT('%',:" +
+                        NAME_COLUMN + ",'%'))) OR " +
+                        "(LOWER(g." + LAST_NAME_COLUMN +
+                        ") LIKE LOWER(CONCAT('%',:" +
+                        NAME_COLUMN + ",'%')))) AND " +
+                        "(g." + LAST_NAME_COLUMN + " > :" + LAST_NAME_COLUMN +
+                        " OR (g." + LAST_NAME_COLUMN + " = :" + LAST_NAME_COLUMN +
+                        " AND g." + FIRST_NAME_COLUMN + " > :" + FIRST_NAME_COLUMN + ")) " +
+                        "ORDER BY g." + LAST_NAME_COLUMN + ", g." + FIRST_NAME_COLUMN
+        ),
         @NamedQuery(
                 name = GUEST_NAME + ".findByNameExact",
                 query = "SELECT g FROM " + GUEST_NAME + " g " +
@@ -111,6 +127,18 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         "g." + LAST_NAME_COLUMN + " = :" + LAST_NAME_COLUMN +
                         " AND g." + FIRST_NAME_COLUMN + " = :" +
                         FIRST_NAME_COLUMN
+        ),
+        @NamedQuery(
+                name = GUEST_NAME + ".findByNamePrefixAfter",
+                query = "SELECT g FROM " + GUEST_NAME + " g " +
+                        "WHERE g." + FACILITY_ID_COLUMN + " = :" +
+                        FACILITY_ID_COLUMN + " AND " +
+                        "g." + LAST_NAME_COLUMN + " LIKE :" + NAME_COLUMN +
+                        " ESCAPE '\\' AND " +
+                        "(g." + LAST_NAME_COLUMN + " > :" + LAST_NAME_COLUMN +
+                        " OR (g." + LAST_NAME_COLUMN + " = :" + LAST_NAME_COLUMN +
+                        " AND g." + FIRST_NAME_COLUMN + " > :" + FIRST_NAME_COLUMN + ")) " +
+                        "ORDER BY g." + LAST_NAME_COLUMN + ", g." + FIRST_NAME_COLUMN
         )
 })
 
@@ -47,13 +47,27 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.cityteam.guests.model.Constants.COMMENTS_COLUMN;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
+import static org.cityteam.guests.model.Constants.FROM_DATE_COLUMN;
+import static org.cityteam.guests.model.Constants.GUEST_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.MAT_NUMBER_COLUMN;
+import static org.cityteam.guests.model.Constants.MAT_NUMBERS_COLUMN;
+import static org.cityteam.guests.model.Constants.PAYMENT_AMOUNT_COLUMN;
+import static org.cityteam.guests.model.Constants.PAYMENT_TYPE_COLUMN;
 import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATION_GUEST_INDEX;
+import static org.cityteam.guests.model.Constants.REGISTRATION_MAT_INDEX;
 import static org.cityteam.guests.model.Constants.REGISTRATION_NAME;
 import static org.cityteam.guests.model.Constants.REGISTRATION_TABLE;
+import static org.cityteam.guests.model.Constants.SHOWER_TIME_COLUMN;
+import static org.cityteam.guests.model.Constants.SUMMARY_CONSTRUCTOR;
+import static org.cityteam.guests.model.Constants.TO_DATE_COLUMN;
+import static org.cityteam.guests.model.Constants.WAKEUP_TIME_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
+import static org.craigmcc.library.model.Constants.UPDATED_COLUMN;
+import static org.craigmcc.library.model.Constants.VERSION_COLUMN;
 
 // Persistence Configuration -------------------------------------------------
 
@@ -64,9 +78,16 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         columnList = FACILITY_ID_COLUMN + " ASC, " +
                                      REGISTRATION_DATE_COLUMN + " ASC, " +
                                      MAT_NUMBER_COLUMN + " ASC",
-                        name = "IX_" + REGISTRATION_TABLE + "_" +
-                               REGISTRATION_DATE_COLUMN + "_" +
-                               MAT_NUMBER_COLUMN,
+                        name = REGISTRATION_MAT_INDEX,
+                        unique = true
+                ),
+                // NULL guest IDs are distinct from each other, so this
+                // only constrains assigned registrations
+                @Index(
+                        columnList = FACILITY_ID_COLUMN + " ASC, " +
+                                     REGISTRATION_DATE_COLUMN + " ASC, " +
+                                     GUEST_ID_COLUMN + " ASC",
+                        name = REGISTRATION_GUEST_INDEX,
                         unique = true
                 )
         },
@@ -75,6 +96,37 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
 @Access(AccessType.FIELD)
 
 @NamedQueries({
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".deassignByFacilityAndDate",
+                query = "UPDATE " + REGISTRATION_NAME + " r " +
+                        "SET r." + COMMENTS_COLUMN + " = NULL" +
+                        ", r." + GUEST_ID_COLUMN + " = NULL" +
+                        ", r." + PAYMENT_AMOUNT_COLUMN + " = NULL" +
+                        ", r." + PAYMENT_TYPE_COLUMN + " = NULL" +
+                        ", r." + SHOWER_TIME_COLUMN + " = NULL" +
+                        ", r." + WAKEUP_TIME_COLUMN + " = NULL" +
+                        ", r." + UPDATED_COLUMN + " = :" + UPDATED_COLUMN +
+                        ", r." + VERSION_COLUMN + " = r." + VERSION_COLUMN + " + 1" +
+                        " WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " AND r." + GUEST_ID_COLUMN + " IS NOT NULL"
+        ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".deassignByFacilityAndDateAndMats",
+                query = "UPDATE " + REGISTRATION_NAME + " r " +
+                        "SET r." + COMMENTS_COLUMN + " = NULL" +
+                        ", r." + GUEST_ID_COLUMN + " = NULL" +
+                        ", r." + PAYMENT_AMOUNT_COLUMN + " = NULL" +
+                        ", r." + PAYMENT_TYPE_COLUMN + " = NULL" +
+                        ", r." + SHOWER_TIME_COLUMN + " = NULL" +
+                        ", r." + WAKEUP_TIME_COLUMN + " = NULL" +
+                        ", r." + UPDATED_COLUMN + " = :" + UPDATED_COLUMN +
+                        ", r." + VERSION_COLUMN + " = r." + VERSION_COLUMN + " + 1" +
+                        " WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " AND r." + MAT_NUMBER_COLUMN + " IN :" + MAT_NUMBERS_COLUMN +
+                        " AND r." + GUEST_ID_COLUMN + " IS NOT NULL"
+        ),
         @NamedQuery(
                 name = REGISTRATION_NAME + ".deleteByFacilityAndDate",
                 query = "DELETE FROM " + REGISTRATION_NAME + " r " +
@@ -84,6 +136,7 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
         @NamedQuery(
                 name = REGISTRATION_NAME + ".findAll",
                 query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN FETCH r." + GUEST_COLUMN + " " +
                         "ORDER BY r." + FACILITY_ID_COLUMN +
                                ", r." + REGISTRATION_DATE_COLUMN +
                                ", r." + MAT_NUMBER_COLUMN
@@ -91,12 +144,25 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
         @NamedQuery(
                 name = REGISTRATION_NAME + ".findByFacilityAndDate",
                 query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN FETCH r." + GUEST_COLUMN + " " +
                         "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
                          " AND r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
                         " ORDER BY r." + FACILITY_ID_COLUMN +
                         ", r." + REGISTRATION_DATE_COLUMN +
                         ", r." + MAT_NUMBER_COLUMN
         ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findByFacilityAndDateRangeAfter",
+                query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN FETCH r." + GUEST_COLUMN + " " +
+                        "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " <= :" + TO_DATE_COLUMN +
+                        " AND (r." + REGISTRATION_DATE_COLUMN + " > :" + REGISTRATION_DATE_COLUMN +
+                        " OR (r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " AND r." + MAT_NUMBER_COLUMN + " > :" + MAT_NUMBER_COLUMN + "))" +
+                        " ORDER BY r." + REGISTRATION_DATE_COLUMN +
+                        ", r." + MAT_NUMBER_COLUMN
+        ),
         @NamedQuery(
                 name = REGISTRATION_NAME + ".findByFacilityAndDateAndMat",
                 query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
@@ -107,16 +173,63 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         ", r." + REGISTRATION_DATE_COLUMN +
                         ", r." + MAT_NUMBER_COLUMN
         ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findDatesByFacilityAndDateRange",
+                query = "SELECT DISTINCT r." + REGISTRATION_DATE_COLUMN +
+                        " FROM " + REGISTRATION_NAME + " r " +
+                        "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " >= :" + FROM_DATE_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " <= :" + TO_DATE_COLUMN
+        ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findMatNumberByFacilityAndDateAndGuest",
+                query = "SELECT r." + MAT_NUMBER_COLUMN + " FROM " + REGISTRATION_NAME + " r " +
+                        "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " AND r." + GUEST_ID_COLUMN + " = :" + GUEST_ID_COLUMN
+        ),
         @NamedQuery(
                 name = REGISTRATION_NAME + ".findByGuestId",
                 query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN FETCH r." + GUEST_COLUMN + " " +
                         "WHERE r." + GUEST_ID_COLUMN + " =:" + GUEST_ID_COLUMN +
                         " ORDER BY r." + REGISTRATION_DATE_COLUMN
         ),
         @NamedQuery(
                 name = REGISTRATION_NAME + ".findById",
                 query = "SELECT r FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN FETCH r." + GUEST_COLUMN + " " +
                         "WHERE r." + ID_COLUMN + " = :" + ID_COLUMN
+        ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findSummariesByFacilityAndDate",
+                query = "SELECT NEW " + SUMMARY_CONSTRUCTOR +
+                        " FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN r." + GUEST_COLUMN + " g " +
+                        "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " ORDER BY r." + MAT_NUMBER_COLUMN
+        ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findSummariesByFacilityAndDateRangeAfter",
+                query = "SELECT NEW " + SUMMARY_CONSTRUCTOR +
+                        " FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN r." + GUEST_COLUMN + " g " +
+                        "WHERE r." + FACILITY_ID_COLUMN + " = :" + FACILITY_ID_COLUMN +
+                        " AND r." + REGISTRATION_DATE_COLUMN + " <= :" + TO_DATE_COLUMN +
+                        " AND (r." + REGISTRATION_DATE_COLUMN + " > :" + REGISTRATION_DATE_COLUMN +
+                        " OR (r." + REGISTRATION_DATE_COLUMN + " = :" + REGISTRATION_DATE_COLUMN +
+                        " AND r." + MAT_NUMBER_COLUMN + " > :" + MAT_NUMBER_COLUMN + "))" +
+                        " ORDER BY r." + REGISTRATION_DATE_COLUMN +
+                        ", r." + MAT_NUMBER_COLUMN
+        ),
+        @NamedQuery(
+                name = REGISTRATION_NAME + ".findSummariesByGuestId",
+                query = "SELECT NEW " + SUMMARY_CONSTRUCTOR +
+                        " FROM " + REGISTRATION_NAME + " r " +
+                        "LEFT JOIN r." + GUEST_COLUMN + " g " +
+                        "WHERE r." + GUEST_ID_COLUMN + " = :" + GUEST_ID_COLUMN +
+                        " ORDER BY r." + REGISTRATION_DATE_COLUMN
         )
 })
 
@@ -176,7 +289,7 @@ public class Registration extends Model<Registration> implements Constants {
     private String features;
 
     @ManyToOne(
-            fetch = FetchType.EAGER,
+            fetch = FetchType.LAZY,
             optional = true
     )
     @JoinColumn(
@@ -328,14 +441,7 @@ public class Registration extends Model<Registration> implements Constants {
     }
 
     public List<FeatureType> getFeatures() {
-        if ((this.features == null) || (this.features.length() == 0)) {
-            return null;
-        }
-        List<FeatureType> featureTypes = new ArrayList<>();
-        for (char c : this.features.toUpperCase().toCharArray()) {
-            featureTypes.add(FeatureType.valueOf("" + c));
-        }
-        return featureTypes;
+        return parseFeatures(this.features);
     }
 
     public void setFeatures(List<FeatureType> features) {
@@ -495,4 +601,24 @@ public class Registration extends Model<Registration> implements Constants {
                 .toString();
     }
 
+    // Static Methods --------------------------------------------------------
+
+    /**
+     * <p>Convert a features column value (one letter per feature) into the
+     * corresponding list of {@link FeatureType}s, or <code>null</code> if
+     * there are no features.</p>
+     *
+     * @param features Features column value (may be null)
+     */
+    public static List<FeatureType> parseFeatures(String features) {
+        if ((features == null) || (features.length() == 0)) {
+            return null;
+        }
+        List<FeatureType> featureTypes = new ArrayList<>();
+        for (char c : features.toUpperCase().toCharArray()) {
+            featureTypes.add(FeatureType.valueOf("" + c));
+        }
+        return featureTypes;
+    }
+
 }
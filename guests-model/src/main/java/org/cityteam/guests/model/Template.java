@@ -24,6 +24,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 import javax.persistence.Access;
 import javax.persistence.AccessType;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.ConstraintMode;
 import javax.persistence.Entity;
@@ -34,13 +35,17 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 
+import static org.cityteam.guests.model.Constants.CACHEABLE_HINT;
+import static org.cityteam.guests.model.Constants.CACHE_REGION_HINT;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.TEMPLATE_NAME;
+import static org.cityteam.guests.model.Constants.TEMPLATE_QUERY_REGION;
 import static org.cityteam.guests.model.Constants.TEMPLATE_TABLE;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
 
@@ -59,6 +64,7 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
         name = TEMPLATE_TABLE
 )
 @Access(AccessType.FIELD)
+@Cacheable
 
 @NamedQueries({
         @NamedQuery(
@@ -73,7 +79,12 @@ import static org.craigmcc.library.model.Constants.ID_COLUMN;
                         "WHERE t." + FACILITY_ID_COLUMN + " =: " +
                         FACILITY_ID_COLUMN + " " +
                         "ORDER BY t." + FACILITY_ID_COLUMN + ", t." +
-                        NAME_COLUMN
+                        NAME_COLUMN,
+                hints = {
+                        @QueryHint(name = CACHEABLE_HINT, value = "true"),
+                        @QueryHint(name = CACHE_REGION_HINT,
+                                value = TEMPLATE_QUERY_REGION)
+                }
         ),
         @NamedQuery(
                 name = TEMPLATE_NAME + ".findById",
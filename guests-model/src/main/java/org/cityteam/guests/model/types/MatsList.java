@@ -15,21 +15,25 @@
  */
 package org.cityteam.guests.model.types;
 
-import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * <p>Represents a list of mat numbers, made up of ranges and individual
  * numbers (for example: <code>1-3,5,9-12</code>).  Mat numbers in a list
- * must be in ascending order, may not be negative, and cannot contain
- * duplicates.</p>
+ * must be in ascending order, must be between 1 and
+ * {@link #MAX_MAT_NUMBER}, and cannot contain duplicates.</p>
  *
  * <p>In a database, a <code>MatsList</code> is represented by a String.
  * This class contains methods to parse and validate such lists.</p>
  *
  * <p>If any problems occur during parsing,
  * <code>IllegalArgumentException</code> will be thrown.</p>
+ *
+ * <p>Internally, the included mat numbers are stored in a
+ * <code>BitSet</code>, so membership checks take constant time and
+ * subset checks compare 64 mat numbers at a time.</p>
  */
 public class MatsList {
 
@@ -44,9 +48,19 @@ public class MatsList {
 
     // Instance Variables ----------------------------------------------------
 
-    private List<Integer> exploded = new ArrayList<>();
+    private final BitSet mats = new BitSet();
     private int highest = 0;
 
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Highest mat number that a list may contain.  This bounds the size
+     * of the underlying <code>BitSet</code>, so a list such as
+     * <code>1-2147483647</code> is rejected rather than allocating
+     * hundreds of megabytes.</p>
+     */
+    public static final int MAX_MAT_NUMBER = 100000;
+
     // Public Methods --------------------------------------------------------
 
     /**
@@ -55,6 +69,10 @@ public class MatsList {
      * @return List of included mat numbers (ascending order)
      */
     public List<Integer> exploded() {
+        List<Integer> exploded = new ArrayList<>(mats.cardinality());
+        for (int i = mats.nextSetBit(0); i >= 0; i = mats.nextSetBit(i + 1)) {
+            exploded.add(i);
+        }
         return exploded;
     }
 
@@ -66,12 +84,7 @@ public class MatsList {
      * @return true If the specified mat number is included in this MatsList
      */
     public boolean isMemberOf(int matNumber) {
-        for (Integer item : exploded) {
-            if (item == matNumber) {
-                return true;
-            }
-        }
-        return false;
+        return (matNumber >= 0) && mats.get(matNumber);
     }
 
     /**
@@ -83,22 +96,40 @@ public class MatsList {
      * @return true If the this MatsList is a subset of that list
      */
     public boolean isSubsetOf(MatsList that) {
-        for (Integer item : exploded) {
-            if (!that.isMemberOf(item)) {
-                return false;
-            }
-        }
-        return true;
+        BitSet extras = (BitSet) mats.clone();
+        extras.andNot(that.mats);
+        return extras.isEmpty();
+    }
+
+    /**
+     * <p>Return the number of mat numbers included in this list.</p>
+     *
+     * @return Number of included mat numbers
+     */
+    public int size() {
+        return mats.cardinality();
     }
 
+    /**
+     * <p>Return this list in its most compact form, with consecutive
+     * mat numbers collapsed into ranges (for example:
+     * <code>1-3,5,9-12</code>).  The result can be parsed back into
+     * an equivalent <code>MatsList</code>.</p>
+     */
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int element : exploded) {
+        int from = mats.nextSetBit(0);
+        while (from >= 0) {
+            int to = mats.nextClearBit(from) - 1;
             if (sb.length() > 0) {
                 sb.append(",");
             }
-            sb.append("" + element);
+            sb.append(from);
+            if (to > from) {
+                sb.append("-").append(to);
+            }
+            from = mats.nextSetBit(to + 1);
         }
         return sb.toString();
     }
@@ -107,14 +138,12 @@ public class MatsList {
 
     /**
      * <p>Parse a list of individual mat number represented
-     * in this String into <code>exploded</code> and
+     * in this String into <code>mats</code> and
      * <code>highest</code>.</p>
      *
      * @param list String containing list of mat numbers and ranges
-     *
-     * @return Exploded list of included mat numbers (ascending order)
      */
-    private List<Integer> explode(String list)
+    private void explode(String list)
             throws IllegalArgumentException {
 
         String items[] = list.split(",");
@@ -142,9 +171,7 @@ public class MatsList {
                             ("List item '" + item + "' is out of" +
                                     " ascending order");
                 }
-                for (int i = from; i <= to; i++) {
-                    exploded.add(i);
-                }
+                mats.set(from, to + 1);
                 highest = to;
             } else {
                 int only = validated(item);
@@ -153,13 +180,11 @@ public class MatsList {
                             ("List item '" + only + "' is out of" +
                                     " ascending order");
                 }
-                exploded.add(only);
+                mats.set(only);
                 highest = only;
             }
         }
 
-        return null; // TODO - explode()
-
     }
 
     /**
@@ -181,6 +206,10 @@ public class MatsList {
             if (result < 1) {
                 throw new IllegalArgumentException
                         ("Item '" + item + "' must be positive");
+            } else if (result > MAX_MAT_NUMBER) {
+                throw new IllegalArgumentException
+                        ("Item '" + item + "' must not be greater than " +
+                                MAX_MAT_NUMBER);
             }
             return result;
         } catch (NumberFormatException e) {
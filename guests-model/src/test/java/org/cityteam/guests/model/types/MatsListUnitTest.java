@@ -54,6 +54,11 @@ public class MatsListUnitTest {
             "3,4,0",
     };
 
+    private String mustNotBeTooLargeSingleNumberLists[] = {
+            "100001",
+            "1,2147483647",
+    };
+
     private String notANumberSingleNumberLists[] = {
             "a",
             "1,b,3",
@@ -84,6 +89,12 @@ public class MatsListUnitTest {
             "1,2,4-3",
     };
 
+    private String mustNotBeTooLargeRangeLists[] = {
+            "1-100001",
+            "1-2147483647",
+            "2147483646-2147483647",
+    };
+
     private String outOfOrderRangeLists[] = {
             "1-3,2-4",
             "1-3,2,4-5",
@@ -101,13 +112,23 @@ public class MatsListUnitTest {
     };
 
     private String validRangeListsMatches[] = {
-            "1,2,3,4,5,6",
-            "1,2,3,4,5,6",
-            "1,2,3,4",
-            "1,2,4,5,6",
-            "1,2,4,5,6",
-            "1,2,3",
-            "3,4,7,8,9",
+            "1-6",
+            "1-6",
+            "1-4",
+            "1-2,4-6",
+            "1-2,4-6",
+            "1-3",
+            "3-4,7-9",
+    };
+
+    private String validRangeListsExploded[] = {
+            "[1, 2, 3, 4, 5, 6]",
+            "[1, 2, 3, 4, 5, 6]",
+            "[1, 2, 3, 4]",
+            "[1, 2, 4, 5, 6]",
+            "[1, 2, 4, 5, 6]",
+            "[1, 2, 3]",
+            "[3, 4, 7, 8, 9]",
     };
 
     // Subset Lists
@@ -153,6 +174,20 @@ public class MatsListUnitTest {
         }
     }
 
+    @Test
+    public void mustNotBeTooLargeRangeLists() {
+        for (String list : mustNotBeTooLargeRangeLists) {
+            try {
+                new MatsList(list);
+                fail("Should have failed for '" + list + "'");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(),
+                        endsWith("must not be greater than " +
+                                MatsList.MAX_MAT_NUMBER));
+            }
+        }
+    }
+
     @Test
     public void outOfOrderRangeLists() {
         for (String list : outOfOrderRangeLists) {
@@ -172,6 +207,10 @@ public class MatsListUnitTest {
             MatsList matsList = new MatsList(validRangeLists[i]);
             assertThat(matsList.toString(),
                     is(equalTo(validRangeListsMatches[i])));
+            assertThat(matsList.exploded().toString(),
+                    is(equalTo(validRangeListsExploded[i])));
+            assertThat(new MatsList(matsList.toString()).toString(),
+                    is(equalTo(validRangeListsMatches[i])));
         }
     }
 
@@ -228,6 +267,20 @@ public class MatsListUnitTest {
         }
     }
 
+    @Test
+    public void mustNotBeTooLargeSingleNumberLists() {
+        for (String list : mustNotBeTooLargeSingleNumberLists) {
+            try {
+                new MatsList(list);
+                fail("Should have failed for '" + list + "'");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(),
+                        endsWith("must not be greater than " +
+                                MatsList.MAX_MAT_NUMBER));
+            }
+        }
+    }
+
     @Test
     public void notANumberSingleNumberLists() {
         for (String list : notANumberSingleNumberLists) {
@@ -285,4 +338,42 @@ public class MatsListUnitTest {
         }
     }
 
+    // Large List Tests
+
+    @Test
+    public void largeTemplate() {
+
+        // A 1,000-mat template with every fourth mat handicap accessible
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 1000; i += 4) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(i);
+        }
+        MatsList allMats = new MatsList("1-1000");
+        MatsList handicapMats = new MatsList(sb.toString());
+        assertThat(allMats.size(), is(equalTo(1000)));
+        assertThat(handicapMats.size(), is(equalTo(250)));
+        assertThat(allMats.exploded().size(), is(equalTo(1000)));
+        assertThat(handicapMats.toString(), is(equalTo(sb.toString())));
+
+        // Subsets and membership agree with the list definitions
+        assertThat(handicapMats.isSubsetOf(allMats), is(true));
+        assertThat(allMats.isSubsetOf(handicapMats), is(false));
+        for (int matNumber = 0; matNumber <= 1001; matNumber++) {
+            assertThat(allMats.isMemberOf(matNumber),
+                    is((matNumber >= 1) && (matNumber <= 1000)));
+            assertThat(handicapMats.isMemberOf(matNumber),
+                    is((matNumber >= 1) && (matNumber <= 1000) &&
+                            ((matNumber % 4) == 1)));
+        }
+
+        // The highest allowed mat number is accepted
+        MatsList highest = new MatsList("1-" + MatsList.MAX_MAT_NUMBER);
+        assertThat(highest.size(), is(equalTo(MatsList.MAX_MAT_NUMBER)));
+        assertThat(highest.isMemberOf(MatsList.MAX_MAT_NUMBER), is(true));
+
+    }
+
 }
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.model.Ban;
+import org.cityteam.guests.model.Guest;
+
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static org.cityteam.guests.model.Constants.BAN_NAME;
+import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
+
+/**
+ * <p>In-memory index of the date intervals covered by active {@link Ban}s,
+ * per facility and {@link Guest}, so that {@link RegistrationService} can
+ * reject assignments of banned guests, and the check-in screen can ask
+ * which guests are banned on a date, without a date range query.</p>
+ *
+ * <p>The index for a facility is loaded the first time it is consulted.
+ * Inserts, updates, and deletes performed through {@link BanService} are
+ * applied when the enclosing transaction commits.  Because the bans for a
+ * particular guest never overlap, the ban covering a date (if any) is the
+ * one with the latest start date on or before that date.</p>
+ */
+@ConcurrencyManagement(BEAN)
+@LocalBean
+@Singleton
+public class BanIndexService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * <p>Index for each facility that has been loaded, keyed by facilityId.</p>
+     */
+    private final ConcurrentMap<Long, FacilityBans> facilities =
+            new ConcurrentHashMap<>();
+
+    /**
+     * <p>Advanced on every change, so that a facility index loaded from
+     * the database concurrently with a change is not cached.</p>
+     */
+    private final CacheSupport cacheSupport = new CacheSupport();
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Return the last day of the active ban covering the specified date
+     * for the specified guest, or <code>null</code> if they are not
+     * banned on that date.</p>
+     *
+     * @param facilityId ID of the facility the guest belongs to
+     * @param guestId ID of the guest
+     * @param registrationDate Date to be checked
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public LocalDate bannedThrough(@NotNull Long facilityId,
+                                   @NotNull Long guestId,
+                                   @NotNull LocalDate registrationDate) {
+        return facility(facilityId).bannedThrough(guestId, registrationDate);
+    }
+
+    /**
+     * <p>Return the last day of the active ban covering the specified date
+     * for each of the specified guests that is banned on that date, keyed
+     * by guestId.  If no guests are specified, all banned guests for the
+     * facility are returned.</p>
+     *
+     * @param facilityId ID of the facility the guests belong to
+     * @param registrationDate Date to be checked
+     * @param guestIds IDs of the guests to check (or empty for all)
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public @NotNull Map<Long, LocalDate> bannedThrough
+            (@NotNull Long facilityId,
+             @NotNull LocalDate registrationDate,
+             @NotNull Collection<Long> guestIds) {
+        return facility(facilityId).bannedThrough(guestIds, registrationDate);
+    }
+
+    /**
+     * <p>Discard the index for all facilities, so that each is reloaded
+     * from the database the next time it is consulted.  This happens both
+     * immediately and after the current transaction (if any) commits.</p>
+     */
+    public void clear() {
+        discard();
+        CacheSupport.afterCommit(registry, this::discard);
+    }
+
+    /**
+     * <p>Record that the specified ban has been deleted, once the current
+     * transaction (if any) commits.</p>
+     *
+     * @param facilityId ID of the facility the banned guest belongs to
+     * @param ban Ban that was deleted
+     */
+    public void deleted(@NotNull Long facilityId, @NotNull Ban ban) {
+        Interval interval = new Interval(ban);
+        CacheSupport.afterCommit(registry, () -> remove(facilityId, interval));
+    }
+
+    /**
+     * <p>Record that the specified facility (and therefore all of its bans)
+     * has been deleted, once the current transaction (if any) commits.</p>
+     *
+     * @param facilityId ID of the facility that was deleted
+     */
+    public void deletedFacility(@NotNull Long facilityId) {
+        CacheSupport.afterCommit(registry, () -> {
+            cacheSupport.changed();
+            facilities.remove(facilityId);
+        });
+    }
+
+    /**
+     * <p>Record that the specified ban has been inserted, once the current
+     * transaction (if any) commits.</p>
+     *
+     * @param facilityId ID of the facility the banned guest belongs to
+     * @param ban Ban that was inserted
+     */
+    public void inserted(@NotNull Long facilityId, @NotNull Ban ban) {
+        Interval interval = new Interval(ban);
+        CacheSupport.afterCommit(registry, () -> add(facilityId, interval));
+    }
+
+    /**
+     * <p>Record that the specified ban has been updated (which can only
+     * change whether it is active), once the current transaction (if any)
+     * commits.</p>
+     *
+     * @param facilityId ID of the facility the banned guest belongs to
+     * @param ban Ban that was updated
+     */
+    public void updated(@NotNull Long facilityId, @NotNull Ban ban) {
+        Interval interval = new Interval(ban);
+        CacheSupport.afterCommit(registry, () -> {
+            remove(facilityId, interval);
+            add(facilityId, interval);
+        });
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Add the specified interval to the index for its facility, if that
+     * facility has been loaded and the ban is active.</p>
+     */
+    private void add(Long facilityId, Interval interval) {
+        cacheSupport.changed();
+        FacilityBans bans = facilities.get(facilityId);
+        if ((bans != null) && interval.active) {
+            bans.add(interval);
+        }
+    }
+
+    /**
+     * <p>Discard the index for all facilities.</p>
+     */
+    private void discard() {
+        cacheSupport.changed();
+        facilities.clear();
+    }
+
+    /**
+     * <p>Return the index for the specified facility, loading it from the
+     * database if necessary.</p>
+     *
+     * @param facilityId ID of the facility
+     */
+    private FacilityBans facility(Long facilityId) {
+        return cacheSupport.load(facilities, facilityId, () -> {
+            FacilityBans loaded = new FacilityBans();
+            for (Ban ban : entityManager.createNamedQuery
+                    (BAN_NAME + ".findActiveByFacilityId", Ban.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .getResultList()) {
+                loaded.add(new Interval(ban));
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * <p>Remove the specified interval from the index for its facility,
+     * if that facility has been loaded.</p>
+     */
+    private void remove(Long facilityId, Interval interval) {
+        cacheSupport.changed();
+        FacilityBans bans = facilities.get(facilityId);
+        if (bans != null) {
+            bans.remove(interval);
+        }
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Active bans for the guests of a single facility.</p>
+     */
+    private static final class FacilityBans {
+
+        /**
+         * <p>Intervals for each banned guest, keyed by guestId and then
+         * by first date.</p>
+         */
+        private final Map<Long, TreeMap<LocalDate, Interval>> guests =
+                new HashMap<>();
+
+        private synchronized void add(Interval interval) {
+            guests.computeIfAbsent(interval.guestId, k -> new TreeMap<>())
+                    .put(interval.banFrom, interval);
+        }
+
+        private synchronized LocalDate bannedThrough(Long guestId,
+                                                     LocalDate date) {
+            TreeMap<LocalDate, Interval> intervals = guests.get(guestId);
+            if (intervals == null) {
+                return null;
+            }
+            Map.Entry<LocalDate, Interval> entry = intervals.floorEntry(date);
+            if ((entry == null) || entry.getValue().banTo.isBefore(date)) {
+                return null;
+            }
+            return entry.getValue().banTo;
+        }
+
+        private synchronized Map<Long, LocalDate> bannedThrough
+                (Collection<Long> guestIds, LocalDate date) {
+            Map<Long, LocalDate> results = new TreeMap<>();
+            for (Long guestId : guestIds.isEmpty() ? guests.keySet() : guestIds) {
+                LocalDate banTo = bannedThrough(guestId, date);
+                if (banTo != null) {
+                    results.put(guestId, banTo);
+                }
+            }
+            return results;
+        }
+
+        private synchronized void remove(Interval interval) {
+            TreeMap<LocalDate, Interval> intervals = guests.get(interval.guestId);
+            if (intervals == null) {
+                return;
+            }
+            Interval existing = intervals.get(interval.banFrom);
+            if ((existing != null) && existing.banId.equals(interval.banId)) {
+                intervals.remove(interval.banFrom);
+                if (intervals.isEmpty()) {
+                    guests.remove(interval.guestId);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * <p>Immutable copy of the parts of a {@link Ban} that are indexed.</p>
+     */
+    private static final class Interval {
+
+        private final boolean active;
+        private final LocalDate banFrom;
+        private final Long banId;
+        private final LocalDate banTo;
+        private final Long guestId;
+
+        private Interval(Ban ban) {
+            this.active = Boolean.TRUE.equals(ban.getActive());
+            this.banFrom = ban.getBanFrom();
+            this.banId = ban.getId();
+            this.banTo = ban.getBanTo();
+            this.guestId = ban.getGuestId();
+        }
+
+    }
+
+}
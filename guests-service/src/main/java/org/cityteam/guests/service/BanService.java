@@ -16,13 +16,16 @@
 package org.cityteam.guests.service;
 
 import org.cityteam.guests.model.Ban;
+import org.cityteam.guests.model.Guest;
 import org.craigmcc.library.model.ModelService;
 import org.craigmcc.library.shared.exception.BadRequest;
 import org.craigmcc.library.shared.exception.InternalServerError;
 import org.craigmcc.library.shared.exception.NotFound;
 import org.craigmcc.library.shared.exception.NotUnique;
 
+import javax.annotation.Resource;
 import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
@@ -34,27 +37,46 @@ import javax.validation.ConstraintViolationException;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.SEVERE;
+import static org.cityteam.guests.model.Constants.BAN_FROM_COLUMN;
 import static org.cityteam.guests.model.Constants.BAN_NAME;
+import static org.cityteam.guests.model.Constants.BAN_TO_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
 
 @LocalBean
+@Metered
 @Stateless
 public class BanService extends ModelService<Ban> {
 
     // Instance Variables ----------------------------------------------------
 
+    @Inject
+    private BanIndexService banIndexService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Inject
     private GuestService guestService;
 
+    @Resource
+    private SessionContext sessionContext;
+
+    @Inject
+    private UnitOfWorkService unitOfWorkService;
+
     // Static Variables ------------------------------------------------------
 
     private static final Logger LOG =
@@ -72,6 +94,10 @@ public class BanService extends ModelService<Ban> {
             if (deleted != null) {
                 entityManager.remove(deleted);
                 deleted.setUpdated(LocalDateTime.now());
+                Long facilityId = facilityIdOf(deleted.getGuestId());
+                if (facilityId != null) {
+                    banIndexService.deleted(facilityId, deleted);
+                }
                 return deleted;
             }
 
@@ -129,6 +155,37 @@ public class BanService extends ModelService<Ban> {
 
     }
 
+    /**
+     * <p>Return the last day of the active ban covering the specified
+     * date for each of the specified guests that is banned on that date,
+     * keyed by guestId.  If no guests are specified, all guests of the
+     * specified facility that are banned on that date are returned.</p>
+     *
+     * @param facilityId ID of the facility the guests belong to
+     * @param registrationDate Date to be checked
+     * @param guestIds IDs of the guests to check (or empty for all)
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull Map<Long, LocalDate> findBannedGuests(
+            @NotNull Long facilityId,
+            @NotNull LocalDate registrationDate,
+            @NotNull Collection<Long> guestIds)
+            throws InternalServerError {
+
+        try {
+            return banIndexService.bannedThrough
+                    (facilityId, registrationDate, guestIds);
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findBannedGuests(%d, %s, %s): %s",
+                            facilityId, registrationDate, guestIds,
+                            e.getMessage()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
     public @NotNull List<Ban> findByGuestId(@NotNull Long guestId)
         throws InternalServerError {
 
@@ -181,51 +238,18 @@ public class BanService extends ModelService<Ban> {
 
         try {
 
-            // Check from/to ordering
-            if (ban.getBanFrom() == null) {
-                throw new BadRequest("banFrom: Cannot be null");
-            }
-            if (ban.getBanTo() == null) {
-                throw new BadRequest("banTo: Cannot be null");
-            }
-            if (ban.getBanFrom().compareTo(ban.getBanTo()) > 0) {
-                throw new BadRequest("banFrom: Cannot be greater than banTo");
-            }
-
-            // Check valid guest
-            try {
-                if (ban.getGuestId() ==  null) {
-                    throw new BadRequest("guestId: Cannot be null");
-                }
-                guestService.find(ban.getGuestId());
-            } catch (NotFound e) {
-                throw new BadRequest(String.format("guestId: Missing guest %d",
-                        ban.getGuestId()));
-            }
-
-            // Check overlap with existing bans
-            List<Ban> existingBans = findByGuestId(ban.getGuestId());
-            for (Ban existingBan : existingBans) {
-                if ((ban.getBanFrom().compareTo(existingBan.getBanFrom()) >= 0) &&
-                    (ban.getBanFrom().compareTo(existingBan.getBanTo()) <= 0)) {
-                    throw new NotUnique("banFrom: Overlaps existing ban");
-                }
-                if ((ban.getBanTo().compareTo(existingBan.getBanFrom()) >= 0) &&
-                    (ban.getBanTo().compareTo(existingBan.getBanTo()) <= 0)) {
-                    throw new NotUnique("banTo: Overlaps existing ban");
-                }
-                if ((ban.getBanFrom().compareTo(existingBan.getBanFrom()) <= 0) &&
-                    (ban.getBanTo().compareTo(existingBan.getBanTo()) >= 0)) {
-                    throw new NotUnique("banFrom/banTo: Overlaps existing ban");
-                }
-            }
+            // Check valid dates and guest, and overlap with existing bans
+            Guest guest = validate(ban);
+            checkOverlap(ban, findOverlapping(ban));
 
             // Perform the requested insert
             ban.setId(null); // Ignore any specified primary key
             ban.setPublished(LocalDateTime.now());
             ban.setUpdated(ban.getPublished());
             entityManager.persist(ban);
-            entityManager.flush();
+            unitOfWorkService.persisted(ban);
+            unitOfWorkService.flush(entityManager);
+            banIndexService.inserted(guest.getFacilityId(), ban);
 
             // TODO - pass through InternalServerError - see update() handling
         } catch (BadRequest|InternalServerError|NotUnique e) {
@@ -245,6 +269,100 @@ public class BanService extends ModelService<Ban> {
 
     }
 
+    /**
+     * <p>Insert all of the specified bans, which may be for any number of
+     * guests, in a single transaction.  Each ban is checked for overlap
+     * against the existing bans for its guest (one indexed query per ban)
+     * and against the bans for that guest earlier in the same request
+     * (sorted by first date, so each check is logarithmic).  If any ban
+     * is invalid, none of them are inserted.</p>
+     *
+     * @param bans Bans to be inserted
+     *
+     * @return The inserted bans, in the order they were specified
+     *
+     * @throws BadRequest If a ban fails validation (message identifies
+     *                    which one)
+     * @throws InternalServerError A server side error has occurred
+     * @throws NotUnique If a ban overlaps an existing ban, or another
+     *                   ban in this request, for the same guest
+     */
+    public @NotNull List<Ban> insertAll(@NotNull List<Ban> bans)
+            throws BadRequest, InternalServerError, NotUnique {
+
+        List<Long> facilityIds = new ArrayList<>(bans.size());
+        List<Ban> inserteds = new ArrayList<>(bans.size());
+        Map<Long, TreeMap<LocalDate, Ban>> requesteds = new HashMap<>();
+        int index = 0;
+
+        try {
+
+            for (Ban ban : bans) {
+
+                // Check valid dates and guest
+                Guest guest;
+                try {
+                    guest = validate(ban);
+                } catch (BadRequest e) {
+                    throw new BadRequest(String.format("bans[%d].%s",
+                            index, e.getMessage()));
+                }
+
+                // Check overlap with earlier bans in this request, and
+                // then with existing bans
+                TreeMap<LocalDate, Ban> guestBans = requesteds.computeIfAbsent
+                        (ban.getGuestId(), k -> new TreeMap<>());
+                Map.Entry<LocalDate, Ban> previous =
+                        guestBans.floorEntry(ban.getBanTo());
+                try {
+                    if ((previous != null) &&
+                            (previous.getValue().getBanTo()
+                                    .compareTo(ban.getBanFrom()) >= 0)) {
+                        checkOverlap(ban, previous.getValue());
+                    }
+                    checkOverlap(ban, findOverlapping(ban));
+                } catch (NotUnique e) {
+                    throw new NotUnique(String.format("bans[%d].%s",
+                            index, e.getMessage()));
+                }
+                guestBans.put(ban.getBanFrom(), ban);
+
+                // Perform the requested insert
+                ban.setId(null); // Ignore any specified primary key
+                ban.setPublished(LocalDateTime.now());
+                ban.setUpdated(ban.getPublished());
+                entityManager.persist(ban);
+                facilityIds.add(guest.getFacilityId());
+                inserteds.add(ban);
+                index++;
+
+            }
+            entityManager.flush();
+            for (int i = 0; i < inserteds.size(); i++) {
+                banIndexService.inserted(facilityIds.get(i), inserteds.get(i));
+            }
+
+        } catch (BadRequest|NotUnique e) {
+            sessionContext.setRollbackOnly();
+            throw e;
+        } catch (InternalServerError e) {
+            throw e;
+        } catch (ConstraintViolationException e) {
+            sessionContext.setRollbackOnly();
+            throw new BadRequest(formatMessage(e));
+        } catch (PersistenceException e) {
+            handlePersistenceException(e);
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("insertAll(%d bans): %s",
+                            bans.size(), e.getMessage()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+        return inserteds;
+
+    }
+
     @Override
     public Ban update(@NotNull Long banId, @NotNull Ban ban)
             throws BadRequest, InternalServerError, NotFound, NotUnique {
@@ -280,7 +398,11 @@ public class BanService extends ModelService<Ban> {
             original.setComments(ban.getComments());
             original.setStaff(ban.getStaff());
             entityManager.merge(original);
-            entityManager.flush();
+            unitOfWorkService.flush(entityManager);
+            Long facilityId = facilityIdOf(original.getGuestId());
+            if (facilityId != null) {
+                banIndexService.updated(facilityId, original);
+            }
 
         } catch (BadRequest|InternalServerError|NotFound/* |NotUnique */ e) {
             throw e;
@@ -299,4 +421,105 @@ public class BanService extends ModelService<Ban> {
 
     }
 
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Throw {@link NotUnique} describing how the specified ban overlaps
+     * the specified existing ban, if there is one and they overlap.</p>
+     *
+     * @param ban Ban being inserted
+     * @param existingBan Overlapping ban (or <code>null</code> for none)
+     */
+    private void checkOverlap(Ban ban, Ban existingBan) throws NotUnique {
+        if (existingBan == null) {
+            return;
+        }
+        if ((ban.getBanFrom().compareTo(existingBan.getBanFrom()) >= 0) &&
+            (ban.getBanFrom().compareTo(existingBan.getBanTo()) <= 0)) {
+            throw new NotUnique("banFrom: Overlaps existing ban");
+        }
+        if ((ban.getBanTo().compareTo(existingBan.getBanFrom()) >= 0) &&
+            (ban.getBanTo().compareTo(existingBan.getBanTo()) <= 0)) {
+            throw new NotUnique("banTo: Overlaps existing ban");
+        }
+        if ((ban.getBanFrom().compareTo(existingBan.getBanFrom()) <= 0) &&
+            (ban.getBanTo().compareTo(existingBan.getBanTo()) >= 0)) {
+            throw new NotUnique("banFrom/banTo: Overlaps existing ban");
+        }
+    }
+
+    /**
+     * <p>Return the ID of the facility the specified guest belongs to, or
+     * <code>null</code> if there is no such guest.</p>
+     *
+     * @param guestId ID of the guest
+     */
+    private Long facilityIdOf(Long guestId) {
+        Guest guest = entityManager.find(Guest.class, guestId);
+        return (guest != null) ? guest.getFacilityId() : null;
+    }
+
+    /**
+     * <p>Return the earliest existing ban for the same guest whose dates
+     * overlap those of the specified ban, or <code>null</code> if there
+     * is none.  Bans persisted in the current unit of work, but not
+     * flushed yet, are considered too, and the lookup itself never
+     * forces a flush in write-behind mode.</p>
+     *
+     * @param ban Ban being inserted
+     */
+    private Ban findOverlapping(Ban ban) {
+        Optional<Ban> pending = unitOfWorkService.findPending(Ban.class,
+                b -> (b != ban) &&
+                        Objects.equals(b.getGuestId(), ban.getGuestId()) &&
+                        (b.getBanFrom().compareTo(ban.getBanTo()) <= 0) &&
+                        (b.getBanTo().compareTo(ban.getBanFrom()) >= 0));
+        if (pending.isPresent()) {
+            return pending.get();
+        }
+        List<Ban> overlappings = entityManager.createNamedQuery
+                (BAN_NAME + ".findOverlapping", Ban.class)
+                .setFlushMode(unitOfWorkService.flushMode())
+                .setParameter(GUEST_ID_COLUMN, ban.getGuestId())
+                .setParameter(BAN_FROM_COLUMN, ban.getBanFrom())
+                .setParameter(BAN_TO_COLUMN, ban.getBanTo())
+                .setMaxResults(1)
+                .getResultList();
+        return overlappings.isEmpty() ? null : overlappings.get(0);
+    }
+
+    /**
+     * <p>Check the dates and guest of a ban that is about to be inserted,
+     * and return the guest.</p>
+     *
+     * @param ban Ban being inserted
+     *
+     * @throws BadRequest If the dates or guest are not valid
+     */
+    private Guest validate(Ban ban) throws BadRequest, InternalServerError {
+
+        // Check from/to ordering
+        if (ban.getBanFrom() == null) {
+            throw new BadRequest("banFrom: Cannot be null");
+        }
+        if (ban.getBanTo() == null) {
+            throw new BadRequest("banTo: Cannot be null");
+        }
+        if (ban.getBanFrom().compareTo(ban.getBanTo()) > 0) {
+            throw new BadRequest("banFrom: Cannot be greater than banTo");
+        }
+
+        // Check valid guest
+        try {
+            if (ban.getGuestId() ==  null) {
+                throw new BadRequest("guestId: Cannot be null");
+            }
+            return guestService.find(ban.getGuestId());
+        } catch (NotFound e) {
+            throw new BadRequest(String.format("guestId: Missing guest %d",
+                    ban.getGuestId()));
+        }
+
+    }
+
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.model.Facility;
+import org.cityteam.guests.model.Template;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.annotation.Resource;
+import javax.ejb.LocalBean;
+import javax.ejb.Stateless;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.cityteam.guests.model.Constants.FACILITY_QUERY_REGION;
+import static org.cityteam.guests.model.Constants.TEMPLATE_QUERY_REGION;
+
+/**
+ * <p>Eviction and statistics for the JPA second level cache, which holds
+ * the rarely changing {@link Facility} and {@link Template} entities, and
+ * the results of the <code>Facility.findByActive</code> and
+ * <code>Template.findByFacilityId</code> named queries.</p>
+ *
+ * <p>Evictions requested inside a transaction are deferred until it
+ * commits, so that a concurrent reader cannot reload the old state into
+ * the cache before the change is visible.  If the transaction rolls back,
+ * nothing is evicted.</p>
+ */
+@LocalBean
+@Stateless
+public class CacheService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Evict everything from the second level cache.</p>
+     */
+    public void evictAll() {
+        CacheSupport.afterCommit(registry, () -> {
+            entityManagerFactory.getCache().evictAll();
+            sessionFactory().getCache().evictQueryRegions();
+        });
+    }
+
+    /**
+     * <p>Evict the specified facility, and any cached query results that
+     * might include it.  Because deleting a facility cascades to its
+     * templates, all cached templates are evicted as well.</p>
+     *
+     * @param facilityId ID of the facility to evict
+     */
+    public void evictFacility(@NotNull Long facilityId) {
+        CacheSupport.afterCommit(registry, () -> {
+            entityManagerFactory.getCache().evict(Facility.class, facilityId);
+            entityManagerFactory.getCache().evict(Template.class);
+            sessionFactory().getCache().evictQueryRegion(FACILITY_QUERY_REGION);
+            sessionFactory().getCache().evictQueryRegion(TEMPLATE_QUERY_REGION);
+        });
+    }
+
+    /**
+     * <p>Evict the specified template, and any cached query results that
+     * might include it.</p>
+     *
+     * @param templateId ID of the template to evict
+     */
+    public void evictTemplate(@NotNull Long templateId) {
+        CacheSupport.afterCommit(registry, () -> {
+            entityManagerFactory.getCache().evict(Template.class, templateId);
+            sessionFactory().getCache().evictQueryRegion(TEMPLATE_QUERY_REGION);
+        });
+    }
+
+    /**
+     * <p>Return hit, miss, and put counts for the second level cache as a
+     * whole, for the query cache, and for each cache region.  Counts are
+     * only collected when <code>hibernate.generate_statistics</code> is
+     * enabled, which both the production and test persistence units do.</p>
+     */
+    public @NotNull Map<String, Map<String, Long>> statistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Map<String, Long>> results = new LinkedHashMap<>();
+        results.put("secondLevelCache", counts(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount()));
+        results.put("queryCache", counts(
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()));
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region =
+                    statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                results.put(regionName, counts(
+                        region.getHitCount(),
+                        region.getMissCount(),
+                        region.getPutCount()));
+            }
+        }
+        return results;
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private Map<String, Long> counts(long hits, long misses, long puts) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        return counts;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Plumbing shared by the in-memory caches kept by singleton services
+ * (occupancies, guest names, bans, registration snapshots, and so on).</p>
+ *
+ * <p>Each instance holds a generation counter, which the owning cache
+ * advances on every change.  {@link #load(ConcurrentMap, Object, Supplier)}
+ * uses it so that an entry loaded from the database concurrently with a
+ * change is returned to its caller once, but never cached.  The static
+ * methods defer changes until the current transaction completes.</p>
+ */
+final class CacheSupport {
+
+    // Instance Variables ----------------------------------------------------
+
+    /**
+     * <p>Incremented on every change to the owning cache.</p>
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    // Package Methods -------------------------------------------------------
+
+    /**
+     * <p>Run the specified change after the current transaction commits,
+     * or immediately if there is no current transaction.  Nothing happens
+     * if the transaction rolls back.</p>
+     *
+     * @param registry Registry for the current transaction
+     * @param change Change to be applied
+     */
+    static void afterCommit(@NotNull TransactionSynchronizationRegistry registry,
+                            @NotNull Runnable change) {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            change.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Completion(change, true));
+    }
+
+    /**
+     * <p>Run the specified change if the current transaction does not
+     * commit.  Nothing happens if there is no current transaction.</p>
+     *
+     * @param registry Registry for the current transaction
+     * @param change Change to be applied
+     */
+    static void afterRollback(@NotNull TransactionSynchronizationRegistry registry,
+                              @NotNull Runnable change) {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            return;
+        }
+        registry.registerInterposedSynchronization(new Completion(change, false));
+    }
+
+    /**
+     * <p>Record that the owning cache has changed, so that any load that
+     * is in progress will not be cached.</p>
+     */
+    void changed() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * <p>Return the cached value for the specified key, loading (and
+     * caching) it if necessary.  If the owning cache changes while the
+     * value is being loaded, or before it has been cached, the loaded
+     * value is returned without being (or remaining) cached.</p>
+     *
+     * @param cache Cache holding the values
+     * @param key Key of the value
+     * @param loader Loads the value from the database
+     * @param <K> Type of the keys
+     * @param <V> Type of the values
+     */
+    <K, V> V load(@NotNull ConcurrentMap<K, V> cache,
+                  @NotNull K key,
+                  @NotNull Supplier<V> loader) {
+        V value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        long start = generation.get();
+        V loaded = loader.get();
+        if (generation.get() != start) {
+            // Changed while loading, so use this copy only once
+            return loaded;
+        }
+        value = cache.putIfAbsent(key, loaded);
+        if (value != null) {
+            return value;
+        }
+        if (generation.get() != start) {
+            // Changed between the check above and the put, so undo the put
+            // (unless a later load has already replaced it)
+            cache.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * <p>Return the current generation, to be passed later to
+     * {@link #unchangedSince(long)}.</p>
+     */
+    long start() {
+        return generation.get();
+    }
+
+    /**
+     * <p>Return <code>true</code> if the owning cache has not changed
+     * since the specified generation was current.</p>
+     *
+     * @param start Value returned earlier by {@link #start()}
+     */
+    boolean unchangedSince(long start) {
+        return generation.get() == start;
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Runs a change after the transaction commits, or after it does
+     * not commit, depending on <code>onCommit</code>.</p>
+     */
+    private static final class Completion implements Synchronization {
+
+        private final Runnable change;
+        private final boolean onCommit;
+
+        private Completion(Runnable change, boolean onCommit) {
+            this.change = change;
+            this.onCommit = onCommit;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if ((status == Status.STATUS_COMMITTED) == onCommit) {
+                change.run();
+            }
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+    }
+
+}
@@ -17,6 +17,7 @@ package org.cityteam.guests.service;
 
 import javax.ejb.LocalBean;
 import javax.ejb.Singleton;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.logging.Logger;
@@ -37,9 +38,24 @@ public class DevModeDepopulateService {
 
     // Instance Variables ----------------------------------------------------
 
+    @Inject
+    private BanIndexService banIndexService;
+
+    @Inject
+    private CacheService cacheService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private GuestNameIndexService guestNameIndexService;
+
+    @Inject
+    private OccupancyService occupancyService;
+
+    @Inject
+    private RegistrationSnapshotService registrationSnapshotService;
+
     private static final Logger LOG =
             Logger.getLogger(DevModeDepopulateService.class.getSimpleName());
 
@@ -56,6 +72,12 @@ public class DevModeDepopulateService {
         // Restart the sequence generator since we are reloading data
         // from scratch
         resetSequence();
+        // Forget any cached state about the data we just erased
+        banIndexService.clear();
+        cacheService.evictAll();
+        guestNameIndexService.clear();
+        occupancyService.clear();
+        registrationSnapshotService.clear();
         LOG.info("------ Depopulate Development Test Data End ------");
     }
 
@@ -25,6 +25,7 @@ import org.cityteam.guests.model.types.PaymentType;
 
 import javax.ejb.LocalBean;
 import javax.ejb.Singleton;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.math.BigDecimal;
@@ -49,6 +50,15 @@ public class DevModePopulateService {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private BanIndexService banIndexService;
+
+    @Inject
+    private GuestNameIndexService guestNameIndexService;
+
+    @Inject
+    private RegistrationSnapshotService registrationSnapshotService;
+
     // Key is "name"
     private final Map<String, Facility> facilities = new HashMap<>();
 
@@ -72,6 +82,11 @@ public class DevModePopulateService {
         populateRegistrations();
         // Clean up our temporary data maps
         cleanTemporaryMaps();
+        // Bans, guests, and registrations were persisted directly, so
+        // reindex on first use
+        banIndexService.clear();
+        guestNameIndexService.clear();
+        registrationSnapshotService.clear();
         LOG.info("------ Populate Development Test Data End ------");
     }
 
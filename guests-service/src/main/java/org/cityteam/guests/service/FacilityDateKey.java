@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * <p>Key identifying a facility and registration date, shared by the
+ * in-memory caches that hold per-night state.  Ordered by registration
+ * date first so that the oldest dates sort first.</p>
+ */
+final class FacilityDateKey implements Comparable<FacilityDateKey> {
+
+    // Instance Variables ----------------------------------------------------
+
+    private final Long facilityId;
+    private final LocalDate registrationDate;
+
+    // Constructors ----------------------------------------------------------
+
+    FacilityDateKey(@NotNull Long facilityId,
+                    @NotNull LocalDate registrationDate) {
+        this.facilityId = facilityId;
+        this.registrationDate = registrationDate;
+    }
+
+    // Package Methods -------------------------------------------------------
+
+    /**
+     * <p>Return <code>true</code> if this key is for the specified
+     * facility.</p>
+     *
+     * @param facilityId ID of the facility
+     */
+    boolean hasFacilityId(@NotNull Long facilityId) {
+        return this.facilityId.equals(facilityId);
+    }
+
+    // Public Methods --------------------------------------------------------
+
+    @Override
+    public int compareTo(FacilityDateKey that) {
+        int result = this.registrationDate.compareTo(that.registrationDate);
+        return (result != 0)
+                ? result : this.facilityId.compareTo(that.facilityId);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof FacilityDateKey)) {
+            return false;
+        }
+        FacilityDateKey that = (FacilityDateKey) object;
+        return facilityId.equals(that.facilityId) &&
+                registrationDate.equals(that.registrationDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(facilityId, registrationDate);
+    }
+
+    @Override
+    public String toString() {
+        return facilityId + "|" + registrationDate;
+    }
+
+}
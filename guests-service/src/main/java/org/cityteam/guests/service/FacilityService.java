@@ -39,17 +39,32 @@ import java.util.logging.Logger;
 import static java.util.logging.Level.SEVERE;
 import static org.cityteam.guests.model.Constants.FACILITY_NAME;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
-import static org.craigmcc.library.model.Constants.ID_COLUMN;
 
 @LocalBean
+@Metered
 @Stateless
 public class FacilityService extends ModelService<Facility> {
 
     // Instance Variables ----------------------------------------------------
     
+    @Inject
+    private BanIndexService banIndexService;
+
+    @Inject
+    private CacheService cacheService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private GuestNameIndexService guestNameIndexService;
+
+    @Inject
+    private OccupancyService occupancyService;
+
+    @Inject
+    private RegistrationSnapshotService registrationSnapshotService;
+
     // Static Variables ------------------------------------------------------
 
     private static final Logger LOG =
@@ -66,6 +81,13 @@ public class FacilityService extends ModelService<Facility> {
             Facility deleted = entityManager.find(Facility.class, facilityId);
             if (deleted != null) {
                 entityManager.remove(deleted);
+                cacheService.evictFacility(facilityId);
+
+                // Guests, bans, and registrations are removed by cascade
+                banIndexService.deletedFacility(facilityId);
+                guestNameIndexService.deletedFacility(facilityId);
+                occupancyService.evictFacility(facilityId);
+                registrationSnapshotService.invalidateFacility(facilityId);
                 deleted.setUpdated(LocalDateTime.now());
                 return deleted;
             }
@@ -89,21 +111,23 @@ public class FacilityService extends ModelService<Facility> {
 
         try {
 
-            TypedQuery<Facility> query = entityManager.createNamedQuery
-                    (FACILITY_NAME + ".findById", Facility.class)
-                    .setParameter(ID_COLUMN, facilityId);
-            return query.getSingleResult();
+            // Look up by primary key so the second level cache is consulted
+            Facility found = entityManager.find(Facility.class, facilityId);
+            if (found != null) {
+                return found;
+            }
 
-        } catch (NoResultException e) {
-            throw new NotFound(
-                    String.format("facilityId: Missing facility %d", facilityId)
-            );
         } catch (Exception e) {
             LOG.log(SEVERE,
-                    String.format("find(%d): %s", facilityId, e.getMessage()), e);
+                    String.format("find(%d): %s",
+                            facilityId, e.getMessage()), e);
             throw new InternalServerError(e.getMessage(), e);
         }
 
+        throw new NotFound(
+                String.format("facilityId: Missing facility %d", facilityId)
+        );
+
     }
 
     @Override
@@ -250,6 +274,7 @@ public class FacilityService extends ModelService<Facility> {
             original.setUpdated(LocalDateTime.now());
             entityManager.merge(original);
             entityManager.flush();
+            cacheService.evictFacility(facilityId);
 
         } catch (ConstraintViolationException e) {
             throw new BadRequest(formatMessage(e));
@@ -0,0 +1,507 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.model.Guest;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.SEVERE;
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
+import static org.cityteam.guests.model.Constants.GUEST_NAME;
+
+/**
+ * <p>In-memory trigram index of {@link Guest} first and last names, per
+ * facility, so that the substring searches performed by
+ * {@link GuestService#findByName(Long, String)} (and the paged forms used
+ * by the check-in desk on every keystroke) do not need to scan the guests
+ * table.</p>
+ *
+ * <p>The index is built for all facilities at startup, and for any facility
+ * that is not yet indexed the first time it is searched.  Inserts, updates,
+ * and deletes performed through {@link GuestService} are applied when the
+ * enclosing transaction commits, so searches never see uncommitted names.
+ * Indexed guests are detached instances shared between callers, and must
+ * be treated as read-only.</p>
+ *
+ * <p>Set <code>guest.name.index.enabled</code> to <code>false</code> to
+ * disable the index, in which case {@link GuestService} falls back to the
+ * <code>Guest.findByName</code> named query.</p>
+ */
+@ConcurrencyManagement(BEAN)
+@LocalBean
+@Singleton
+@Startup
+public class GuestNameIndexService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Inject
+    @ConfigProperty(name = "guest.name.index.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * <p>Index for each facility that has been loaded, keyed by facilityId.</p>
+     */
+    private final ConcurrentMap<Long, FacilityIndex> facilities =
+            new ConcurrentHashMap<>();
+
+    /**
+     * <p>Advanced on every change, so that a facility index loaded from
+     * the database concurrently with a change is not cached.</p>
+     */
+    private final CacheSupport cacheSupport = new CacheSupport();
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    // Static Variables ------------------------------------------------------
+
+    private static final Logger LOG =
+            Logger.getLogger(GuestNameIndexService.class.getSimpleName());
+
+    /**
+     * <p>Length of the n-grams that are indexed.  Shorter search strings
+     * are matched by scanning every guest in the facility.</p>
+     */
+    static final int GRAM_LENGTH = 3;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Index the guests of every facility at startup.</p>
+     */
+    @PostConstruct
+    @TransactionAttribute(NOT_SUPPORTED)
+    public void build() {
+        if (!enabled) {
+            LOG.info("Guest name index is disabled");
+            return;
+        }
+        try {
+            long start = cacheSupport.start();
+            Map<Long, FacilityIndex> loaded = new HashMap<>();
+            for (Guest guest : entityManager.createNamedQuery
+                    (GUEST_NAME + ".findAll", Guest.class).getResultList()) {
+                loaded.computeIfAbsent(guest.getFacilityId(),
+                        k -> new FacilityIndex()).add(guest);
+            }
+            if (cacheSupport.unchangedSince(start)) {
+                facilities.putAll(loaded);
+            }
+            LOG.info(String.format("Indexed guest names for %d facilities",
+                    loaded.size()));
+        } catch (Exception e) {
+            // Facilities will be indexed on first use instead
+            LOG.log(SEVERE, String.format("build(): %s", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * <p>Discard the index for all facilities, so that each is reloaded
+     * from the database the next time it is searched.  This happens both
+     * immediately and after the current transaction (if any) commits, so
+     * that facilities reloaded in between are not left stale.</p>
+     */
+    public void clear() {
+        discard();
+        CacheSupport.afterCommit(registry, this::discard);
+    }
+
+    /**
+     * <p>Record that the specified guest has been deleted, once the current
+     * transaction (if any) commits.</p>
+     *
+     * @param guest Guest that was deleted
+     */
+    public void deleted(@NotNull Guest guest) {
+        if (enabled) {
+            CacheSupport.afterCommit(registry, () -> remove(guest.getId()));
+        }
+    }
+
+    /**
+     * <p>Record that the specified facility (and therefore all of its
+     * guests) has been deleted, once the current transaction (if any)
+     * commits.</p>
+     *
+     * @param facilityId ID of the facility that was deleted
+     */
+    public void deletedFacility(@NotNull Long facilityId) {
+        if (enabled) {
+            CacheSupport.afterCommit(registry, () -> {
+                cacheSupport.changed();
+                facilities.remove(facilityId);
+            });
+        }
+    }
+
+    /**
+     * <p>Record that the specified guest has been inserted, once the
+     * current transaction (if any) commits.</p>
+     *
+     * @param guest Guest that was inserted
+     */
+    public void inserted(@NotNull Guest guest) {
+        if (enabled) {
+            CacheSupport.afterCommit(registry, () -> add(guest));
+        }
+    }
+
+    /**
+     * <p>Return <code>true</code> if searches should be served from this
+     * index.</p>
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * <p>Return the guests for the specified facility whose first or last
+     * name contains <code>name</code> (case insensitive).  Guests whose
+     * first or last name equals <code>name</code> are returned first,
+     * followed by last name prefix matches, then first name prefix
+     * matches, then all other matches, each ordered by lastName and
+     * firstName.</p>
+     *
+     * @param facilityId ID of the facility to search
+     * @param name Name segment to match
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public @NotNull List<Guest> search(@NotNull Long facilityId,
+                                       @NotNull String name) {
+        return facility(facilityId).search(normalize(name));
+    }
+
+    /**
+     * <p>Return the next page of guests that {@link #search(Long, String)}
+     * would return, starting after the guest with the specified names.
+     * Pass empty strings for <code>afterLastName</code> and
+     * <code>afterFirstName</code> to retrieve the first page, and the names
+     * of the last guest returned to retrieve each subsequent page.  Since a
+     * guest's rank depends only on its names, the position to resume from
+     * is found even if that guest has since been changed or deleted.</p>
+     *
+     * @param facilityId ID of the facility to search
+     * @param name Name segment to match
+     * @param afterLastName Last name of the last guest already returned
+     * @param afterFirstName First name of the last guest already returned
+     * @param limit Maximum number of guests to return
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public @NotNull List<Guest> search(@NotNull Long facilityId,
+                                       @NotNull String name,
+                                       @NotNull String afterLastName,
+                                       @NotNull String afterFirstName,
+                                       int limit) {
+        List<Guest> matches = search(facilityId, name);
+        int start = 0;
+        if (!afterLastName.isEmpty() || !afterFirstName.isEmpty()) {
+            int afterRank = rank(normalize(afterLastName),
+                    normalize(afterFirstName), normalize(name));
+            if (afterRank < 0) {
+                // Not a guest this search could have returned
+                return new ArrayList<>();
+            }
+            while (start < matches.size()) {
+                Guest match = matches.get(start);
+                int comparison = Integer.compare(rank(normalize(match.getLastName()),
+                        normalize(match.getFirstName()), normalize(name)), afterRank);
+                if (comparison == 0) {
+                    comparison = match.getLastName().compareTo(afterLastName);
+                }
+                if (comparison == 0) {
+                    comparison = match.getFirstName().compareTo(afterFirstName);
+                }
+                if (comparison > 0) {
+                    break;
+                }
+                start++;
+            }
+        }
+        return new ArrayList<>(matches.subList(start,
+                Math.min(matches.size(), start + limit)));
+    }
+
+    /**
+     * <p>Record that the specified guest has been updated, once the current
+     * transaction (if any) commits.  The guest is reindexed under its
+     * (possibly changed) facility.</p>
+     *
+     * @param guest Guest that was updated
+     */
+    public void updated(@NotNull Guest guest) {
+        if (enabled) {
+            CacheSupport.afterCommit(registry, () -> {
+                remove(guest.getId());
+                add(guest);
+            });
+        }
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Add the specified guest to the index for its facility, if that
+     * facility has been loaded.</p>
+     *
+     * @param guest Guest to be added
+     */
+    private void add(Guest guest) {
+        cacheSupport.changed();
+        FacilityIndex index = facilities.get(guest.getFacilityId());
+        if (index != null) {
+            index.add(guest);
+        }
+    }
+
+    /**
+     * <p>Discard the index for all facilities.</p>
+     */
+    private void discard() {
+        cacheSupport.changed();
+        facilities.clear();
+    }
+
+    /**
+     * <p>Return the index for the specified facility, loading it from the
+     * database if necessary.</p>
+     *
+     * @param facilityId ID of the facility
+     */
+    private FacilityIndex facility(Long facilityId) {
+        return cacheSupport.load(facilities, facilityId, () -> {
+            FacilityIndex loaded = new FacilityIndex();
+            for (Guest guest : entityManager.createNamedQuery
+                    (GUEST_NAME + ".findByFacilityId", Guest.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .getResultList()) {
+                loaded.add(guest);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * <p>Return the trigrams contained in the specified (normalized) value.</p>
+     *
+     * @param value Value to be split
+     */
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * <p>Return the normalized (lower case) form of the specified name.</p>
+     *
+     * @param name Name to be normalized
+     */
+    private static String normalize(String name) {
+        return (name != null) ? name.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * <p>Return the rank of a guest with the specified (normalized) names
+     * for the specified (normalized) search string (lower is better), or
+     * -1 if it does not match at all.</p>
+     *
+     * @param lastName Normalized last name of the guest
+     * @param firstName Normalized first name of the guest
+     * @param name Normalized search string
+     */
+    private static int rank(String lastName, String firstName, String name) {
+        if (lastName.equals(name) || firstName.equals(name)) {
+            return 0;
+        } else if (lastName.startsWith(name)) {
+            return 1;
+        } else if (firstName.startsWith(name)) {
+            return 2;
+        } else if (lastName.contains(name) || firstName.contains(name)) {
+            return 3;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * <p>Remove the specified guest from the index of whichever facility
+     * contains it.</p>
+     *
+     * @param guestId ID of the guest to be removed
+     */
+    private void remove(Long guestId) {
+        cacheSupport.changed();
+        for (FacilityIndex index : facilities.values()) {
+            index.remove(guestId);
+        }
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Indexed guest, with normalized names.</p>
+     */
+    private static final class Entry {
+
+        private final String firstName;
+        private final Guest guest;
+        private final String lastName;
+
+        private Entry(Guest guest) {
+            this.firstName = normalize(guest.getFirstName());
+            this.guest = guest;
+            this.lastName = normalize(guest.getLastName());
+        }
+
+        /**
+         * <p>Return the rank of this entry for the specified search string
+         * (lower is better), or -1 if it does not match at all.</p>
+         */
+        private int rank(String name) {
+            return GuestNameIndexService.rank(lastName, firstName, name);
+        }
+
+    }
+
+    /**
+     * <p>Trigram index for the guests of a single facility.</p>
+     */
+    private static final class FacilityIndex {
+
+        private static final Comparator<Entry> ORDER =
+                Comparator.comparing((Entry e) -> e.guest.getLastName())
+                        .thenComparing(e -> e.guest.getFirstName());
+
+        /**
+         * <p>Indexed guests, keyed by guestId.</p>
+         */
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        /**
+         * <p>IDs of the guests whose first or last name contains each
+         * trigram.</p>
+         */
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        private synchronized void add(Guest guest) {
+            Entry entry = new Entry(guest);
+            entries.put(guest.getId(), entry);
+            Set<String> grams = grams(entry.firstName);
+            grams.addAll(grams(entry.lastName));
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>())
+                        .add(guest.getId());
+            }
+        }
+
+        private synchronized void remove(Long guestId) {
+            Entry entry = entries.remove(guestId);
+            if (entry == null) {
+                return;
+            }
+            Set<String> grams = grams(entry.firstName);
+            grams.addAll(grams(entry.lastName));
+            for (String gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(guestId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        private synchronized List<Guest> search(String name) {
+
+            // Narrow the candidates to the guests containing whichever
+            // trigram of the search string is rarest (ranking below then
+            // verifies the full match)
+            Collection<Long> candidates = null;
+            if (name.length() >= GRAM_LENGTH) {
+                for (String gram : grams(name)) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids == null) {
+                        return new ArrayList<>();
+                    }
+                    if ((candidates == null) || (ids.size() < candidates.size())) {
+                        candidates = ids;
+                    }
+                }
+            }
+            if (candidates == null) {
+                candidates = entries.keySet();
+            }
+
+            // Verify and rank the candidates
+            List<List<Entry>> ranked = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                ranked.add(new ArrayList<>());
+            }
+            for (Long candidate : candidates) {
+                Entry entry = entries.get(candidate);
+                int rank = entry.rank(name);
+                if (rank >= 0) {
+                    ranked.get(rank).add(entry);
+                }
+            }
+            List<Guest> results = new ArrayList<>();
+            for (List<Entry> matches : ranked) {
+                matches.sort(ORDER);
+                for (Entry match : matches) {
+                    results.add(match.guest);
+                }
+            }
+            return results;
+
+        }
+
+    }
+
+}
@@ -24,6 +24,7 @@ import org.craigmcc.library.shared.exception.NotUnique;
 
 import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
@@ -32,18 +33,23 @@ import javax.persistence.TypedQuery;
 import javax.validation.ConstraintViolationException;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.SEVERE;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.FIRST_NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_NAME;
+import static org.cityteam.guests.model.Constants.GUEST_NAME_INDEX;
 import static org.cityteam.guests.model.Constants.LAST_NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
 
 @LocalBean
+@Metered
 @Stateless
 public class GuestService extends ModelService<Guest> {
 
@@ -52,6 +58,18 @@ public class GuestService extends ModelService<Guest> {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private GuestNameIndexService guestNameIndexService;
+
+    @Inject
+    private OccupancyService occupancyService;
+
+    @Inject
+    private RegistrationSnapshotService registrationSnapshotService;
+
+    @Inject
+    private UnitOfWorkService unitOfWorkService;
+
     // Static Variables ------------------------------------------------------
 
     private static final Logger LOG =
@@ -67,8 +85,13 @@ public class GuestService extends ModelService<Guest> {
 
             Guest deleted = entityManager.find(Guest.class, guestId);
             if (deleted != null) {
+                // Registrations are removed by cascade, so discard cached
+                // state that includes them while it still names this guest
+                registrationSnapshotService.invalidateGuest(guestId);
+                occupancyService.evictGuest(guestId);
                 entityManager.remove(deleted);
                 deleted.setUpdated(LocalDateTime.now());
+                guestNameIndexService.deleted(deleted);
                 return deleted;
             }
 
@@ -147,12 +170,27 @@ public class GuestService extends ModelService<Guest> {
 
     }
 
+    /**
+     * <p>Return the {@link Guest}s for the specified facility whose first
+     * or last name contains <code>name</code> (case insensitive).  When the
+     * {@link GuestNameIndexService} is enabled, results are served from it
+     * and ranked by closeness of match, otherwise they are queried from the
+     * database and ordered by lastName and firstName.</p>
+     *
+     * @param facilityId ID of the facility for which to find guests
+     * @param name Name segment to match
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
     public @NotNull List<Guest> findByName
             (@NotNull Long facilityId, @NotNull String name)
             throws InternalServerError {
 
         try {
 
+            if (guestNameIndexService.isEnabled()) {
+                return guestNameIndexService.search(facilityId, name);
+            }
             TypedQuery<Guest> query = entityManager.createNamedQuery
                     (GUEST_NAME + ".findByName", Guest.class)
                     .setParameter(FACILITY_ID_COLUMN, facilityId)
@@ -168,6 +206,82 @@ public class GuestService extends ModelService<Guest> {
 
     }
 
+    /**
+     * <p>Return the next page of {@link Guest}s for the specified facility
+     * whose names match <code>name</code>, ordered by lastName and
+     * firstName, starting after the specified names.  Pass empty strings
+     * for <code>afterLastName</code> and <code>afterFirstName</code> to
+     * retrieve the first page, and the names of the last guest returned
+     * to retrieve each subsequent page.</p>
+     *
+     * <p>If <code>prefix</code> is <code>true</code>, only guests whose
+     * lastName starts with <code>name</code> (case sensitive) are matched,
+     * which allows the database to use the facility/lastName/firstName
+     * index.  Otherwise, guests whose firstName or lastName contain
+     * <code>name</code> anywhere (case insensitive) are matched, and when
+     * the {@link GuestNameIndexService} is enabled they are served from it
+     * and ranked by closeness of match (as for
+     * {@link #findByName(Long, String)}) instead.</p>
+     *
+     * @param facilityId ID of the facility for which to find guests
+     * @param name Name segment to match
+     * @param prefix Match only lastName prefixes?
+     * @param afterLastName Last name of the last guest already returned
+     * @param afterFirstName First name of the last guest already returned
+     * @param limit Maximum number of guests to return
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull List<Guest> findByNameKeyset
+            (@NotNull Long facilityId, @NotNull String name,
+             boolean prefix,
+             @NotNull String afterLastName, @NotNull String afterFirstName,
+             @NotNull Integer limit)
+            throws InternalServerError {
+
+        try {
+
+            if (!prefix && guestNameIndexService.isEnabled()) {
+                return guestNameIndexService.search(facilityId, name,
+                        afterLastName, afterFirstName, limit);
+            }
+            TypedQuery<Guest> query;
+            if (prefix) {
+                query = entityManager.createNamedQuery
+                        (GUEST_NAME + ".findByNamePrefixAfter", Guest.class)
+                        .setParameter(NAME_COLUMN, escapeLike(name) + "%");
+            } else {
+                query = entityManager.createNamedQuery
+                        (GUEST_NAME + ".findByNameAfter", Guest.class)
+                        .setParameter(NAME_COLUMN, name);
+            }
+            query.setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(LAST_NAME_COLUMN, afterLastName)
+                    .setParameter(FIRST_NAME_COLUMN, afterFirstName)
+                    .setMaxResults(limit);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findByNameKeyset(%d,%s,%b,%s,%s,%d): %s",
+                            facilityId, name, prefix, afterLastName,
+                            afterFirstName, limit, e.getMessage()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * <p>Return the specified page of the {@link Guest}s that
+     * {@link #findByName(Long, String)} would return.</p>
+     *
+     * @param facilityId ID of the facility for which to find guests
+     * @param name Name segment to match
+     * @param offset Zero-relative index of the first guest to return
+     * @param limit Maximum number of guests to return
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
     public @NotNull List<Guest> findByNamePaginated
             (@NotNull Long facilityId, @NotNull String name,
              @NotNull Integer offset, @NotNull Integer limit)
@@ -175,6 +289,13 @@ public class GuestService extends ModelService<Guest> {
 
         try {
 
+            if (guestNameIndexService.isEnabled()) {
+                List<Guest> guests =
+                        guestNameIndexService.search(facilityId, name);
+                return new ArrayList<>(guests.subList
+                        (Math.min(offset, guests.size()),
+                                Math.min(offset + limit, guests.size())));
+            }
             TypedQuery<Guest> query = entityManager.createNamedQuery
                     (GUEST_NAME + ".findByName", Guest.class)
                     .setParameter(FACILITY_ID_COLUMN, facilityId)
@@ -227,15 +348,12 @@ public class GuestService extends ModelService<Guest> {
 
         try {
 
-            // Check uniqueness constraint
-            try {
-                findByNameExact(guest.getFacilityId(),
-                        guest.getFirstName(), guest.getLastName());
+            // Uniqueness is enforced by the unique index when flushed, so
+            // only guests still pending in this unit of work are checked
+            if (findPendingDuplicate(guest).isPresent()) {
                 throw new NotUnique(String.format
                         ("name: Name '%s %s' is already in use within this facility",
                                 guest.getFirstName(), guest.getLastName()));
-            } catch (NotFound e) {
-                // Expected result if unique
             }
 
             // Perform the requested insert
@@ -243,13 +361,20 @@ public class GuestService extends ModelService<Guest> {
             guest.setPublished(LocalDateTime.now());
             guest.setUpdated(guest.getPublished());
             entityManager.persist(guest);
-            entityManager.flush();
+            unitOfWorkService.persisted(guest);
+            unitOfWorkService.flush(entityManager);
+            guestNameIndexService.inserted(guest);
 
         } catch (ConstraintViolationException e) {
             throw new BadRequest(formatMessage(e));
         } catch (NotUnique e) {
             throw e;
         } catch (PersistenceException e) {
+            if (UniqueIndexes.violated(e, GUEST_NAME_INDEX)) {
+                throw new NotUnique(String.format
+                        ("name: Name '%s %s' is already in use within this facility",
+                                guest.getFirstName(), guest.getLastName()));
+            }
             handlePersistenceException(e);
         } catch (Exception e) {
             LOG.log(SEVERE,
@@ -271,26 +396,24 @@ public class GuestService extends ModelService<Guest> {
         try {
 
             // Check uniqueness constraint
-            try {
-                Guest duplicate = findByNameExact(guest.getFacilityId(),
-                        guest.getFirstName(), guest.getLastName());
-                if (!guest.getId().equals(duplicate.getId())) {
-                    throw new NotUnique(String.format
-                            ("name: Name '%s %s' is already in use " +
-                                    "within this facility",
-                                    guest.getFirstName(), guest.getLastName()));
-                }
-                // Otherwise, updating something else on the current row
-            } catch (NotFound e) {
-                // Expected result if unique
+            Guest duplicate = findDuplicate(guest);
+            if ((duplicate != null) && !guestId.equals(duplicate.getId())) {
+                throw new NotUnique(String.format
+                        ("name: Name '%s %s' is already in use " +
+                                "within this facility",
+                                guest.getFirstName(), guest.getLastName()));
             }
+            // Otherwise, updating something else on the current row
 
             // Perform requested update
             original = find(guestId);
             original.copy(guest);
             original.setUpdated(LocalDateTime.now());
             entityManager.merge(original);
-            entityManager.flush();
+            unitOfWorkService.updated(original);
+            unitOfWorkService.flush(entityManager);
+            guestNameIndexService.updated(original);
+            registrationSnapshotService.invalidateGuest(guestId);
 
         } catch (ConstraintViolationException e) {
             throw new BadRequest(formatMessage(e));
@@ -309,4 +432,63 @@ public class GuestService extends ModelService<Guest> {
 
     }
 
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return another guest in the same facility with the same first and
+     * last names as the specified guest, or <code>null</code> if there is
+     * none.  Guests persisted or renamed in the current unit of work, but
+     * not flushed yet, are considered by their current names, and the
+     * lookup itself never forces a flush in write-behind mode.</p>
+     *
+     * @param guest Guest being inserted or updated
+     */
+    private Guest findDuplicate(Guest guest) {
+        Optional<Guest> pending = findPendingDuplicate(guest);
+        if (pending.isPresent()) {
+            return pending.get();
+        }
+        List<Guest> duplicates = entityManager.createNamedQuery
+                (GUEST_NAME + ".findByNameExact", Guest.class)
+                .setFlushMode(unitOfWorkService.flushMode())
+                .setParameter(FACILITY_ID_COLUMN, guest.getFacilityId())
+                .setParameter(FIRST_NAME_COLUMN, guest.getFirstName())
+                .setParameter(LAST_NAME_COLUMN, guest.getLastName())
+                .setMaxResults(1)
+                .getResultList();
+        // The match may be a managed guest renamed since the last flush
+        return duplicates.stream()
+                .filter(g -> Objects.equals(g.getFirstName(), guest.getFirstName()) &&
+                        Objects.equals(g.getLastName(), guest.getLastName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * <p>Return a guest with the same facility and name as the specified
+     * one that has been persisted or updated, but not yet flushed, in the
+     * current unit of work (if any).</p>
+     *
+     * @param guest Guest to be checked
+     */
+    private Optional<Guest> findPendingDuplicate(Guest guest) {
+        return unitOfWorkService.findPending(Guest.class,
+                g -> (g != guest) &&
+                        Objects.equals(g.getFacilityId(), guest.getFacilityId()) &&
+                        Objects.equals(g.getFirstName(), guest.getFirstName()) &&
+                        Objects.equals(g.getLastName(), guest.getLastName()));
+    }
+
+    /**
+     * <p>Escape the LIKE wildcard characters in the specified value, so
+     * that it matches literally.</p>
+     *
+     * @param value Value to be escaped
+     */
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * <p>Record the elapsed time, outcome, and number of rows returned for
+ * each call to a {@link Metered} service method.</p>
+ */
+@Interceptor
+@Metered
+@Priority(Interceptor.Priority.APPLICATION)
+public class MeteredInterceptor {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Inject
+    private MetricsService metricsService;
+
+    // Interceptor Methods ---------------------------------------------------
+
+    @AroundInvoke
+    public Object meter(InvocationContext context) throws Exception {
+        long start = System.nanoTime();
+        try {
+            Object result = context.proceed();
+            metricsService.record(context.getMethod(),
+                    System.nanoTime() - start, result, null);
+            return result;
+        } catch (Exception e) {
+            metricsService.record(context.getMethod(),
+                    System.nanoTime() - start, null, e);
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Per-method call counts, latency histograms, error counts (by exception
+ * type), and returned row counts for {@link Metered} services, rendered in
+ * the Prometheus text exposition format.</p>
+ *
+ * <p>This is a plain CDI bean rather than an EJB, so that recording a call
+ * does not itself incur a container invocation.</p>
+ */
+@ApplicationScoped
+public class MetricsService {
+
+    // Instance Variables ----------------------------------------------------
+
+    /**
+     * <p>Metrics for each method that has been called, keyed by method.
+     * Overloaded methods share the same metrics.</p>
+     */
+    private final Map<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Metrics for each method that has been called, keyed by
+     * "service.method".</p>
+     */
+    private final Map<String, MethodMetrics> names = new ConcurrentHashMap<>();
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Upper bounds (in seconds) of the latency histogram buckets.</p>
+     */
+    static final double[] BUCKETS =
+            { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5 };
+
+    /**
+     * <p>Bucket upper bounds formatted as "le" label values.</p>
+     */
+    private static final String[] BUCKET_LABELS = new String[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_LABELS[i] = ",le=\"" +
+                    BigDecimal.valueOf(BUCKETS[i]).toPlainString() + "\"";
+        }
+    }
+
+    private static final String PREFIX = "guests_service_";
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Discard all recorded metrics.</p>
+     */
+    public void clear() {
+        methods.clear();
+        names.clear();
+    }
+
+    /**
+     * <p>Return the number of calls recorded for the specified service and
+     * method name, or zero if there were none.</p>
+     *
+     * @param service Simple name of the service class
+     * @param method Name of the method
+     */
+    public long count(@NotNull String service, @NotNull String method) {
+        MethodMetrics metrics = names.get(service + "." + method);
+        return (metrics != null) ? metrics.count.sum() : 0;
+    }
+
+    /**
+     * <p>Return the number of calls to the specified service and method name
+     * that threw the specified exception type, or zero if there were none.</p>
+     *
+     * @param service Simple name of the service class
+     * @param method Name of the method
+     * @param exception Simple name of the exception class
+     */
+    public long errors(@NotNull String service, @NotNull String method,
+                       @NotNull String exception) {
+        MethodMetrics metrics = names.get(service + "." + method);
+        LongAdder errors = (metrics != null) ? metrics.errors.get(exception) : null;
+        return (errors != null) ? errors.sum() : 0;
+    }
+
+    /**
+     * <p>Return all recorded metrics in the Prometheus text exposition
+     * format (version 0.0.4).</p>
+     */
+    public @NotNull String prometheus() {
+
+        List<MethodMetrics> sorteds = new ArrayList<>(names.values());
+        sorteds.sort(Comparator.comparing((MethodMetrics m) -> m.service)
+                .thenComparing(m -> m.method));
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "calls_seconds", "histogram",
+                "Elapsed time of service method calls.");
+        for (MethodMetrics metrics : sorteds) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += metrics.buckets[i].sum();
+                sample(sb, "calls_seconds_bucket", metrics,
+                        BUCKET_LABELS[i], cumulative);
+            }
+            long count = metrics.count.sum();
+            sample(sb, "calls_seconds_bucket", metrics, ",le=\"+Inf\"", count);
+            sample(sb, "calls_seconds_sum", metrics, "",
+                    metrics.nanos.sum() / 1.0e9);
+            sample(sb, "calls_seconds_count", metrics, "", count);
+        }
+
+        header(sb, "errors_total", "counter",
+                "Service method calls that threw an exception, by type.");
+        for (MethodMetrics metrics : sorteds) {
+            for (Map.Entry<String, LongAdder> entry :
+                    new TreeMap<>(metrics.errors).entrySet()) {
+                sample(sb, "errors_total", metrics,
+                        ",exception=\"" + entry.getKey() + "\"",
+                        entry.getValue().sum());
+            }
+        }
+
+        header(sb, "rows_total", "counter",
+                "Rows returned by service method calls.");
+        for (MethodMetrics metrics : sorteds) {
+            sample(sb, "rows_total", metrics, "", metrics.rows.sum());
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * <p>Record the outcome of a single call.</p>
+     *
+     * @param method Method that was called
+     * @param nanos Elapsed time of the call, in nanoseconds
+     * @param result Value returned by the call (if any)
+     * @param error Exception thrown by the call (if any)
+     */
+    public void record(@NotNull Method method, long nanos,
+                       Object result, Exception error) {
+        MethodMetrics metrics = methods.computeIfAbsent(method,
+                m -> names.computeIfAbsent(
+                        m.getDeclaringClass().getSimpleName() + "." + m.getName(),
+                        k -> new MethodMetrics(m)));
+        metrics.count.increment();
+        metrics.nanos.add(nanos);
+        double seconds = nanos / 1.0e9;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (seconds <= BUCKETS[i]) {
+                metrics.buckets[i].increment();
+                break;
+            }
+        }
+        if (error != null) {
+            metrics.errors.computeIfAbsent(error.getClass().getSimpleName(),
+                    k -> new LongAdder()).increment();
+        } else {
+            metrics.rows.add(rows(result));
+        }
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    private static void header(StringBuilder sb, String name,
+                               String type, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name)
+                .append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name)
+                .append(' ').append(type).append('\n');
+    }
+
+    /**
+     * <p>Return the number of rows represented by the specified result.</p>
+     *
+     * @param result Value returned by a service method
+     */
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        } else if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else {
+            return 1;
+        }
+    }
+
+    private static void sample(StringBuilder sb, String name,
+                               MethodMetrics metrics, String labels,
+                               Object value) {
+        sb.append(PREFIX).append(name)
+                .append("{service=\"").append(metrics.service)
+                .append("\",method=\"").append(metrics.method).append('"')
+                .append(labels).append("} ").append(value).append('\n');
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Metrics for a single service method.</p>
+     */
+    private static final class MethodMetrics {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final String method;
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final String service;
+
+        private MethodMetrics(Method method) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            this.method = method.getName();
+            this.service = method.getDeclaringClass().getSimpleName();
+        }
+
+    }
+
+}
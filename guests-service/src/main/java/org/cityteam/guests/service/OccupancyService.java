@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.model.Guest;
+import org.cityteam.guests.model.Registration;
+
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+
+/**
+ * <p>In-memory index of which {@link Guest} occupies which mat, for each
+ * facility and registration date, so that duplicate assignment checks in
+ * {@link RegistrationService} do not need to load every {@link Registration}
+ * for the date.</p>
+ *
+ * <p>The occupancy for a particular facility and registration date is
+ * either <em>warm</em> (known to exactly mirror the assigned registrations
+ * for that date) or <em>cold</em> (not tracked at all), in which case callers
+ * must fall back to a database query.  Occupancy becomes warm only when
+ * registrations for a date are generated from scratch, and reverts to cold
+ * when the date is deleted, when a transaction that changed it is rolled
+ * back, or when too many dates are being tracked.</p>
+ */
+@ConcurrencyManagement(BEAN)
+@LocalBean
+@Singleton
+public class OccupancyService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    /**
+     * <p>Warm occupancies, ordered by registration date so that the
+     * oldest dates can be discarded first.  Each occupancy maps
+     * guestId to matNumber.</p>
+     */
+    private final ConcurrentNavigableMap<FacilityDateKey, Map<Long, Integer>>
+            occupancies = new ConcurrentSkipListMap<>();
+
+    // Static Variables ------------------------------------------------------
+
+    private static final Logger LOG =
+            Logger.getLogger(OccupancyService.class.getSimpleName());
+
+    /**
+     * <p>Maximum number of facility and registration date combinations
+     * that will be tracked at any one time.</p>
+     */
+    static final int MAX_OCCUPANCIES = 100;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Record that the specified guest has been assigned to the specified
+     * mat.  This is a no-op if the occupancy for this facility and
+     * registration date is cold.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     * @param guestId ID of the guest that was assigned
+     * @param matNumber Mat number the guest was assigned to
+     */
+    public void assigned(@NotNull Long facilityId,
+                         @NotNull LocalDate registrationDate,
+                         @NotNull Long guestId,
+                         @NotNull Integer matNumber) {
+        FacilityDateKey key = new FacilityDateKey(facilityId, registrationDate);
+        Map<Long, Integer> occupancy = occupancies.get(key);
+        if (occupancy != null) {
+            enlist(key);
+            occupancy.put(guestId, matNumber);
+        }
+    }
+
+    /**
+     * <p>Discard all occupancies, reverting every facility and registration
+     * date to cold.</p>
+     */
+    public void clear() {
+        occupancies.clear();
+    }
+
+    /**
+     * <p>Record that the specified guest is no longer assigned to any mat.
+     * This is a no-op if the occupancy for this facility and registration
+     * date is cold.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     * @param guestId ID of the guest that was deassigned
+     */
+    public void deassigned(@NotNull Long facilityId,
+                           @NotNull LocalDate registrationDate,
+                           @NotNull Long guestId) {
+        FacilityDateKey key = new FacilityDateKey(facilityId, registrationDate);
+        Map<Long, Integer> occupancy = occupancies.get(key);
+        if (occupancy != null) {
+            enlist(key);
+            occupancy.remove(guestId);
+        }
+    }
+
+    /**
+     * <p>Revert the occupancy for the specified facility and registration
+     * date to cold.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     */
+    public void evict(@NotNull Long facilityId,
+                      @NotNull LocalDate registrationDate) {
+        occupancies.remove(new FacilityDateKey(facilityId, registrationDate));
+    }
+
+    /**
+     * <p>Revert every occupancy for the specified facility to cold, both
+     * immediately and after the current transaction (if any) commits,
+     * such as when that facility has been deleted.</p>
+     *
+     * @param facilityId ID of the facility
+     */
+    public void evictFacility(@NotNull Long facilityId) {
+        occupancies.keySet().removeIf(key -> key.hasFacilityId(facilityId));
+        CacheSupport.afterCommit(registry, () -> occupancies.keySet()
+                .removeIf(key -> key.hasFacilityId(facilityId)));
+    }
+
+    /**
+     * <p>Revert every occupancy that includes the specified guest to cold,
+     * such as when that guest (and therefore their registrations) has
+     * been deleted.</p>
+     *
+     * @param guestId ID of the guest
+     */
+    public void evictGuest(@NotNull Long guestId) {
+        occupancies.values().removeIf
+                (occupancy -> occupancy.containsKey(guestId));
+    }
+
+    /**
+     * <p>Return a read-only view of the occupancy (guestId to matNumber)
+     * for the specified facility and registration date, or
+     * <code>null</code> if this occupancy is cold.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     */
+    public Map<Long, Integer> occupancy(@NotNull Long facilityId,
+                                        @NotNull LocalDate registrationDate) {
+        Map<Long, Integer> occupancy =
+                occupancies.get(new FacilityDateKey(facilityId, registrationDate));
+        return (occupancy != null)
+                ? Collections.unmodifiableMap(occupancy) : null;
+    }
+
+    /**
+     * <p>Start tracking an empty occupancy for the specified facility and
+     * registration date.  Callers must only do this when they know that
+     * no registrations for this date are currently assigned.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     */
+    public void warm(@NotNull Long facilityId,
+                     @NotNull LocalDate registrationDate) {
+        FacilityDateKey key = new FacilityDateKey(facilityId, registrationDate);
+        enlist(key);
+        occupancies.put(key, new ConcurrentHashMap<>());
+        while (occupancies.size() > MAX_OCCUPANCIES) {
+            Map.Entry<FacilityDateKey, Map<Long, Integer>> oldest =
+                    occupancies.pollFirstEntry();
+            if (oldest != null) {
+                LOG.fine(String.format("Discarding occupancy for %s",
+                        oldest.getKey()));
+            }
+        }
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Arrange for the specified occupancy to revert to cold if the
+     * current transaction (if any) does not commit.</p>
+     *
+     * @param key Key of the occupancy being changed
+     */
+    @SuppressWarnings("unchecked")
+    private void enlist(FacilityDateKey key) {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            return;
+        }
+        Set<FacilityDateKey> keys =
+                (Set<FacilityDateKey>) registry.getResource(OccupancyService.class);
+        if (keys == null) {
+            Set<FacilityDateKey> enlisteds =
+                    Collections.newSetFromMap(new ConcurrentHashMap<>());
+            registry.putResource(OccupancyService.class, enlisteds);
+            CacheSupport.afterRollback(registry, () -> {
+                for (FacilityDateKey enlisted : new HashSet<>(enlisteds)) {
+                    occupancies.remove(enlisted);
+                }
+            });
+            keys = enlisteds;
+        }
+        keys.add(key);
+    }
+
+}
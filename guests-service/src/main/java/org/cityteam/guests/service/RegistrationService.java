@@ -19,6 +19,8 @@ import org.cityteam.guests.action.Assign;
 import org.cityteam.guests.action.ImportRequest;
 import org.cityteam.guests.action.ImportProblem;
 import org.cityteam.guests.action.ImportResults;
+import org.cityteam.guests.action.RegistrationChange;
+import org.cityteam.guests.action.RegistrationSummary;
 import org.cityteam.guests.model.Facility;
 import org.cityteam.guests.model.Guest;
 import org.cityteam.guests.model.Registration;
@@ -28,11 +30,16 @@ import org.craigmcc.library.shared.exception.InternalServerError;
 import org.craigmcc.library.shared.exception.NotFound;
 import org.craigmcc.library.shared.exception.NotUnique;
 
+import javax.annotation.Resource;
 import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
 import javax.persistence.Query;
@@ -42,25 +49,45 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.SEVERE;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static javax.ejb.TransactionAttributeType.REQUIRES_NEW;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.FACILITY_NAME;
+import static org.cityteam.guests.model.Constants.FROM_DATE_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.GUEST_NAME;
 import static org.cityteam.guests.model.Constants.MAT_NUMBER_COLUMN;
+import static org.cityteam.guests.model.Constants.MAT_NUMBERS_COLUMN;
 import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATION_GUEST_INDEX;
+import static org.cityteam.guests.model.Constants.REGISTRATION_MAT_INDEX;
 import static org.cityteam.guests.model.Constants.REGISTRATION_NAME;
+import static org.cityteam.guests.model.Constants.TO_DATE_COLUMN;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
+import static org.craigmcc.library.model.Constants.UPDATED_COLUMN;
 
 @LocalBean
+@Metered
 @Stateless
 public class RegistrationService extends ModelService<Registration> {
 
     // Instance Variables ----------------------------------------------------
 
+    @Inject
+    private BanIndexService banIndexService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -70,11 +97,38 @@ public class RegistrationService extends ModelService<Registration> {
     @Inject
     private GuestService guestService;
 
+    @Inject
+    private OccupancyService occupancyService;
+
+    /**
+     * <p>Fired for each assign and deassign, and once per facility and
+     * registration date for bulk changes (deassign, delete, import, and
+     * generation over a date range).  Observers that only want committed
+     * changes should observe <code>AFTER_SUCCESS</code>.</p>
+     */
+    @Inject
+    private Event<RegistrationChange> registrationChanges;
+
+    @Inject
+    private RegistrationSnapshotService registrationSnapshotService;
+
+    @Resource
+    private SessionContext sessionContext;
+
+    @Inject
+    private UnitOfWorkService unitOfWorkService;
+
     // Static Variables ------------------------------------------------------
 
     private static final Logger LOG =
             Logger.getLogger(RegistrationService.class.getName());
 
+    /**
+     * <p>Maximum number of times an assignment will be attempted when it
+     * conflicts with concurrent changes.</p>
+     */
+    static final int MAX_ASSIGN_ATTEMPTS = 5;
+
     // Public Methods --------------------------------------------------------
 
     /**
@@ -86,6 +140,14 @@ public class RegistrationService extends ModelService<Registration> {
      * <p>It is legal to reassign a registration to the same guest,
      * to allow updating of the other fields.</p>
      *
+     * <p>Concurrent assignments are safe:  if another desk changes this
+     * registration, or assigns this guest elsewhere, between our read and
+     * our write, the attempt is rolled back and retried (up to
+     * {@link #MAX_ASSIGN_ATTEMPTS} times), at which point the usual
+     * checks report the conflict.  Each attempt runs in a transaction of
+     * its own, so this method does not run in (and suspends) any caller's
+     * transaction, which would otherwise stay open across the retries.</p>
+     *
      * @param registrationId ID of the registration to be assigned
      * @param assign Object containing assignment details
      *
@@ -93,16 +155,62 @@ public class RegistrationService extends ModelService<Registration> {
      *
      * @throws BadRequest Specified guest is specified or is not associated
      *                    with the same facility as this registration, or
+     *                    is banned on this registration date, or
      *                    the specified registration is already assigned
      * @throws NotFound Specified guest or registration cannot be found
      * @throws NotUnique If this guest is already assigned to a different
-     *                   mat on this registration date
+     *                   mat on this registration date, or conflicts
+     *                   persisted on every attempt
      * @throws InternalServerError A server side error has occurred
      */
+    @TransactionAttribute(NOT_SUPPORTED)
     public Registration assign(@NotNull Long registrationId,
                                @NotNull Assign assign)
         throws BadRequest, InternalServerError, NotFound, NotUnique {
 
+        RegistrationService self =
+                sessionContext.getBusinessObject(RegistrationService.class);
+        for (int attempt = 1; attempt <= MAX_ASSIGN_ATTEMPTS; attempt++) {
+            Registration registration =
+                    self.assignAttempt(registrationId, assign);
+            if (registration != null) {
+                return registration;
+            }
+            LOG.fine(String.format("assign(%d,%s): Conflict on attempt %d",
+                    registrationId, assign, attempt));
+        }
+        throw new NotUnique(String.format
+                ("registrationId: Registration %d is being changed " +
+                        "concurrently, try again", registrationId));
+
+    }
+
+    /**
+     * <p>Make a single attempt to perform {@link #assign(Long, Assign)}, in
+     * a transaction of its own.  If another transaction changed the same
+     * registration (detected by its version), or assigned the same guest
+     * to another mat on this date (detected by the unique index), after
+     * it was read here, this transaction is rolled back and
+     * <code>null</code> is returned so that the caller can try again
+     * against the committed state.  Only {@link #assign(Long, Assign)}
+     * should call this method.</p>
+     *
+     * @param registrationId ID of the registration to be assigned
+     * @param assign Object containing assignment details
+     *
+     * @return The updated {@link Registration}, or <code>null</code>
+     *         if a conflicting change was detected
+     *
+     * @throws BadRequest See {@link #assign(Long, Assign)}
+     * @throws NotFound See {@link #assign(Long, Assign)}
+     * @throws NotUnique See {@link #assign(Long, Assign)}
+     * @throws InternalServerError A server side error has occurred
+     */
+    @TransactionAttribute(REQUIRES_NEW)
+    public Registration assignAttempt(@NotNull Long registrationId,
+                                      @NotNull Assign assign)
+        throws BadRequest, InternalServerError, NotFound, NotUnique {
+
         try {
 
             // Look up the specified registration and verify unassigned
@@ -115,7 +223,7 @@ public class RegistrationService extends ModelService<Registration> {
             // Verify that this registration is unassigned, or is already
             // assigned to the specified guest (to allow info updates)
             if ((registration.getGuestId() != null) &&
-                    (registration.getGuestId() != assign.getGuestId())) {
+                    !registration.getGuestId().equals(assign.getGuestId())) {
                 throw new BadRequest(String.format
                         ("registrationId: Registration %d is assigned to someone else",
                                 registrationId));
@@ -133,19 +241,25 @@ public class RegistrationService extends ModelService<Registration> {
                             ("guestId: Guest %d does not belong to facility %d",
                                     guest.getId(), registration.getId()));
                 }
+
+                // Verify that the guest is not banned on this date
+                LocalDate bannedThrough = banIndexService.bannedThrough
+                        (registration.getFacilityId(), guest.getId(),
+                                registration.getRegistrationDate());
+                if (bannedThrough != null) {
+                    throw new BadRequest(String.format
+                            ("guestId: Guest %d is banned through %s",
+                                    guest.getId(), bannedThrough));
+                }
             }
 
             // Check for another assignment for this guest on this date
-            List<Registration> existings =
-                    findByFacilityAndDate(registration.getFacilityId(),
-                            registration.getRegistrationDate());
-            for (Registration existing : existings) {
-                if ((existing.getGuestId() == assign.getGuestId()) &&
-                        (existing.getId() != registration.getId())) {
-                    throw new NotUnique(String.format
-                            ("guestId: Guest %d is already assigned to mat %d",
-                                    existing.getGuestId(), existing.getMatNumber()));
-                }
+            Integer otherMatNumber =
+                    findOtherMatNumber(registration, assign.getGuestId());
+            if (otherMatNumber != null) {
+                throw new NotUnique(String.format
+                        ("guestId: Guest %d is already assigned to mat %d",
+                                assign.getGuestId(), otherMatNumber));
             }
 
             // Update the assignment information and persist
@@ -157,7 +271,27 @@ public class RegistrationService extends ModelService<Registration> {
             registration.setWakeupTime(assign.getWakeupTime());
             registration.setUpdated(LocalDateTime.now());
             entityManager.merge(registration);
-            entityManager.flush();
+            try {
+                // Always flush (even in write-behind mode), because
+                // conflicts must be detected within this attempt
+                entityManager.flush();
+            } catch (OptimisticLockException e) {
+                sessionContext.setRollbackOnly();
+                return null;
+            } catch (PersistenceException e) {
+                if (UniqueIndexes.violated(e, REGISTRATION_GUEST_INDEX)) {
+                    sessionContext.setRollbackOnly();
+                    return null;
+                }
+                throw e;
+            }
+            occupancyService.assigned(registration.getFacilityId(),
+                    registration.getRegistrationDate(),
+                    registration.getGuestId(),
+                    registration.getMatNumber());
+            registrationSnapshotService.invalidate(registration.getFacilityId(),
+                    registration.getRegistrationDate());
+            registrationChanges.fire(new RegistrationChange(registration));
             return registration;
 
         } catch (BadRequest e) {
@@ -170,7 +304,7 @@ public class RegistrationService extends ModelService<Registration> {
                             registrationId));
         } catch (Exception e) {
             LOG.log(SEVERE,
-                    String.format("assign(%d,%s): %s,",
+                    String.format("assignAttempt(%d,%s): %s,",
                             registrationId, assign, e.getMessage()), e);
             throw new InternalServerError(e.getMessage(), e);
         }
@@ -207,6 +341,7 @@ public class RegistrationService extends ModelService<Registration> {
             }
 
             // Erase the assignment information and persist
+            Long guestId = registration.getGuestId();
             registration.setComments(null);
             registration.setGuestId(null);
             registration.setPaymentAmount(null);
@@ -215,7 +350,12 @@ public class RegistrationService extends ModelService<Registration> {
             registration.setWakeupTime(null);
             registration.setUpdated(LocalDateTime.now());
             entityManager.merge(registration);
-            entityManager.flush();
+            unitOfWorkService.flush(entityManager);
+            occupancyService.deassigned(registration.getFacilityId(),
+                    registration.getRegistrationDate(), guestId);
+            registrationSnapshotService.invalidate(registration.getFacilityId(),
+                    registration.getRegistrationDate());
+            registrationChanges.fire(new RegistrationChange(registration));
             return registration;
 
         } catch (BadRequest e) {
@@ -233,17 +373,90 @@ public class RegistrationService extends ModelService<Registration> {
 
     }
 
+    /**
+     * <p>Deassign all currently assigned {@link Registration}s for the
+     * specified facility and registration date (optionally restricted to
+     * the specified mat numbers), as a single bulk update rather than one
+     * {@link #deassign(Long)} per mat.  Assignment details are erased and
+     * the <code>updated</code> timestamp is set on each affected
+     * registration, exactly as {@link #deassign(Long)} would do, and the
+     * version of each is incremented so that concurrent assignments of
+     * the same mats are detected.</p>
+     *
+     * <p>Because a bulk update bypasses the persistence context, pending
+     * changes are flushed first, and registrations already loaded in the
+     * current transaction are not refreshed.</p>
+     *
+     * @param facilityId ID of the facility for which to deassign
+     *                   registrations
+     * @param registrationDate Registration date for which to deassign
+     *                         registrations
+     * @param matNumbers Mat numbers to deassign (or empty for all mats)
+     *
+     * @return Number of registrations that were deassigned
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public int deassignByFacilityAndDate(
+            @NotNull Long facilityId,
+            @NotNull LocalDate registrationDate,
+            @NotNull List<Integer> matNumbers)
+        throws InternalServerError {
+
+        try {
+
+            entityManager.flush();
+            Query query = matNumbers.isEmpty()
+                    ? entityManager.createNamedQuery
+                            (REGISTRATION_NAME + ".deassignByFacilityAndDate")
+                    : entityManager.createNamedQuery
+                            (REGISTRATION_NAME + ".deassignByFacilityAndDateAndMats")
+                            .setParameter(MAT_NUMBERS_COLUMN, matNumbers);
+            int count = query
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(REGISTRATION_DATE_COLUMN, registrationDate)
+                    .setParameter(UPDATED_COLUMN, LocalDateTime.now())
+                    .executeUpdate();
+            if (count > 0) {
+                occupancyService.evict(facilityId, registrationDate);
+                registrationSnapshotService.invalidate(facilityId,
+                        registrationDate);
+                registrationChanges.fire(new RegistrationChange
+                        (facilityId, registrationDate));
+            }
+            return count;
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("deassignByFacilityAndDate(%d, %s, %s)",
+                            facilityId, registrationDate, matNumbers), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
     @Override
     public Registration delete(@NotNull Long registrationId)
             throws InternalServerError, NotFound {
 
         try {
 
-            Registration deleted =
-                    entityManager.find(Registration.class, registrationId);
+            // Fetch the guest eagerly, since the result is returned to callers
+            List<Registration> results = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findById", Registration.class)
+                    .setParameter(ID_COLUMN, registrationId)
+                    .getResultList();
+            Registration deleted = results.isEmpty() ? null : results.get(0);
             if (deleted != null) {
                 entityManager.remove(deleted);
                 deleted.setUpdated(LocalDateTime.now());
+                if (deleted.getGuestId() != null) {
+                    occupancyService.deassigned(deleted.getFacilityId(),
+                            deleted.getRegistrationDate(),
+                            deleted.getGuestId());
+                }
+                registrationSnapshotService.invalidate(deleted.getFacilityId(),
+                        deleted.getRegistrationDate());
                 return deleted;
             }
 
@@ -318,6 +531,10 @@ public class RegistrationService extends ModelService<Registration> {
                         registrations.size() +
                         " registrations but only deleted " + deletedCount);
             }
+            occupancyService.evict(facilityId, registrationDate);
+            registrationSnapshotService.invalidate(facilityId, registrationDate);
+            registrationChanges.fire(new RegistrationChange
+                    (facilityId, registrationDate));
             return registrations;
 
         } catch (BadRequest|InternalServerError|NotFound e) {
@@ -399,6 +616,60 @@ public class RegistrationService extends ModelService<Registration> {
 
     }
 
+    /**
+     * <p>Return the next page of {@link Registration}s for the specified
+     * facility, up to and including <code>toDate</code>, that sort after
+     * the specified registration date and mat number.  Results are ordered
+     * by registrationDate and matNumber, so the last registration of one
+     * page supplies <code>afterDate</code> and <code>afterMatNumber</code>
+     * for the next.  To start at <code>fromDate</code>, pass the day before
+     * <code>fromDate</code> and <code>Integer.MAX_VALUE</code>.</p>
+     *
+     * <p>Unlike offset based pagination, the cost of retrieving each page
+     * does not grow with the number of rows already returned, and rows
+     * are not skipped or repeated if registrations are inserted or
+     * deleted between pages.</p>
+     *
+     * @param facilityId ID of the facility for which to find registrations
+     * @param toDate Last registration date (inclusive) to return
+     * @param afterDate Registration date of the last row already returned
+     * @param afterMatNumber Mat number of the last row already returned
+     * @param limit Maximum number of registrations to return
+     *
+     * @return The next page of registrations (empty when there are no more)
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull List<Registration> findByFacilityAndDateRange(
+            @NotNull Long facilityId,
+            @NotNull LocalDate toDate,
+            @NotNull LocalDate afterDate,
+            @NotNull Integer afterMatNumber,
+            @NotNull Integer limit)
+        throws InternalServerError {
+
+        try {
+
+            TypedQuery<Registration> query = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findByFacilityAndDateRangeAfter",
+                            Registration.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(TO_DATE_COLUMN, toDate)
+                    .setParameter(REGISTRATION_DATE_COLUMN, afterDate)
+                    .setParameter(MAT_NUMBER_COLUMN, afterMatNumber)
+                    .setMaxResults(limit);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findByFacilityAndDateRange(%d, %s, %s, %d, %d)",
+                            facilityId, toDate, afterDate,
+                            afterMatNumber, limit), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
     public @NotNull List<Registration> findByGuestId(
             @NotNull Long guestId)
         throws InternalServerError {
@@ -419,6 +690,178 @@ public class RegistrationService extends ModelService<Registration> {
 
     }
 
+    /**
+     * <p>Return the current snapshot of the {@link Registration}s for the
+     * specified facility and registration date, ordered by matNumber.
+     * Unchanged snapshots are served from memory, and carry a tag that
+     * changes whenever any of these registrations change.</p>
+     *
+     * @param facilityId ID of the facility for which to find registrations
+     * @param registrationDate Registration date for which to find
+     *                         registrations
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull RegistrationSnapshotService.Snapshot
+            findSnapshotByFacilityAndDate(
+            @NotNull Long facilityId, @NotNull LocalDate registrationDate)
+            throws InternalServerError {
+
+        try {
+            return registrationSnapshotService.snapshot
+                    (facilityId, registrationDate);
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findSnapshotByFacilityAndDate(%d, %s)",
+                            facilityId, registrationDate.toString()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * <p>Return lightweight summaries of the {@link Registration}s for the
+     * specified facility and registration date, ordered by matNumber.  Only
+     * the name of each assigned {@link Guest} is included, so the guest is
+     * joined in the same query rather than loaded as an entity.</p>
+     *
+     * @param facilityId ID of the facility for which to find registrations
+     * @param registrationDate Registration date for which to find
+     *                         registrations
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull List<RegistrationSummary> findSummariesByFacilityAndDate(
+            @NotNull Long facilityId, @NotNull LocalDate registrationDate)
+        throws InternalServerError {
+
+        try {
+
+            TypedQuery<RegistrationSummary> query = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findSummariesByFacilityAndDate",
+                            RegistrationSummary.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(REGISTRATION_DATE_COLUMN,
+                            registrationDate);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findSummariesByFacilityAndDate(%d, %s)",
+                            facilityId, registrationDate.toString()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * <p>Return the next page of lightweight summaries of the
+     * {@link Registration}s for the specified facility, up to and including
+     * <code>toDate</code>, that sort after the specified registration date
+     * and mat number.  Paging works exactly as it does for
+     * {@link #findByFacilityAndDateRange(Long, LocalDate, LocalDate,
+     * Integer, Integer)}.</p>
+     *
+     * @param facilityId ID of the facility for which to find registrations
+     * @param toDate Last registration date (inclusive) to return
+     * @param afterDate Registration date of the last row already returned
+     * @param afterMatNumber Mat number of the last row already returned
+     * @param limit Maximum number of summaries to return
+     *
+     * @return The next page of summaries (empty when there are no more)
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull List<RegistrationSummary> findSummariesByFacilityAndDateRange(
+            @NotNull Long facilityId,
+            @NotNull LocalDate toDate,
+            @NotNull LocalDate afterDate,
+            @NotNull Integer afterMatNumber,
+            @NotNull Integer limit)
+        throws InternalServerError {
+
+        try {
+
+            TypedQuery<RegistrationSummary> query = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findSummariesByFacilityAndDateRangeAfter",
+                            RegistrationSummary.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(TO_DATE_COLUMN, toDate)
+                    .setParameter(REGISTRATION_DATE_COLUMN, afterDate)
+                    .setParameter(MAT_NUMBER_COLUMN, afterMatNumber)
+                    .setMaxResults(limit);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findSummariesByFacilityAndDateRange(%d, %s, %s, %d, %d)",
+                            facilityId, toDate, afterDate,
+                            afterMatNumber, limit), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * <p>Return lightweight summaries of the {@link Registration}s for the
+     * specified guest, ordered by registrationDate.</p>
+     *
+     * @param guestId ID of the guest for which to find registrations
+     *
+     * @throws InternalServerError A server side error has occurred
+     */
+    public @NotNull List<RegistrationSummary> findSummariesByGuestId(
+            @NotNull Long guestId)
+        throws InternalServerError {
+
+        try {
+
+            TypedQuery<RegistrationSummary> query = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findSummariesByGuestId",
+                            RegistrationSummary.class)
+                    .setParameter(GUEST_ID_COLUMN, guestId);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("findSummariesByGuestId(%d)", guestId), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * <p>Import historical registration information for the specified
+     * facility and registration date, creating {@link Guest}s as needed.
+     * If a guest would be assigned to more than one mat on this date, the
+     * later mat is left unassigned and an {@link ImportProblem} is
+     * reported for it.  The same happens if the guest is banned on this
+     * date.</p>
+     *
+     * <p>The facility's existing guests and the existing registrations for
+     * this date are each loaded once up front, so guest resolution and
+     * duplicate checks are in-memory lookups.  New guests are inserted with
+     * {@link GuestService#insert(Guest)}, so they are validated exactly as
+     * any other new guest would be.  The whole import runs as a single
+     * {@link UnitOfWorkService} unit of work, so new guests and
+     * registrations are flushed once at the end (in JDBC batches), and the
+     * number of statements does not grow with the number of import
+     * requests.  The exception is a new guest whose ID is not generated
+     * until it is inserted, which is flushed right away so that it can be
+     * assigned (and looked up in the ban index) by ID.</p>
+     *
+     * @param facilityId ID of the facility to import into
+     * @param registrationDate Registration date to import into
+     * @param importRequests Registrations (and optional guests) to import
+     *
+     * @return Inserted registrations and any problems that were found
+     *
+     * @throws BadRequest If an import request fails validation
+     * @throws InternalServerError A server side error has occurred
+     * @throws NotFound If the specified facility cannot be found
+     * @throws NotUnique If a mat number already exists for this date, or
+     *                   is included more than once
+     */
     public @NotNull ImportResults importByFacilityAndDate(
             @NotNull Long facilityId,
             @NotNull LocalDate registrationDate,
@@ -430,34 +873,53 @@ public class RegistrationService extends ModelService<Registration> {
             facilityService.find(facilityId);
             List<ImportProblem> problems = new ArrayList<>();
             List<Registration> registrations = new ArrayList<>();
+            LocalDateTime published = LocalDateTime.now();
+            unitOfWorkService.begin();
+
+            // Index this facility's existing guests by name
+            Map<List<String>, Guest> guests = new HashMap<>();
+            for (Guest guest : guestService.findByFacilityId(facilityId)) {
+                guests.put(guestKey(guest.getFirstName(),
+                        guest.getLastName()), guest);
+            }
+
+            // Look up this date's banned guests once, since guests
+            // created by this import cannot be banned
+            Map<Long, LocalDate> bannedGuests = banIndexService.bannedThrough
+                    (facilityId, registrationDate, Collections.emptyList());
+
+            // Index this date's existing mats and guest assignments
+            Set<Integer> matNumbers = new HashSet<>();
+            Map<Long, Integer> guestMatNumbers = new HashMap<>();
+            for (Registration existing :
+                    findByFacilityAndDate(facilityId, registrationDate)) {
+                matNumbers.add(existing.getMatNumber());
+                if (existing.getGuestId() != null) {
+                    guestMatNumbers.put(existing.getGuestId(),
+                            existing.getMatNumber());
+                }
+            }
 
             for (ImportRequest importRequest : importRequests) {
 
                 // Create an unassigned registration
-                Registration registration = new Registration(
-                        facilityId,
-                        importRequest.getFeatures(),
-                        importRequest.getMatNumber(),
-                        registrationDate
-                );
-                registration = insert(registration);
+                Registration registration = importRequest
+                        .toRegistration(facilityId, registrationDate);
+                if (!matNumbers.add(registration.getMatNumber())) {
+                    throw new NotUnique
+                            ("facilityId/registrationDate/matNumber: " +
+                                    "Registration already exists for this combo");
+                }
+                registration.setPublished(published);
+                registration.setUpdated(published);
 
                 // If this mat is already assigned, deal with it
                 if (importRequest.getFirstName() != null) {
 
-                    // Look up existing guest (if any)
-                    Guest guest = null;
-                    try {
-                        guest = guestService.findByNameExact(
-                                facilityId,
-                                importRequest.getFirstName(),
-                                importRequest.getLastName()
-                        );
-                    } catch (NotFound e) {
-                        ; // We will create one below
-                    }
-
-                    // Create a new guest if necessary
+                    // Look up existing guest, or create a new one
+                    List<String> key = guestKey(importRequest.getFirstName(),
+                            importRequest.getLastName());
+                    Guest guest = guests.get(key);
                     if (guest == null) {
                         guest = new Guest(
                                 null,
@@ -466,34 +928,68 @@ public class RegistrationService extends ModelService<Registration> {
                                 importRequest.getLastName()
                         );
                         guest = guestService.insert(guest);
+                        if (guest.getId() == null) {
+                            // Write-behind left the insert pending, and
+                            // the ID is needed to assign this guest
+                            entityManager.flush();
+                        }
+                        guests.put(key, guest);
                     }
 
-                    // Assign this guest to this registration
-                    Assign assign = new Assign(
-                            importRequest.getComments(),
-                            guest.getId(),
-                            importRequest.getPaymentAmount(),
-                            importRequest.getPaymentType(),
-                            importRequest.getShowerTime(),
-                            importRequest.getWakeupTime()
-                    );
-                    try {
-                        registration = assign(registration.getId(), assign);
-                    } catch (NotUnique e) {
+                    // Assign this guest to this registration, unless
+                    // they are banned or already assigned to a different mat
+                    LocalDate bannedThrough = bannedGuests.get(guest.getId());
+                    Integer otherMatNumber = guestMatNumbers.get(guest.getId());
+                    if (bannedThrough != null) {
                         problems.add(new ImportProblem(
-                                "NotUnique: " + e.getMessage(),
+                                "BadRequest: " + String.format
+                                        ("guestId: Guest %d is banned through %s",
+                                                guest.getId(), bannedThrough),
                                 importRequest,
                                 "Left unassigned"
                         ));
+                    } else if (otherMatNumber != null) {
+                        problems.add(new ImportProblem(
+                                "NotUnique: " + String.format
+                                        ("guestId: Guest %d is already assigned to mat %d",
+                                                guest.getId(), otherMatNumber),
+                                importRequest,
+                                "Left unassigned"
+                        ));
+                    } else {
+                        Assign assign = importRequest.toAssign(guest.getId());
+                        registration.setComments(assign.getComments());
+                        registration.setGuest(guest);
+                        registration.setGuestId(assign.getGuestId());
+                        registration.setPaymentAmount(assign.getPaymentAmount());
+                        registration.setPaymentType(assign.getPaymentType());
+                        registration.setShowerTime(assign.getShowerTime());
+                        registration.setWakeupTime(assign.getWakeupTime());
+                        guestMatNumbers.put(guest.getId(),
+                                registration.getMatNumber());
                     }
 
                 }
 
-                // Add this registration to our results
+                // Persist this registration and add it to our results
+                entityManager.persist(registration);
                 registrations.add(registration);
 
             }
 
+            // Send the accumulated inserts to the database
+            unitOfWorkService.end(entityManager);
+            for (Registration registration : registrations) {
+                if (registration.getGuestId() != null) {
+                    occupancyService.assigned(facilityId, registrationDate,
+                            registration.getGuestId(),
+                            registration.getMatNumber());
+                }
+            }
+            registrationSnapshotService.invalidate(facilityId, registrationDate);
+            registrationChanges.fire(new RegistrationChange
+                    (facilityId, registrationDate));
+
             return new ImportResults(problems, registrations);
 
         } catch (BadRequest e) {
@@ -563,27 +1059,25 @@ public class RegistrationService extends ModelService<Registration> {
             inserted.setPublished(LocalDateTime.now());
             inserted.setUpdated(inserted.getPublished());
 
-            // Check uniqueness constraint
-            TypedQuery<Registration> query = entityManager.createNamedQuery
-                    (REGISTRATION_NAME + ".findByFacilityAndDateAndMat",
-                            Registration.class)
-                    .setParameter(FACILITY_ID_COLUMN,
-                            inserted.getFacilityId())
-                    .setParameter(REGISTRATION_DATE_COLUMN,
-                            inserted.getRegistrationDate())
-                    .setParameter(MAT_NUMBER_COLUMN,
-                            inserted.getMatNumber());
-            try {
-                query.getSingleResult();
+            // Uniqueness is enforced by the unique index when flushed, so
+            // only registrations still pending in this unit of work are checked
+            Registration candidate = inserted;
+            if (unitOfWorkService.findPending(Registration.class,
+                    r -> Objects.equals(r.getFacilityId(), candidate.getFacilityId()) &&
+                            Objects.equals(r.getRegistrationDate(), candidate.getRegistrationDate()) &&
+                            Objects.equals(r.getMatNumber(), candidate.getMatNumber()))
+                    .isPresent()) {
                 throw new NotUnique
                         ("facilityId/registrationDate/matNumber: " +
                                 "Registration already exists for this combo");
-            } catch (NoResultException e) {
-                // Expected result for a new unique row
             }
 
             // Perform the requested insert
             entityManager.persist(inserted);
+            unitOfWorkService.persisted(inserted);
+            unitOfWorkService.flush(entityManager);
+            registrationSnapshotService.invalidate(inserted.getFacilityId(),
+                    inserted.getRegistrationDate());
 
         } catch (BadRequest e) {
             throw e;
@@ -592,6 +1086,11 @@ public class RegistrationService extends ModelService<Registration> {
         } catch (NotUnique e) {
             throw e;
         } catch (PersistenceException e) {
+            if (UniqueIndexes.violated(e, REGISTRATION_MAT_INDEX)) {
+                throw new NotUnique
+                        ("facilityId/registrationDate/matNumber: " +
+                                "Registration already exists for this combo");
+            }
             handlePersistenceException(e);
         } catch (Exception e) {
             LOG.log(SEVERE,
@@ -604,6 +1103,172 @@ public class RegistrationService extends ModelService<Registration> {
 
     }
 
+    /**
+     * <p>Insert a batch of unassigned {@link Registration} objects for the
+     * specified facilityId and registrationDate.  Unlike calling
+     * {@link #insert(Registration)} once per mat, the facility is validated
+     * once and the registration date is checked for existing registrations
+     * once, and the inserts themselves are sent to the database together
+     * at the end so that they can be grouped into JDBC batches.  This is
+     * {@link #insertAllByDateRange(Long, LocalDate, LocalDate, List)} for
+     * a single date, except that an existing date fails rather than being
+     * skipped.</p>
+     *
+     * @param facilityId ID of the facility for which to insert registrations
+     * @param registrationDate Registration date for which to insert
+     *                         registrations
+     * @param registrations Unassigned registrations to be inserted (only
+     *                      the features and matNumber fields are used)
+     *
+     * @return The inserted registrations
+     *
+     * @throws BadRequest If the facility is not valid, if any registration
+     *                    is already assigned, or if at least one
+     *                    registration already exists for this facility
+     *                    and registration date
+     * @throws InternalServerError A server side error has occurred
+     * @throws NotUnique If the same mat number is included more than once
+     */
+    public @NotNull List<Registration> insertAll(
+            @NotNull Long facilityId,
+            @NotNull LocalDate registrationDate,
+            @NotNull List<Registration> registrations)
+            throws BadRequest, InternalServerError, NotUnique {
+
+        // A single date range skips the date if it already has registrations
+        List<Registration> inserteds = insertAllByDateRange(facilityId,
+                registrationDate, registrationDate, registrations)
+                .get(registrationDate);
+        if (inserteds == null) {
+            throw new BadRequest("registrationDate: At least one " +
+                    "registration for this date already exists");
+        }
+        return inserteds;
+
+    }
+
+    /**
+     * <p>Insert the same batch of unassigned {@link Registration} objects
+     * for each registration date in the specified (inclusive) range, in a
+     * single transaction.  Dates that already have at least one registration
+     * for this facility are skipped, rather than failing the entire range.
+     * The facility is validated once, existing dates are found with a single
+     * query over the whole range, and all of the inserts are sent to the
+     * database together at the end so that they can be grouped into JDBC
+     * batches.</p>
+     *
+     * @param facilityId ID of the facility for which to insert registrations
+     * @param fromDate First registration date (inclusive)
+     * @param toDate Last registration date (inclusive)
+     * @param registrations Unassigned registrations to be inserted for each
+     *                      date (only the features and matNumber fields
+     *                      are used)
+     *
+     * @return The inserted registrations, keyed by registration date, for
+     *         each date that was not skipped
+     *
+     * @throws BadRequest If the facility is not valid, if the date range
+     *                    is empty, or if any registration is already
+     *                    assigned
+     * @throws InternalServerError A server side error has occurred
+     * @throws NotUnique If the same mat number is included more than once
+     */
+    public @NotNull Map<LocalDate, List<Registration>> insertAllByDateRange(
+            @NotNull Long facilityId,
+            @NotNull LocalDate fromDate,
+            @NotNull LocalDate toDate,
+            @NotNull List<Registration> registrations)
+            throws BadRequest, InternalServerError, NotUnique {
+
+        Map<LocalDate, List<Registration>> inserteds = new TreeMap<>();
+
+        try {
+
+            // Check arguments once for the entire range
+            if (toDate.isBefore(fromDate)) {
+                throw new BadRequest(String.format
+                        ("toDate: Date %s is before fromDate %s",
+                                toDate, fromDate));
+            }
+            if (entityManager.find(Facility.class, facilityId) == null) {
+                throw new BadRequest
+                        ("facilityId: Must specify valid facility");
+            }
+            Set<Integer> matNumbers = new HashSet<>();
+            for (Registration registration : registrations) {
+                if (registration.getGuestId() != null) {
+                    throw new BadRequest
+                            ("guestId: Can only insert unassigned registrations");
+                }
+                if (!matNumbers.add(registration.getMatNumber())) {
+                    throw new NotUnique(String.format
+                            ("matNumber: Mat %d is included more than once",
+                                    registration.getMatNumber()));
+                }
+            }
+
+            // Find dates with existing registrations once for the entire range
+            Set<LocalDate> existingDates = new HashSet<>(entityManager
+                    .createNamedQuery(REGISTRATION_NAME +
+                            ".findDatesByFacilityAndDateRange", LocalDate.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(FROM_DATE_COLUMN, fromDate)
+                    .setParameter(TO_DATE_COLUMN, toDate)
+                    .getResultList());
+
+            // Persist unassigned registrations for each remaining date
+            LocalDateTime published = LocalDateTime.now();
+            for (LocalDate registrationDate = fromDate;
+                 !registrationDate.isAfter(toDate);
+                 registrationDate = registrationDate.plusDays(1)) {
+                if (existingDates.contains(registrationDate)) {
+                    continue;
+                }
+                List<Registration> dateInserteds = new ArrayList<>();
+                for (Registration registration : registrations) {
+                    Registration inserted = new Registration(
+                            facilityId,
+                            registration.getFeatures(),
+                            registration.getMatNumber(),
+                            registrationDate
+                    );
+                    inserted.setPublished(published);
+                    inserted.setUpdated(published);
+                    entityManager.persist(inserted);
+                    dateInserteds.add(inserted);
+                }
+                inserteds.put(registrationDate, dateInserteds);
+            }
+
+            // Send the accumulated inserts to the database, and start
+            // tracking occupancy for these (previously empty) dates
+            entityManager.flush();
+            for (LocalDate registrationDate : inserteds.keySet()) {
+                occupancyService.warm(facilityId, registrationDate);
+                registrationSnapshotService.invalidate(facilityId,
+                        registrationDate);
+                registrationChanges.fire(new RegistrationChange
+                        (facilityId, registrationDate));
+            }
+
+        } catch (BadRequest|NotUnique e) {
+            throw e;
+        } catch (ConstraintViolationException e) {
+            throw new BadRequest(formatMessage(e));
+        } catch (PersistenceException e) {
+            handlePersistenceException(e);
+        } catch (Exception e) {
+            LOG.log(SEVERE,
+                    String.format("insertAllByDateRange(%d, %s, %s): %s",
+                            facilityId, fromDate, toDate,
+                            e.getMessage()), e);
+            throw new InternalServerError(e.getMessage(), e);
+        }
+
+        return inserteds;
+
+    }
+
     @Override
     public Registration update(@NotNull Long id, @NotNull Registration model)
             throws BadRequest, InternalServerError, NotFound, NotUnique {
@@ -614,4 +1279,60 @@ public class RegistrationService extends ModelService<Registration> {
 
     }
 
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return the mat number of a registration, other than the specified
+     * one, that is assigned to the specified guest on the same facility and
+     * registration date, or <code>null</code> if there is none.  Uses the
+     * {@link OccupancyService} when it is warm for this date, otherwise
+     * falls back to a targeted query.</p>
+     *
+     * @param registration Registration about to be assigned
+     * @param guestId ID of the guest about to be assigned
+     */
+    private Integer findOtherMatNumber(Registration registration,
+                                       Long guestId) {
+
+        Map<Long, Integer> occupancy = occupancyService.occupancy
+                (registration.getFacilityId(),
+                        registration.getRegistrationDate());
+        if (occupancy != null) {
+            Integer matNumber = occupancy.get(guestId);
+            if ((matNumber != null) &&
+                    !matNumber.equals(registration.getMatNumber())) {
+                return matNumber;
+            }
+            return null;
+        }
+
+        TypedQuery<Integer> query = entityManager.createNamedQuery
+                (REGISTRATION_NAME + ".findMatNumberByFacilityAndDateAndGuest",
+                        Integer.class)
+                .setParameter(FACILITY_ID_COLUMN, registration.getFacilityId())
+                .setParameter(REGISTRATION_DATE_COLUMN,
+                        registration.getRegistrationDate())
+                .setParameter(GUEST_ID_COLUMN, guestId);
+        for (Integer matNumber : query.getResultList()) {
+            if (!matNumber.equals(registration.getMatNumber())) {
+                return matNumber;
+            }
+        }
+        return null;
+
+    }
+
+    /**
+     * <p>Return the key under which a {@link Guest} with the specified
+     * names is indexed during an import.  Names are matched exactly, like
+     * the <code>findByNameExact</code> query, and are kept as separate
+     * elements so that no pair of names can collide with another.</p>
+     *
+     * @param firstName First name of the guest
+     * @param lastName Last name of the guest
+     */
+    private List<String> guestKey(String firstName, String lastName) {
+        return Arrays.asList(lastName, firstName);
+    }
+
 }
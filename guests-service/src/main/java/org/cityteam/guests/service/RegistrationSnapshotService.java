@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.model.Registration;
+
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATION_DATE_COLUMN;
+import static org.cityteam.guests.model.Constants.REGISTRATION_NAME;
+
+/**
+ * <p>In-memory, versioned snapshots of the {@link Registration}s (the mat
+ * board) for each facility and registration date, so that the check-in
+ * screen can poll for changes without re-executing the query each time.
+ * Each snapshot carries a tag that changes whenever the snapshot does,
+ * suitable for use as an HTTP entity tag.</p>
+ *
+ * <p>A snapshot is loaded the first time it is requested, and is discarded
+ * (both immediately and after the enclosing transaction commits) whenever
+ * {@link RegistrationService} changes any registration for that facility
+ * and date, or {@link GuestService} changes a guest it contains.</p>
+ */
+@ConcurrencyManagement(BEAN)
+@LocalBean
+@Singleton
+public class RegistrationSnapshotService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * <p>Advanced on every invalidation, so that a snapshot loaded from
+     * the database concurrently with a change is not cached.</p>
+     */
+    private final CacheSupport cacheSupport = new CacheSupport();
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    /**
+     * <p>Snapshots that have been loaded, ordered by registration date so
+     * that the oldest dates can be discarded first.</p>
+     */
+    private final ConcurrentNavigableMap<FacilityDateKey, Snapshot> snapshots =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * <p>Distinguishes tags issued by this instance of the application
+     * from those issued before a restart.</p>
+     */
+    private final String startup =
+            Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * <p>Source of snapshot versions.</p>
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Maximum number of facility and registration date combinations
+     * that will be cached at any one time.</p>
+     */
+    static final int MAX_SNAPSHOTS = 100;
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Discard all snapshots, both immediately and after the current
+     * transaction (if any) commits.</p>
+     */
+    public void clear() {
+        discard();
+        CacheSupport.afterCommit(registry, this::discard);
+    }
+
+    /**
+     * <p>Discard the snapshot for the specified facility and registration
+     * date, both immediately and after the current transaction (if any)
+     * commits.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     */
+    public void invalidate(@NotNull Long facilityId,
+                           @NotNull LocalDate registrationDate) {
+        FacilityDateKey key = new FacilityDateKey(facilityId, registrationDate);
+        remove(key);
+        CacheSupport.afterCommit(registry, () -> remove(key));
+    }
+
+    /**
+     * <p>Discard every snapshot for the specified facility, both
+     * immediately and after the current transaction (if any) commits.</p>
+     *
+     * @param facilityId ID of the facility
+     */
+    public void invalidateFacility(@NotNull Long facilityId) {
+        removeFacility(facilityId);
+        CacheSupport.afterCommit(registry, () -> removeFacility(facilityId));
+    }
+
+    /**
+     * <p>Discard every snapshot that contains a registration for the
+     * specified guest, both immediately and after the current transaction
+     * (if any) commits.</p>
+     *
+     * @param guestId ID of the guest
+     */
+    public void invalidateGuest(@NotNull Long guestId) {
+        removeGuest(guestId);
+        CacheSupport.afterCommit(registry, () -> removeGuest(guestId));
+    }
+
+    /**
+     * <p>Return the snapshot for the specified facility and registration
+     * date, loading it from the database if necessary.</p>
+     *
+     * @param facilityId ID of the facility
+     * @param registrationDate Registration date
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public @NotNull Snapshot snapshot(@NotNull Long facilityId,
+                                      @NotNull LocalDate registrationDate) {
+        FacilityDateKey key = new FacilityDateKey(facilityId, registrationDate);
+        Snapshot snapshot = cacheSupport.load(snapshots, key, () -> {
+            List<Registration> registrations = entityManager.createNamedQuery
+                    (REGISTRATION_NAME + ".findByFacilityAndDate",
+                            Registration.class)
+                    .setParameter(FACILITY_ID_COLUMN, facilityId)
+                    .setParameter(REGISTRATION_DATE_COLUMN, registrationDate)
+                    .getResultList();
+            return new Snapshot(registrations,
+                    startup + "-" + versions.incrementAndGet());
+        });
+        while (snapshots.size() > MAX_SNAPSHOTS) {
+            snapshots.pollFirstEntry();
+        }
+        return snapshot;
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Discard all snapshots.</p>
+     */
+    private void discard() {
+        cacheSupport.changed();
+        snapshots.clear();
+    }
+
+    /**
+     * <p>Discard the snapshot with the specified key.</p>
+     */
+    private void remove(FacilityDateKey key) {
+        cacheSupport.changed();
+        snapshots.remove(key);
+    }
+
+    /**
+     * <p>Discard the snapshots for the specified facility.</p>
+     */
+    private void removeFacility(Long facilityId) {
+        cacheSupport.changed();
+        snapshots.keySet().removeIf(key -> key.hasFacilityId(facilityId));
+    }
+
+    /**
+     * <p>Discard the snapshots containing the specified guest.</p>
+     */
+    private void removeGuest(Long guestId) {
+        cacheSupport.changed();
+        snapshots.values().removeIf(snapshot -> snapshot.getRegistrations()
+                .stream()
+                .anyMatch(registration ->
+                        guestId.equals(registration.getGuestId())));
+    }
+
+    // Public Classes --------------------------------------------------------
+
+    /**
+     * <p>Immutable list of the registrations for a facility and registration
+     * date, in mat number order, and the tag identifying this version.</p>
+     */
+    public static final class Snapshot {
+
+        private final List<Registration> registrations;
+        private final String tag;
+
+        private Snapshot(List<Registration> registrations, String tag) {
+            this.registrations = Collections.unmodifiableList(registrations);
+            this.tag = tag;
+        }
+
+        public List<Registration> getRegistrations() {
+            return registrations;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.cityteam.guests.service;
 
+import org.cityteam.guests.action.GenerateResult;
 import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.Template;
 import org.cityteam.guests.model.types.FeatureType;
@@ -37,33 +38,50 @@ import javax.validation.ConstraintViolationException;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.SEVERE;
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.NAME_COLUMN;
 import static org.cityteam.guests.model.Constants.TEMPLATE_NAME;
-import static org.craigmcc.library.model.Constants.ID_COLUMN;
 
 @LocalBean
+@Metered
 @Stateless
 public class TemplateService extends ModelService<Template> {
 
     // Instance Variables ----------------------------------------------------
 
+    @Inject
+    private CacheService cacheService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Inject
     private RegistrationService registrationService;
 
+    @Inject
+    private UnitOfWorkService unitOfWorkService;
+
     // Static Variables ------------------------------------------------------
 
     private static final Logger LOG =
             Logger.getLogger(TemplateService.class.getName());
 
+    /**
+     * <p>Maximum number of registration dates that can be generated by a
+     * single call to {@link #generateRange(Long, LocalDate, LocalDate)}.</p>
+     */
+    public static final int MAX_GENERATE_DAYS = 31;
+
     // Public Methods --------------------------------------------------------
 
     @Override
@@ -75,6 +93,7 @@ public class TemplateService extends ModelService<Template> {
             Template deleted = entityManager.find(Template.class, templateId);
             if (deleted != null) {
                 entityManager.remove(deleted);
+                cacheService.evictTemplate(templateId);
                 deleted.setUpdated(LocalDateTime.now());
                 return deleted;
             }
@@ -98,15 +117,12 @@ public class TemplateService extends ModelService<Template> {
 
         try {
 
-            TypedQuery<Template> query = entityManager.createNamedQuery
-                    (TEMPLATE_NAME + ".findById", Template.class)
-                    .setParameter(ID_COLUMN, templateId);
-            return query.getSingleResult();
+            // Look up by primary key so the second level cache is consulted
+            Template found = entityManager.find(Template.class, templateId);
+            if (found != null) {
+                return found;
+            }
 
-        } catch (NoResultException e) {
-            throw new NotFound(
-                    String.format("templateId: Missing template %d", templateId)
-            );
         } catch (Exception e) {
             LOG.log(SEVERE,
                     String.format("find(%d): %s",
@@ -114,6 +130,10 @@ public class TemplateService extends ModelService<Template> {
             throw new InternalServerError(e.getMessage(), e);
         }
 
+        throw new NotFound(
+                String.format("templateId: Missing template %d", templateId)
+        );
+
     }
 
     @Override
@@ -204,7 +224,9 @@ public class TemplateService extends ModelService<Template> {
     /**
      * <p>For the given templateId and registrationDate, create and return
      * a list of unassigned {@link Registration} objects, in preparation
-     * for checking in nightly guests.</p>
+     * for checking in nightly guests.  The registrations are inserted as
+     * a single batch, so the number of queries does not grow with the
+     * number of mats in the template.</p>
      *
      * @param templateId ID of the template used as the basis for
      *                   generating {@link Registration} objects
@@ -225,41 +247,71 @@ public class TemplateService extends ModelService<Template> {
         throws BadRequest, InternalServerError, NotFound, NotUnique {
 
         Template template = find(templateId);
-        List<Registration> registrations =
-                registrationService.findByFacilityAndDate
-                        (template.getFacilityId(), registrationDate);
-        if (registrations.size() > 0) {
-            throw new BadRequest("registrationDate: At least one " +
-                    "registration for this date already exists");
-        }
-        MatsList allMats = new MatsList(template.getAllMats());
-        MatsList handicapMats = new MatsList(template.getHandicapMats());
-        MatsList socketMats = new MatsList(template.getSocketMats());
-
-        for (Integer matNumber : allMats.exploded()) {
+        return registrationService.insertAll(template.getFacilityId(),
+                registrationDate, registrations(template, registrationDate));
 
-            List<FeatureType> features = new ArrayList<>();
-            if (handicapMats.isMemberOf(matNumber)) {
-                features.add(FeatureType.H);
-            }
-            if (socketMats.isMemberOf(matNumber)) {
-                features.add(FeatureType.S);
-            }
-            if (features.size() == 0) {
-                features = null;
-            }
+    }
 
-            Registration registration = new Registration(
-                    template.getFacilityId(),
-                    features,
-                    matNumber,
-                    registrationDate
-            );
-            registrations.add(registrationService.insert(registration));
+    /**
+     * <p>For the given templateId, create unassigned {@link Registration}
+     * objects for each registration date from <code>fromDate</code> through
+     * <code>toDate</code> (inclusive), in a single transaction.  Dates that
+     * already have registrations for the corresponding facility are skipped
+     * and reported, rather than failing the entire range.</p>
+     *
+     * @param templateId ID of the template used as the basis for
+     *                   generating {@link Registration} objects
+     * @param fromDate First date for which to generate registrations
+     * @param toDate Last date for which to generate registrations
+     *
+     * @return Outcome for each date in the range, in date order
+     *
+     * @throws BadRequest If the date range is empty or longer than
+     *                    {@link #MAX_GENERATE_DAYS} days
+     * @throws InternalServerError If a server side processing error occurs
+     * @throws NotFound If no template with the specified ID can be found
+     * @throws NotUnique If attempting to add the same mat number twice
+     */
+    public @NotNull List<GenerateResult> generateRange
+            (@NotNull Long templateId,
+             @NotNull LocalDate fromDate,
+             @NotNull LocalDate toDate)
+        throws BadRequest, InternalServerError, NotFound, NotUnique {
 
+        if (toDate.isBefore(fromDate)) {
+            throw new BadRequest(String.format
+                    ("toDate: Date %s is before fromDate %s",
+                            toDate, fromDate));
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_GENERATE_DAYS) {
+            throw new BadRequest(String.format
+                    ("toDate: Cannot generate more than %d days at once",
+                            MAX_GENERATE_DAYS));
         }
 
-        return registrations;
+        Template template = find(templateId);
+        Map<LocalDate, List<Registration>> inserteds =
+                registrationService.insertAllByDateRange
+                        (template.getFacilityId(), fromDate, toDate,
+                                registrations(template, null));
+
+        List<GenerateResult> results = new ArrayList<>();
+        for (LocalDate registrationDate = fromDate;
+             !registrationDate.isAfter(toDate);
+             registrationDate = registrationDate.plusDays(1)) {
+            List<Registration> registrations = inserteds.get(registrationDate);
+            if (registrations != null) {
+                results.add(new GenerateResult
+                        (null, registrationDate, registrations));
+            } else {
+                results.add(new GenerateResult(
+                        "registrationDate: At least one registration " +
+                                "for this date already exists",
+                        registrationDate,
+                        Collections.emptyList()));
+            }
+        }
+        return results;
 
     }
 
@@ -270,14 +322,10 @@ public class TemplateService extends ModelService<Template> {
         try {
 
             // Check uniqueness constraint
-            try {
-                findByNameExact
-                        (template.getFacilityId(), template.getName());
+            if (findDuplicate(template) != null) {
                 throw new NotUnique(String.format
                         ("name: Name '%s' is already in use " +
                          "within this facility", template.getName()));
-            } catch (NotFound e) {
-                // Expected result if unique
             }
 
             // Check valid mat lists
@@ -288,7 +336,8 @@ public class TemplateService extends ModelService<Template> {
             template.setPublished(LocalDateTime.now());
             template.setUpdated(template.getPublished());
             entityManager.persist(template);
-            entityManager.flush();
+            unitOfWorkService.persisted(template);
+            unitOfWorkService.flush(entityManager);
 
         } catch (BadRequest|InternalServerError|NotUnique e) {
             throw e;
@@ -316,19 +365,14 @@ public class TemplateService extends ModelService<Template> {
         try {
 
             // Check uniqueness constraint
-            try {
-                Template duplicate = findByNameExact
-                        (template.getFacilityId(), template.getName());
-                if ((duplicate != null) &&
-                        !templateId.equals(duplicate.getId())) {
-                    throw new NotUnique(String.format
-                            ("name: Name '%s' is already in use " +
-                             "within this facility", template.getName()));
-                }
-                // Otherwise, updating something else on the current row
-            } catch (NotFound e) {
-                // Expected result if unique
+            Template duplicate = findDuplicate(template);
+            if ((duplicate != null) &&
+                    !templateId.equals(duplicate.getId())) {
+                throw new NotUnique(String.format
+                        ("name: Name '%s' is already in use " +
+                         "within this facility", template.getName()));
             }
+            // Otherwise, updating something else on the current row
 
             // Check valid mat lists
             checkMatLists(template);
@@ -338,7 +382,9 @@ public class TemplateService extends ModelService<Template> {
             original.copy(template);
             original.setUpdated(LocalDateTime.now());
             entityManager.merge(original);
-            entityManager.flush();
+            unitOfWorkService.updated(original);
+            unitOfWorkService.flush(entityManager);
+            cacheService.evictTemplate(templateId);
 
         } catch (BadRequest|InternalServerError|NotFound|NotUnique e) {
             throw e;
@@ -413,4 +459,76 @@ public class TemplateService extends ModelService<Template> {
 
     }
 
+    /**
+     * <p>Return another template in the same facility with the same name as
+     * the specified template, or <code>null</code> if there is none.
+     * Templates persisted or renamed in the current unit of work, but not
+     * flushed yet, are considered by their current names, and the lookup
+     * itself never forces a flush in write-behind mode.</p>
+     *
+     * @param template Template being inserted or updated
+     */
+    private Template findDuplicate(Template template) {
+        Optional<Template> pending = unitOfWorkService.findPending
+                (Template.class, t -> (t != template) &&
+                        Objects.equals(t.getFacilityId(), template.getFacilityId()) &&
+                        Objects.equals(t.getName(), template.getName()));
+        if (pending.isPresent()) {
+            return pending.get();
+        }
+        List<Template> duplicates = entityManager.createNamedQuery
+                (TEMPLATE_NAME + ".findByNameExact", Template.class)
+                .setFlushMode(unitOfWorkService.flushMode())
+                .setParameter(FACILITY_ID_COLUMN, template.getFacilityId())
+                .setParameter(NAME_COLUMN, template.getName())
+                .setMaxResults(1)
+                .getResultList();
+        // The match may be a managed template renamed since the last flush
+        return duplicates.stream()
+                .filter(t -> Objects.equals(t.getName(), template.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * <p>Return unassigned {@link Registration} objects, one for each mat
+     * in the specified template, with features set accordingly.</p>
+     *
+     * @param template Template describing the mats
+     * @param registrationDate Registration date to set (may be null
+     *                         if the caller supplies it later)
+     */
+    private List<Registration> registrations
+            (Template template, LocalDate registrationDate) {
+
+        MatsList allMats = new MatsList(template.getAllMats());
+        MatsList handicapMats = new MatsList(template.getHandicapMats());
+        MatsList socketMats = new MatsList(template.getSocketMats());
+
+        List<Registration> registrations = new ArrayList<>();
+        for (Integer matNumber : allMats.exploded()) {
+
+            List<FeatureType> features = new ArrayList<>();
+            if (handicapMats.isMemberOf(matNumber)) {
+                features.add(FeatureType.H);
+            }
+            if (socketMats.isMemberOf(matNumber)) {
+                features.add(FeatureType.S);
+            }
+            if (features.size() == 0) {
+                features = null;
+            }
+
+            registrations.add(new Registration(
+                    template.getFacilityId(),
+                    features,
+                    matNumber,
+                    registrationDate
+            ));
+
+        }
+        return registrations;
+
+    }
+
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.craigmcc.library.shared.exception.NotUnique;
+import org.hibernate.exception.ConstraintViolationException;
+
+import javax.validation.constraints.NotNull;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.cityteam.guests.model.Constants.GUEST_NAME_INDEX;
+import static org.cityteam.guests.model.Constants.REGISTRATION_GUEST_INDEX;
+import static org.cityteam.guests.model.Constants.REGISTRATION_MAT_INDEX;
+
+/**
+ * <p>Recognizes violations of the unique indexes declared on the model
+ * classes, so that insert methods can rely on the database to enforce
+ * uniqueness (including against concurrent inserts) rather than running
+ * a pre-check query first, and still report a <code>NotUnique</code>.
+ * Only violations that name the expected index are recognized, so that a
+ * violation of some other unique constraint is never mistaken for one.</p>
+ *
+ * <p>The failed statement has already marked the current transaction for
+ * rollback by the time its violation is recognized here, and reporting it
+ * as a <code>NotUnique</code> (which does not roll back by itself) does
+ * not change that.  A caller that catches the <code>NotUnique</code>
+ * cannot go on to commit other work in the same transaction.</p>
+ */
+final class UniqueIndexes {
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Messages for violations of each unique index that are detected
+     * too late to describe the specific row, such as when a write-behind
+     * unit of work is flushed.</p>
+     */
+    private static final Map<String, String> MESSAGES = Map.of(
+            GUEST_NAME_INDEX,
+            "name: Name is already in use within this facility",
+            REGISTRATION_GUEST_INDEX,
+            "guestId: Guest is already assigned to a mat on this " +
+                    "registration date",
+            REGISTRATION_MAT_INDEX,
+            "facilityId/registrationDate/matNumber: " +
+                    "Registration already exists for this combo"
+    );
+
+    // Constructors ----------------------------------------------------------
+
+    private UniqueIndexes() { }
+
+    // Static Methods --------------------------------------------------------
+
+    /**
+     * <p>Return a {@link NotUnique} describing the unique index violated by
+     * the specified exception (or one of its causes), or <code>null</code>
+     * if it is not a violation of a known unique index.</p>
+     *
+     * @param throwable Exception thrown by a flush or commit
+     */
+    static NotUnique notUnique(@NotNull Throwable throwable) {
+        for (Map.Entry<String, String> entry : MESSAGES.entrySet()) {
+            if (violated(throwable, entry.getKey())) {
+                return new NotUnique(entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>Return <code>true</code> if the specified exception (or one of its
+     * causes) reports a violation of the unique index with the specified
+     * name.  Databases differ on the case of the name they report, and may
+     * decorate it, so any name containing the index name matches.</p>
+     *
+     * @param throwable Exception thrown by a flush or commit
+     * @param indexName Name of the unique index
+     */
+    static boolean violated(@NotNull Throwable throwable,
+                            @NotNull String indexName) {
+        String wanted = indexName.toUpperCase(Locale.ROOT);
+        for (Throwable cause = throwable; cause != null;
+             cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+            if (!(cause instanceof ConstraintViolationException)) {
+                continue;
+            }
+            ConstraintViolationException e =
+                    (ConstraintViolationException) cause;
+            String name = e.getConstraintName();
+            return (name != null) &&
+                    name.toUpperCase(Locale.ROOT).contains(wanted);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.craigmcc.library.shared.exception.NotUnique;
+
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceException;
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+
+/**
+ * <p>Optional write-behind mode for the current transaction.  By default,
+ * each write method of the model services flushes immediately, so that
+ * constraint violations are reported by the method that caused them.
+ * When a caller composes several writes in one transaction, such as
+ * <code>RegistrationService.importByFacilityAndDate()</code>, it can call
+ * {@link #begin()} first, so that those methods leave their changes
+ * pending and they are sent to the database together (and can be grouped
+ * into JDBC batches) when the caller calls {@link #end(EntityManager)}.</p>
+ *
+ * <p>While write-behind is in effect, uniqueness pre-checks must not
+ * trigger an automatic flush, and must also consider entities that have
+ * been persisted or updated in this unit of work but not yet flushed.
+ * Services do this by running pre-check queries with {@link #flushMode()},
+ * by consulting {@link #findPending(Class, Predicate)}, and by re-checking
+ * the (possibly changed) state of the entities their queries return.</p>
+ */
+@ConcurrencyManagement(BEAN)
+@LocalBean
+@Singleton
+public class UnitOfWorkService {
+
+    // Instance Variables ----------------------------------------------------
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    // Static Variables ------------------------------------------------------
+
+    /**
+     * <p>Key of the transaction-scoped resource holding the pending
+     * entities of the current unit of work.</p>
+     */
+    private static final String PENDINGS_KEY =
+            UnitOfWorkService.class.getName() + ".pendings";
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Start write-behind mode for the current transaction.  Calling
+     * this when write-behind mode is already in effect has no effect, and
+     * calling it again after {@link #end(EntityManager)} starts a new unit
+     * of work in the same transaction.</p>
+     *
+     * @throws IllegalStateException If there is no active transaction
+     */
+    public void begin() {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            throw new IllegalStateException
+                    ("begin: Write-behind requires an active transaction");
+        }
+        Pendings pendings = pendings();
+        if (pendings == null) {
+            registry.putResource(PENDINGS_KEY, new Pendings());
+        } else {
+            pendings.active = true;
+        }
+    }
+
+    /**
+     * <p>End write-behind mode for the current transaction (if it is in
+     * effect), and flush all pending changes to the database.  Any
+     * constraint violations are reported here, and a failed flush leaves
+     * the transaction marked for rollback.</p>
+     *
+     * @param entityManager Entity manager to be flushed
+     *
+     * @throws NotUnique If a pending change violates a unique index
+     */
+    public void end(@NotNull EntityManager entityManager) throws NotUnique {
+        Pendings pendings = pendings();
+        if (pendings != null) {
+            pendings.active = false;
+            pendings.entities.clear();
+        }
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            NotUnique notUnique = UniqueIndexes.notUnique(e);
+            if (notUnique != null) {
+                throw notUnique;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * <p>Return the first entity of the specified type, persisted or updated
+     * in the current unit of work but not flushed yet, that matches the
+     * specified predicate.  Always empty unless write-behind mode is in
+     * effect.</p>
+     *
+     * @param type Type of entity to look for
+     * @param predicate Predicate the entity must match
+     * @param <M> Type of entity to look for
+     */
+    public <M> Optional<M> findPending(@NotNull Class<M> type,
+                                       @NotNull Predicate<M> predicate) {
+        Pendings pendings = pendings();
+        if ((pendings == null) || !pendings.active) {
+            return Optional.empty();
+        }
+        return pendings.entities.stream()
+                .filter(type::isInstance)
+                .map(type::cast)
+                .filter(predicate)
+                .findFirst();
+    }
+
+    /**
+     * <p>Flush pending changes now, unless write-behind mode is in effect
+     * for the current transaction.  Write methods call this in place of
+     * <code>EntityManager.flush()</code>.</p>
+     *
+     * @param entityManager Entity manager to be flushed
+     */
+    public void flush(@NotNull EntityManager entityManager) {
+        if (!isWriteBehind()) {
+            entityManager.flush();
+        }
+    }
+
+    /**
+     * <p>Return the flush mode that pre-check queries should use, so that
+     * they do not flush pending changes while write-behind mode is in
+     * effect.</p>
+     */
+    public @NotNull FlushModeType flushMode() {
+        return isWriteBehind() ? FlushModeType.COMMIT : FlushModeType.AUTO;
+    }
+
+    /**
+     * <p>Return <code>true</code> if write-behind mode is in effect for
+     * the current transaction.</p>
+     */
+    public boolean isWriteBehind() {
+        Pendings pendings = pendings();
+        return (pendings != null) && pendings.active;
+    }
+
+    /**
+     * <p>Record that the specified entity has been persisted in the current
+     * unit of work, so that later pre-checks can find it before it has
+     * been flushed.  This is a no-op unless write-behind mode is in
+     * effect.</p>
+     *
+     * @param entity Entity that was persisted
+     */
+    public void persisted(@NotNull Object entity) {
+        Pendings pendings = pendings();
+        if ((pendings != null) && pendings.active) {
+            pendings.entities.add(entity);
+        }
+    }
+
+    /**
+     * <p>Record that the specified (managed) entity has been updated in the
+     * current unit of work, so that later pre-checks can find it by its
+     * new values before it has been flushed.  This is a no-op unless
+     * write-behind mode is in effect.</p>
+     *
+     * @param entity Entity that was updated
+     */
+    public void updated(@NotNull Object entity) {
+        Pendings pendings = pendings();
+        if ((pendings != null) && pendings.active &&
+                pendings.entities.stream().noneMatch(e -> e == entity)) {
+            pendings.entities.add(entity);
+        }
+    }
+
+    // Private Methods -------------------------------------------------------
+
+    /**
+     * <p>Return the pending entities of the current transaction, or
+     * <code>null</code> if write-behind mode was never started.</p>
+     */
+    private Pendings pendings() {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            return null;
+        }
+        return (Pendings) registry.getResource(PENDINGS_KEY);
+    }
+
+    // Private Classes -------------------------------------------------------
+
+    /**
+     * <p>Pending entities of a single transaction.  A transaction is only
+     * ever used by one thread at a time, so no synchronization is needed.</p>
+     */
+    private static final class Pendings {
+
+        private boolean active = true;
+        private final List<Object> entities = new ArrayList<>();
+
+    }
+
+}
@@ -23,6 +23,15 @@ import org.craigmcc.library.shared.exception.BadRequest;
 import org.jboss.shrinkwrap.api.asset.EmptyAsset;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>Abstract base class for service test implementations that facilitates decorating
  * an Arquillian <code>JavaArchive</code> with commonly required fixtures.  Under most
@@ -46,7 +55,15 @@ public abstract class AbstractServiceTest {
     ) {
         archive.addClasses(AbstractServiceTest.class, ModelService.class);
         archive.addClasses
-                (DevModeDepopulateService.class, DevModePopulateService.class);
+                (BanIndexService.class, CacheService.class, CacheSupport.class,
+                        DevModeDepopulateService.class, DevModePopulateService.class,
+                        FacilityDateKey.class,
+                        GuestNameIndexService.class, JdbcBatchCounter.class,
+                        Metered.class,
+                        MeteredInterceptor.class, MetricsService.class,
+                        OccupancyService.class,
+                        RegistrationSnapshotService.class,
+                        UniqueIndexes.class, UnitOfWorkService.class);
         archive.addPackages(true,
                 "org.apache.commons.lang3"
         );
@@ -66,4 +83,60 @@ public abstract class AbstractServiceTest {
         archive.addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
     }
 
+    /**
+     * <p>Run the specified attempts concurrently, releasing them all at
+     * once so that they race each other, and wait for them to finish.</p>
+     *
+     * @param threads Number of threads to run the attempts on
+     * @param attempts Attempts to be run
+     *
+     * @return Exception thrown by each attempt (or <code>null</code> if it
+     *         succeeded), in the same order as <code>attempts</code>
+     *
+     * @throws Exception If an attempt does not finish in time
+     */
+    protected static List<Exception> race(int threads,
+                                          List<Attempt> attempts)
+            throws Exception {
+        List<Exception> outcomes =
+                new ArrayList<>(Collections.nCopies(attempts.size(), null));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts.size(); i++) {
+                int index = i;
+                Attempt attempt = attempts.get(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        attempt.run();
+                    } catch (Exception e) {
+                        outcomes.set(index, e);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcomes;
+    }
+
+    // Protected Classes -----------------------------------------------------
+
+    /**
+     * <p>One attempt in a {@link #race(int, List)}.</p>
+     */
+    @FunctionalInterface
+    protected interface Attempt {
+
+        void run() throws Exception;
+
+    }
+
 }
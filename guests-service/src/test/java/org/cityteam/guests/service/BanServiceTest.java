@@ -38,6 +38,7 @@ import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.cityteam.guests.model.Constants.BAN_NAME;
@@ -171,6 +172,64 @@ public class BanServiceTest extends AbstractServiceTest {
 
     }
 
+    // findBannedGuests() tests
+
+    @Test
+    public void findBannedGuestsHappy() throws Exception {
+
+        Long facilityId = findFacilityByNameExact("San Francisco").get().getId();
+        Guest fred = findGuestByNameExact(facilityId, "Fred", "Flintstone").get();
+        Guest barney = findGuestByNameExact(facilityId, "Barney", "Rubble").get();
+        List<Long> guestIds = List.of(fred.getId(), barney.getId());
+
+        // Active bans are reported for the dates they cover
+        Map<Long, LocalDate> banneds = banService.findBannedGuests
+                (facilityId, LocalDate.parse("2020-08-15"), guestIds);
+        assertThat(banneds.size(), is(equalTo(1)));
+        assertThat(banneds.get(fred.getId()),
+                is(equalTo(LocalDate.parse("2020-08-31"))));
+        banneds = banService.findBannedGuests
+                (facilityId, LocalDate.parse("2020-09-30"), List.of());
+        assertThat(banneds.size(), is(equalTo(1)));
+        assertThat(banneds.get(barney.getId()),
+                is(equalTo(LocalDate.parse("2020-09-30"))));
+
+        // Inactive bans and uncovered dates are not reported
+        assertThat(banService.findBannedGuests(facilityId,
+                LocalDate.parse("2020-10-15"), guestIds).size(), is(equalTo(0)));
+        assertThat(banService.findBannedGuests(facilityId,
+                LocalDate.parse("2020-07-31"), guestIds).size(), is(equalTo(0)));
+
+    }
+
+    @Test
+    public void findBannedGuestsUpdated() throws Exception {
+
+        Long facilityId = findFacilityByNameExact("San Francisco").get().getId();
+        Guest fred = findGuestByNameExact(facilityId, "Fred", "Flintstone").get();
+        LocalDate registrationDate = LocalDate.parse("2020-08-15");
+        assertThat(banService.findBannedGuests(facilityId, registrationDate,
+                List.of(fred.getId())).size(), is(equalTo(1)));
+
+        // Deactivated ban is no longer reported
+        Ban ban = banService.findByGuestIdAndRegistrationDate
+                (fred.getId(), registrationDate);
+        ban.setActive(false);
+        banService.update(ban.getId(), ban);
+        assertThat(banService.findBannedGuests(facilityId, registrationDate,
+                List.of(fred.getId())).size(), is(equalTo(0)));
+
+        // Inserted ban is reported, and deleted ban is not
+        Ban inserted = banService.insert(newBan(fred.getId()));
+        assertThat(banService.findBannedGuests(facilityId,
+                inserted.getBanFrom(), List.of()).get(fred.getId()),
+                is(equalTo(inserted.getBanTo())));
+        banService.delete(inserted.getId());
+        assertThat(banService.findBannedGuests(facilityId,
+                inserted.getBanFrom(), List.of()).size(), is(equalTo(0)));
+
+    }
+
     // findByGuestId() tests
 
     @Test
@@ -406,6 +465,79 @@ public class BanServiceTest extends AbstractServiceTest {
     }
 
 
+    // insertAll() tests
+
+    @Test
+    public void insertAllHappy() throws Exception {
+
+        Long facilityId = findFacilityByNameExact("San Francisco").get().getId();
+        Guest barney = findGuestByNameExact(facilityId, "Barney", "Rubble").get();
+        Guest bamBam = findGuestByNameExact(facilityId, "Bam Bam", "Rubble").get();
+        int count = findBansAll().size();
+
+        List<Ban> bans = List.of(
+                newBan(bamBam.getId(), "2020-06-01", "2020-06-10"),
+                newBan(barney.getId(), "2020-06-01", "2020-06-10"),
+                newBan(bamBam.getId(), "2020-05-01", "2020-05-31")
+        );
+        List<Ban> inserteds = banService.insertAll(bans);
+        assertThat(inserteds.size(), is(equalTo(3)));
+        for (Ban inserted : inserteds) {
+            assertThat(inserted.getId(), is(notNullValue()));
+            Optional<Ban> found = findBanById(inserted.getId());
+            assertThat(found.isPresent(), is(true));
+            assertThat(found.get(), is(equalTo(inserted)));
+        }
+        assertThat(findBansAll().size(), is(equalTo(count + 3)));
+
+    }
+
+    @Test
+    public void insertAllNotUnique() throws Exception {
+
+        Long facilityId = findFacilityByNameExact("San Francisco").get().getId();
+        Guest barney = findGuestByNameExact(facilityId, "Barney", "Rubble").get();
+        Guest bamBam = findGuestByNameExact(facilityId, "Bam Bam", "Rubble").get();
+        int count = findBansAll().size();
+
+        // Overlaps another ban in the same request
+        NotUnique e1 = assertThrows(NotUnique.class,
+                () -> banService.insertAll(List.of(
+                        newBan(bamBam.getId(), "2020-06-01", "2020-06-10"),
+                        newBan(barney.getId(), "2020-06-01", "2020-06-10"),
+                        newBan(bamBam.getId(), "2020-05-25", "2020-06-01")
+                )));
+        assertThat(e1.getMessage(), startsWith("bans[2].banTo:"));
+        assertThat(findBansAll().size(), is(equalTo(count)));
+
+        // Overlaps an existing ban
+        NotUnique e2 = assertThrows(NotUnique.class,
+                () -> banService.insertAll(List.of(
+                        newBan(bamBam.getId(), "2020-06-01", "2020-06-10"),
+                        newBan(barney.getId(), "2020-09-15", "2020-10-15")
+                )));
+        assertThat(e2.getMessage(), startsWith("bans[1].banFrom:"));
+        assertThat(findBansAll().size(), is(equalTo(count)));
+
+        // Invalid dates
+        BadRequest e3 = assertThrows(BadRequest.class,
+                () -> banService.insertAll(List.of(
+                        newBan(bamBam.getId(), "2020-06-10", "2020-06-01")
+                )));
+        assertThat(e3.getMessage(), startsWith("bans[0].banFrom:"));
+        assertThat(findBansAll().size(), is(equalTo(count)));
+
+        // Encloses another ban in the same request
+        NotUnique e4 = assertThrows(NotUnique.class,
+                () -> banService.insertAll(List.of(
+                        newBan(bamBam.getId(), "2020-06-01", "2020-06-10"),
+                        newBan(bamBam.getId(), "2020-05-25", "2020-06-15")
+                )));
+        assertThat(e4.getMessage(), startsWith("bans[1].banFrom/banTo:"));
+        assertThat(findBansAll().size(), is(equalTo(count)));
+
+    }
+
     // update() tests
 
     @Test
@@ -545,4 +677,11 @@ public class BanServiceTest extends AbstractServiceTest {
         );
     }
 
+    private Ban newBan(Long guestId, String banFrom, String banTo) {
+        Ban ban = newBan(guestId);
+        ban.setBanFrom(LocalDate.parse(banFrom));
+        ban.setBanTo(LocalDate.parse(banTo));
+        return ban;
+    }
+
 }
@@ -19,6 +19,8 @@ import org.cityteam.guests.model.Facility;
 import org.craigmcc.library.shared.exception.BadRequest;
 import org.craigmcc.library.shared.exception.NotFound;
 import org.craigmcc.library.shared.exception.NotUnique;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
@@ -45,6 +47,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThrows;
 
@@ -58,7 +61,8 @@ public class FacilityServiceTest extends AbstractServiceTest {
     public static JavaArchive createDeployment() {
         JavaArchive archive = ShrinkWrap.create
                 (JavaArchive.class, "testFacility.jar")
-                .addClass(FacilityService.class);
+                .addClass(FacilityService.class)
+                .addClass(GuestService.class);
         addServiceFixtures(archive, false);
         System.out.println("FacilityServiceTest: Assembled Archive:");
         System.out.println(archive.toString(true));
@@ -68,6 +72,9 @@ public class FacilityServiceTest extends AbstractServiceTest {
     @Inject
     FacilityService facilityService;
 
+    @Inject
+    GuestService guestService;
+
     @Inject
     DevModeDepopulateService devModeDepopulateService;
 
@@ -119,6 +126,22 @@ public class FacilityServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void deleteGuestNames() throws Exception {
+
+        Facility facility = findFacilityByNameExact("Oakland").get();
+
+        // Load the guest name index for this facility
+        assertThat(guestService.findByName(facility.getId(), "r").size(),
+                is(greaterThan(0)));
+
+        // Guests deleted by cascade are no longer found by name
+        facilityService.delete(facility.getId());
+        assertThat(guestService.findByName(facility.getId(), "r").size(),
+                is(0));
+
+    }
+
     @Test
     public void deleteNotFound() throws Exception {
 
@@ -142,6 +165,26 @@ public class FacilityServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void findCached() throws Exception {
+
+        Facility facility = findFacilityByNameExact("Oakland").get();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Repeated lookups are served from the second level cache
+        facilityService.find(facility.getId());
+        facilityService.find(facility.getId());
+        assertThat(statistics.getSecondLevelCacheHitCount(), is(greaterThan(0L)));
+
+        // Updates are visible to subsequent lookups
+        facility.setCity("Cached City");
+        facilityService.update(facility.getId(), facility);
+        assertThat(facilityService.find(facility.getId()).getCity(),
+                is(equalTo("Cached City")));
+
+    }
+
     @Test
     public void findNotFound() throws Exception {
 
@@ -190,6 +233,29 @@ public class FacilityServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void findByActiveCached() throws Exception {
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Repeated queries are served from the query cache
+        int count = facilityService.findByActive().size();
+        assertThat(facilityService.findByActive().size(), is(equalTo(count)));
+        assertThat(statistics.getQueryCacheHitCount(), is(greaterThan(0L)));
+
+        // Deactivating a facility invalidates the cached results
+        Facility facility = findFacilityByNameExact("Oakland").get();
+        facility.setActive(false);
+        facilityService.update(facility.getId(), facility);
+        List<Facility> facilities = facilityService.findByActive();
+        assertThat(facilities.size(), is(equalTo(count - 1)));
+        for (Facility active : facilities) {
+            assertThat(active.getName(), is(not(equalTo("Oakland"))));
+        }
+
+    }
+
     // findByName() tests
 
     @Test
@@ -368,4 +434,9 @@ public class FacilityServiceTest extends AbstractServiceTest {
         );
     }
 
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
 }
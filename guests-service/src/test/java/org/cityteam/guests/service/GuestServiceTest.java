@@ -35,8 +35,15 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.transaction.Status;
+import javax.transaction.UserTransaction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.FACILITY_NAME;
@@ -83,6 +90,12 @@ public class GuestServiceTest extends AbstractServiceTest {
     @Inject
     GuestService guestService;
 
+    @Inject
+    UnitOfWorkService unitOfWorkService;
+
+    @Inject
+    UserTransaction userTransaction;
+
     // Lifecycle Methods -----------------------------------------------------
 
     @After
@@ -255,6 +268,148 @@ public class GuestServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void findByNameMatchesQuery() throws Exception {
+
+        // Index results are the same guests as the query results
+        for (Guest guest : findGuestsAll()) {
+            for (String name : List.of("", "b", "Fr", "ubbl", "BAM",
+                    guest.getFirstName(), guest.getLastName())) {
+                Set<Long> expecteds = new HashSet<>();
+                for (Guest expected : findGuestsByName(guest.getFacilityId(), name)) {
+                    expecteds.add(expected.getId());
+                }
+                Set<Long> actuals = new HashSet<>();
+                for (Guest actual : guestService.findByName(guest.getFacilityId(), name)) {
+                    actuals.add(actual.getId());
+                }
+                assertThat(name, actuals, is(equalTo(expecteds)));
+            }
+        }
+
+    }
+
+    @Test
+    public void findByNameRanked() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+
+        // Load the index before inserting, so that inserts must update it
+        assertThat(guestService.findByName(facilityId, "fred").size(),
+                is(equalTo(1)));
+        guestService.insert(new Guest(null, facilityId, "Alfred", "Zed"));
+        guestService.insert(new Guest(null, facilityId, "Robert", "Fredericks"));
+
+        // Exact match, then lastName prefix, then other substring
+        List<Guest> guests = guestService.findByName(facilityId, "fred");
+        assertThat(guests.size(), is(equalTo(3)));
+        assertThat(guests.get(0).getLastName(), is(equalTo("Flintstone")));
+        assertThat(guests.get(1).getLastName(), is(equalTo("Fredericks")));
+        assertThat(guests.get(2).getLastName(), is(equalTo("Zed")));
+
+    }
+
+    @Test
+    public void findByNameUpdated() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        Optional<Guest> original =
+                findGuestByNameExact(facilityId, "Barney", "Rubble");
+        assertThat(original.isPresent(), is(true));
+        assertThat(guestService.findByName(facilityId, "Rubble").size(),
+                is(equalTo(2)));
+
+        // Renamed guest is found by its new name only
+        Guest guest = original.get();
+        guest.setLastName("Gravel");
+        guestService.update(guest.getId(), guest);
+        assertThat(guestService.findByName(facilityId, "Rubble").size(),
+                is(equalTo(1)));
+        List<Guest> guests = guestService.findByName(facilityId, "gravel");
+        assertThat(guests.size(), is(equalTo(1)));
+        assertThat(guests.get(0).getId(), is(equalTo(guest.getId())));
+
+        // Deleted guest is no longer found
+        guestService.delete(guest.getId());
+        assertThat(guestService.findByName(facilityId, "gravel").size(),
+                is(equalTo(0)));
+
+    }
+
+    // findByNameKeyset() tests
+
+    @Test
+    public void findByNameKeysetHappy() throws Exception {
+
+        String facilityName = "Oakland";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        // Pages follow the same (ranked, when indexed) order as findByName
+        List<Guest> expecteds = guestService.findByName
+                (facility.get().getId(), "r");
+        assertThat(expecteds.size(), is(greaterThan(1)));
+
+        // Page through one guest at a time
+        List<Guest> actuals = new ArrayList<>();
+        String afterLastName = "";
+        String afterFirstName = "";
+        while (true) {
+            List<Guest> page = guestService.findByNameKeyset
+                    (facility.get().getId(), "r", false,
+                            afterLastName, afterFirstName, 1);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertThat(page.size(), is(equalTo(1)));
+            actuals.addAll(page);
+            afterLastName = page.get(0).getLastName();
+            afterFirstName = page.get(0).getFirstName();
+        }
+
+        assertThat(actuals.size(), is(equalTo(expecteds.size())));
+        for (int i = 0; i < expecteds.size(); i++) {
+            assertThat(actuals.get(i).getId(),
+                    is(equalTo(expecteds.get(i).getId())));
+        }
+
+    }
+
+    @Test
+    public void findByNameKeysetPrefix() throws Exception {
+
+        String facilityName = "Oakland";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+
+        // Prefix of lastName matches
+        List<Guest> guests = guestService.findByNameKeyset
+                (facility.get().getId(), "Rub", true, "", "", 25);
+        assertThat(guests.size(), is(greaterThan(0)));
+        for (Guest guest : guests) {
+            assertThat(guest.getLastName(), startsWith("Rub"));
+        }
+
+        // Prefix match is case sensitive and anchored at the start
+        assertThat(guestService.findByNameKeyset
+                (facility.get().getId(), "rub", true, "", "", 25).size(),
+                is(equalTo(0)));
+        assertThat(guestService.findByNameKeyset
+                (facility.get().getId(), "ubbl", true, "", "", 25).size(),
+                is(equalTo(0)));
+
+        // Wildcards in the name segment are matched literally
+        assertThat(guestService.findByNameKeyset
+                (facility.get().getId(), "%", true, "", "", 25).size(),
+                is(equalTo(0)));
+
+    }
+
     // findByNameExact() tests
 
     @Test
@@ -371,6 +526,32 @@ public class GuestServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void insertConcurrent() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+
+        // Race several inserts of the same name, with no pre-check query
+        // to lose the race, so only the unique index can catch it
+        int attempts = 8;
+        List<Exception> outcomes = race(attempts, Collections.nCopies(attempts,
+                () -> guestService.insert(newGuest(facility.get().getId()))));
+
+        // Exactly one insert won, and every loser saw NotUnique
+        assertThat(outcomes.toString(),
+                outcomes.stream().filter(Objects::isNull).count(),
+                is(equalTo(1L)));
+        assertThat(outcomes.toString(),
+                outcomes.stream().filter(e -> e instanceof NotUnique).count(),
+                is(equalTo((long) (attempts - 1))));
+        Guest guest = newGuest(facility.get().getId());
+        assertThat(guestService.findByNameExact(facility.get().getId(),
+                guest.getFirstName(), guest.getLastName()), is(notNullValue()));
+
+    }
+
     @Test
     public void insertNotUnique() throws Exception {
 
@@ -385,6 +566,149 @@ public class GuestServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void insertNotUniqueRollbackOnly() throws Exception {
+
+        String facilityName = "Oakland";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+
+        userTransaction.begin();
+        try {
+
+            // The violation is reported as NotUnique, but the failed
+            // insert has still marked the caller's transaction for rollback
+            Guest guest = newGuest(facility.get().getId());
+            guest.setFirstName("Fred");
+            guest.setLastName("Flintstone");
+            assertThrows(NotUnique.class,
+                    () -> guestService.insert(guest));
+            assertThat(userTransaction.getStatus(),
+                    is(equalTo(Status.STATUS_MARKED_ROLLBACK)));
+
+        } finally {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        }
+
+    }
+
+    @Test
+    public void insertWriteBehind() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        assertThat(unitOfWorkService.isWriteBehind(), is(false));
+
+        userTransaction.begin();
+        try {
+
+            unitOfWorkService.begin();
+            assertThat(unitOfWorkService.isWriteBehind(), is(true));
+
+            // Compose several inserts in one unit of work
+            Guest guest1 = guestService.insert(newGuest(facility.get().getId()));
+            Guest guest2 = newGuest(facility.get().getId());
+            guest2.setFirstName("Jane");
+            guest2 = guestService.insert(guest2);
+
+            // Pending (unflushed) guests are seen by the uniqueness check
+            Guest duplicate = newGuest(facility.get().getId());
+            assertThrows(NotUnique.class,
+                    () -> guestService.insert(duplicate));
+
+            // Flush everything at the explicit batch boundary
+            unitOfWorkService.end(entityManager);
+            assertThat(unitOfWorkService.isWriteBehind(), is(false));
+            userTransaction.commit();
+
+            assertThat(findGuestById(guest1.getId()).isPresent(), is(true));
+            assertThat(findGuestById(guest2.getId()).isPresent(), is(true));
+
+        } catch (Exception e) {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+            throw e;
+        }
+
+    }
+
+    @Test
+    public void insertWriteBehindNotUnique() throws Exception {
+
+        String facilityName = "Oakland";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+
+        userTransaction.begin();
+        try {
+
+            unitOfWorkService.begin();
+
+            // Only pending guests are pre-checked, so this is deferred
+            Guest guest = newGuest(facility.get().getId());
+            guest.setFirstName("Fred");
+            guest.setLastName("Flintstone");
+            guestService.insert(guest);
+
+            // Reported as NotUnique when the unit of work is flushed,
+            // which leaves the transaction marked for rollback
+            assertThrows(NotUnique.class,
+                    () -> unitOfWorkService.end(entityManager));
+            assertThat(userTransaction.getStatus(),
+                    is(equalTo(Status.STATUS_MARKED_ROLLBACK)));
+
+        } finally {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        }
+
+    }
+
+    @Test
+    public void insertWriteBehindRestart() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+
+        userTransaction.begin();
+        try {
+
+            unitOfWorkService.begin();
+            Guest guest1 = guestService.insert(newGuest(facility.get().getId()));
+            unitOfWorkService.end(entityManager);
+            assertThat(unitOfWorkService.isWriteBehind(), is(false));
+
+            // A second unit of work in the same transaction defers again
+            unitOfWorkService.begin();
+            assertThat(unitOfWorkService.isWriteBehind(), is(true));
+            Guest guest2 = newGuest(facility.get().getId());
+            guest2.setFirstName("Judy");
+            guest2 = guestService.insert(guest2);
+            Guest duplicate = newGuest(facility.get().getId());
+            duplicate.setFirstName("Judy");
+            assertThrows(NotUnique.class,
+                    () -> guestService.insert(duplicate));
+            unitOfWorkService.end(entityManager);
+            userTransaction.commit();
+
+            assertThat(findGuestById(guest1.getId()).isPresent(), is(true));
+            assertThat(findGuestById(guest2.getId()).isPresent(), is(true));
+
+        } catch (Exception e) {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+            throw e;
+        }
+
+    }
+
     // update() tests
 
     @Test
@@ -521,6 +845,45 @@ public class GuestServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void updateWriteBehind() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Guest original = guestService.insert(newGuest(facility.get().getId()));
+
+        userTransaction.begin();
+        try {
+
+            unitOfWorkService.begin();
+
+            // Rename a guest without flushing
+            Guest renamed = newGuest(facility.get().getId());
+            renamed.setFirstName("Elroy");
+            guestService.update(original.getId(), renamed);
+
+            // The pending new name is seen by the uniqueness checks
+            Guest duplicate = newGuest(facility.get().getId());
+            duplicate.setFirstName("Elroy");
+            assertThrows(NotUnique.class,
+                    () -> guestService.insert(duplicate));
+
+            unitOfWorkService.end(entityManager);
+            userTransaction.commit();
+
+        } catch (Exception e) {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+            throw e;
+        }
+
+        assertThat(findGuestById(original.getId()).get().getFirstName(),
+                is(equalTo("Elroy")));
+
+    }
+
     // Support Methods -------------------------------------------------------
 
     private Optional<Facility> findFacilityByNameExact(String name) {
@@ -565,6 +928,14 @@ public class GuestServiceTest extends AbstractServiceTest {
                 .getResultList();
     }
 
+    private List<Guest> findGuestsByName(Long facilityId, String name) {
+        return entityManager.createNamedQuery
+                (GUEST_NAME + ".findByName", Guest.class)
+                .setParameter(FACILITY_ID_COLUMN, facilityId)
+                .setParameter(NAME_COLUMN, name)
+                .getResultList();
+    }
+
     private List<Guest> findGuestsByFacilityId(Long facilityId) {
         return entityManager.createNamedQuery
                 (GUEST_NAME + ".findByFacilityId", Guest.class)
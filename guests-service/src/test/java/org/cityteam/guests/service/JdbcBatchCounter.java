@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Hibernate session event listener, registered for every session by the
+ * test <code>persistence.xml</code>, that counts JDBC batch executions.
+ * Hibernate's <code>Statistics</code> only count queries, so tests use this
+ * to verify that bulk inserts are actually sent as JDBC batches (an
+ * unbatched insert never executes a batch at all).</p>
+ */
+public class JdbcBatchCounter extends BaseSessionEventListener {
+
+    // Static Variables ------------------------------------------------------
+
+    private static final AtomicLong BATCHES = new AtomicLong();
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Return the number of JDBC batches executed since the last call
+     * to {@link #clear()}.</p>
+     */
+    public static long batches() {
+        return BATCHES.get();
+    }
+
+    /**
+     * <p>Reset the number of JDBC batches executed to zero.</p>
+     */
+    public static void clear() {
+        BATCHES.set(0L);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        BATCHES.incrementAndGet();
+    }
+
+}
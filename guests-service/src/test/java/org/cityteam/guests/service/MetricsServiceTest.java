@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.craigmcc.library.shared.exception.NotFound;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+@Category(ServiceTests.class)
+@RunWith(Arquillian.class)
+public class MetricsServiceTest extends AbstractServiceTest {
+
+    // Configuration and Injections ------------------------------------------
+
+    @Deployment
+    public static JavaArchive createDeployment() {
+        JavaArchive archive = ShrinkWrap.create
+                (JavaArchive.class, "testMetrics.jar")
+                .addClass(FacilityService.class);
+        addServiceFixtures(archive, false);
+        System.out.println("MetricsServiceTest: Assembled Archive:");
+        System.out.println(archive.toString(true));
+        return archive;
+    }
+
+    @Inject
+    DevModeDepopulateService devModeDepopulateService;
+
+    @Inject
+    DevModePopulateService devModePopulateService;
+
+    @Inject
+    FacilityService facilityService;
+
+    @Inject
+    MetricsService metricsService;
+
+    // Lifecycle Methods -----------------------------------------------------
+
+    @After
+    public void after() {
+        devModeDepopulateService.depopulate();
+    }
+
+    @Before
+    public void before() {
+        devModePopulateService.populate();
+        metricsService.clear();
+    }
+
+    // Test Methods ----------------------------------------------------------
+
+    @Test
+    public void recordErrors() throws Exception {
+
+        assertThrows(NotFound.class,
+                () -> facilityService.find(Long.MAX_VALUE));
+        assertThrows(NotFound.class,
+                () -> facilityService.find(Long.MAX_VALUE));
+
+        assertThat(metricsService.count("FacilityService", "find"),
+                is(equalTo(2L)));
+        assertThat(metricsService.errors("FacilityService", "find", "NotFound"),
+                is(equalTo(2L)));
+        assertThat(metricsService.prometheus(), containsString(
+                "guests_service_errors_total{service=\"FacilityService\"," +
+                        "method=\"find\",exception=\"NotFound\"} 2\n"));
+
+    }
+
+    @Test
+    public void recordHappy() throws Exception {
+
+        int count = facilityService.findAll().size();
+        assertThat(count, is(greaterThan(0)));
+        facilityService.findAll();
+
+        assertThat(metricsService.count("FacilityService", "findAll"),
+                is(equalTo(2L)));
+        assertThat(metricsService.errors("FacilityService", "findAll", "NotFound"),
+                is(equalTo(0L)));
+        String metrics = metricsService.prometheus();
+        assertThat(metrics, containsString(
+                "# TYPE guests_service_calls_seconds histogram\n"));
+        assertThat(metrics, containsString(
+                "guests_service_calls_seconds_count{service=\"FacilityService\"," +
+                        "method=\"findAll\"} 2\n"));
+        assertThat(metrics, containsString(
+                "guests_service_calls_seconds_bucket{service=\"FacilityService\"," +
+                        "method=\"findAll\",le=\"+Inf\"} 2\n"));
+        assertThat(metrics, containsString(
+                "guests_service_rows_total{service=\"FacilityService\"," +
+                        "method=\"findAll\"} " + (count * 2) + "\n"));
+
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 CityTeam, craigmcc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cityteam.guests.service;
+
+import org.cityteam.guests.action.RegistrationChange;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Records the {@link RegistrationChange} events that are delivered to
+ * observers after a successful commit, the same way that the endpoint
+ * module's broadcaster observes them, so that tests can verify which
+ * changes are published and when.</p>
+ */
+@ApplicationScoped
+public class RegistrationChangeRecorder {
+
+    // Instance Variables ----------------------------------------------------
+
+    private final List<RegistrationChange> changes =
+            new CopyOnWriteArrayList<>();
+
+    // Public Methods --------------------------------------------------------
+
+    /**
+     * <p>Return the changes recorded since the last call to
+     * {@link #clear()}, in the order they were delivered.</p>
+     */
+    public List<RegistrationChange> changes() {
+        return new ArrayList<>(changes);
+    }
+
+    /**
+     * <p>Forget all recorded changes.</p>
+     */
+    public void clear() {
+        changes.clear();
+    }
+
+    public void record(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                               RegistrationChange change) {
+        changes.add(change);
+    }
+
+}
@@ -18,6 +18,8 @@ package org.cityteam.guests.service;
 import org.cityteam.guests.action.Assign;
 import org.cityteam.guests.action.ImportRequest;
 import org.cityteam.guests.action.ImportResults;
+import org.cityteam.guests.action.RegistrationChange;
+import org.cityteam.guests.action.RegistrationSummary;
 import org.cityteam.guests.model.Facility;
 import org.cityteam.guests.model.Guest;
 import org.cityteam.guests.model.Registration;
@@ -26,6 +28,8 @@ import org.craigmcc.library.shared.exception.BadRequest;
 import org.craigmcc.library.shared.exception.InternalServerError;
 import org.craigmcc.library.shared.exception.NotFound;
 import org.craigmcc.library.shared.exception.NotUnique;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
@@ -41,12 +45,20 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.transaction.Status;
+import javax.transaction.UserTransaction;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.cityteam.guests.model.Constants.FACILITY_ID_COLUMN;
 import static org.cityteam.guests.model.Constants.FACILITY_NAME;
@@ -60,9 +72,16 @@ import static org.cityteam.guests.model.types.PaymentType.CT;
 import static org.cityteam.guests.model.types.PaymentType.MM;
 import static org.craigmcc.library.model.Constants.ID_COLUMN;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.fail;
 
@@ -78,6 +97,7 @@ public class RegistrationServiceTest extends AbstractServiceTest {
                 (JavaArchive.class, "testRegistration.jar")
                 .addClass(FacilityService.class)
                 .addClass(GuestService.class)
+                .addClass(RegistrationChangeRecorder.class)
                 .addClass(RegistrationService.class);
         addServiceFixtures(archive, false);
         System.out.println("RegistrationServiceTest: Assembled Archive:");
@@ -94,9 +114,18 @@ public class RegistrationServiceTest extends AbstractServiceTest {
     @PersistenceContext
     EntityManager entityManager;
 
+    @Inject
+    GuestService guestService;
+
+    @Inject
+    RegistrationChangeRecorder registrationChangeRecorder;
+
     @Inject
     RegistrationService registrationService;
 
+    @Inject
+    UserTransaction userTransaction;
+
     // Lifecycle Methods -----------------------------------------------------
 
     @After
@@ -107,6 +136,7 @@ public class RegistrationServiceTest extends AbstractServiceTest {
     @Before
     public void before() {
         devModePopulateService.populate();
+        registrationChangeRecorder.clear();
     }
 
     // Test Methods ----------------------------------------------------------
@@ -180,6 +210,44 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void assignBadRequestBanned() throws Exception {
+
+        // Seed unassigned registrations during Fred's active ban
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-08-15");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facility.get().getId(), registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+        Guest fred = guests.stream()
+                .filter(g -> "Fred".equals(g.getFirstName()))
+                .findFirst().get();
+        Guest barney = guests.stream()
+                .filter(g -> "Barney".equals(g.getFirstName()))
+                .findFirst().get();
+
+        // Banned guest cannot be assigned
+        Assign assign = new Assign(
+                "Banned assignment",
+                fred.getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+        BadRequest e = assertThrows(BadRequest.class,
+                () -> registrationService.assign
+                        (registrations.get(0).getId(), assign));
+        assertThat(e.getMessage(), containsString("banned through 2020-08-31"));
+
+        // Guest whose ban covers other dates can be assigned
+        assign.setGuestId(barney.getId());
+        registrationService.assign(registrations.get(0).getId(), assign);
+
+    }
+
     @Test
     public void assignBadRequestIncorrrectGuest() throws Exception {
 
@@ -261,6 +329,107 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void assignBadRequestTwoAssignmentsWarm() throws Exception {
+
+        // Insert registrations as a batch so occupancy is tracked in memory
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-05");
+        List<Registration> registrations = new ArrayList<>();
+        for (int matNumber = 1; matNumber < 5; matNumber++) {
+            registrations.add(newRegistration(null, matNumber, null));
+        }
+        List<Registration> inserteds = registrationService.insertAll
+                (facility.get().getId(), registrationDate, registrations);
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+
+        // Assign one of them
+        Assign assign = new Assign(
+                "Happy assignment",
+                guests.get(0).getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+        registrationService.assign(inserteds.get(0).getId(), assign);
+
+        // Try to assign same guest to a different registration
+        assertThrows(NotUnique.class,
+                () -> registrationService.assign
+                        (inserteds.get(1).getId(), assign));
+
+        // Deassign and verify the guest can now move to a different mat
+        registrationService.deassign(inserteds.get(0).getId());
+        Registration registration =
+                registrationService.assign(inserteds.get(1).getId(), assign);
+        assertThat(registration.getGuestId(),
+                is(equalTo(guests.get(0).getId())));
+
+    }
+
+    @Test
+    public void assignConcurrent() throws Exception {
+
+        // Seed unassigned registrations and look up required information
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facility.get().getId(), registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+        assertThat(guests.size(), is(lessThan(registrations.size())));
+
+        // Race every guest against every registration, several times each
+        int rounds = 3;
+        List<Attempt> attempts = new ArrayList<>();
+        Map<Long, Set<Long>> successes = new ConcurrentHashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            for (Guest guest : guests) {
+                for (Registration registration : registrations) {
+                    attempts.add(() -> {
+                        registrationService.assign(registration.getId(),
+                                new Assign("Concurrent assignment",
+                                        guest.getId(), null, CT,
+                                        null, null));
+                        successes.computeIfAbsent(registration.getId(),
+                                k -> ConcurrentHashMap.newKeySet())
+                                .add(guest.getId());
+                    });
+                }
+            }
+        }
+        List<Exception> outcomes = race(16, attempts);
+
+        // Losing the race is expected, anything else is not
+        assertThat(outcomes.toString(), outcomes.stream()
+                .filter(e -> (e != null) && !(e instanceof BadRequest) &&
+                        !(e instanceof NotUnique))
+                .count(), is(equalTo(0L)));
+
+        // Each registration went to at most one guest, each guest got
+        // exactly one registration, and no successful update was lost
+        Set<Long> assignedGuestIds = new HashSet<>();
+        for (Registration registration : registrations) {
+            Set<Long> winners = successes.get(registration.getId());
+            Registration found =
+                    findRegistrationById(registration.getId()).get();
+            if (winners == null) {
+                assertThat(found.getGuestId(), is(nullValue()));
+                continue;
+            }
+            assertThat(winners.size(), is(equalTo(1)));
+            assertThat(found.getGuestId(),
+                    is(equalTo(winners.iterator().next())));
+            assertThat(assignedGuestIds.add(found.getGuestId()), is(true));
+        }
+        assertThat(assignedGuestIds.size(), is(equalTo(guests.size())));
+
+    }
+
     @Test
     public void assignNotFound() throws Exception {
 
@@ -288,6 +457,48 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void assignPublishesChange() throws Exception {
+
+        // Seed unassigned registrations and look up required information
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facility.get().getId(), registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+        Assign assign = new Assign(
+                "Published assignment",
+                guests.get(0).getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+
+        // Successful assign publishes exactly one change
+        Registration registration =
+                registrationService.assign(registrations.get(0).getId(), assign);
+        List<RegistrationChange> changes = registrationChangeRecorder.changes();
+        assertThat(changes.size(), is(equalTo(1)));
+        RegistrationChange change = changes.get(0);
+        assertThat(change.getFacilityId(), is(equalTo(facility.get().getId())));
+        assertThat(change.getGuestId(), is(equalTo(guests.get(0).getId())));
+        assertThat(change.getMatNumber(),
+                is(equalTo(registration.getMatNumber())));
+        assertThat(change.getRegistrationDate(), is(equalTo(registrationDate)));
+        assertThat(change.getRegistrationId(), is(equalTo(registration.getId())));
+
+        // Failed assign publishes nothing
+        assign.setGuestId(guests.get(1).getId());
+        assertThrows(BadRequest.class,
+                () -> registrationService.assign
+                        (registrations.get(0).getId(), assign));
+        assertThat(registrationChangeRecorder.changes().size(), is(equalTo(1)));
+
+    }
+
     // desassign() tests
 
     @Test
@@ -351,6 +562,136 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void deassignPublishesAfterCommit() throws Exception {
+
+        // Seed unassigned registrations and assign one of them
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facility.get().getId(), registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+        Assign assign = new Assign(
+                "Published assignment",
+                guests.get(0).getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+        Registration registration =
+                registrationService.assign(registrations.get(0).getId(), assign);
+        registrationChangeRecorder.clear();
+
+        // Nothing is published before commit, or after a rollback
+        userTransaction.begin();
+        try {
+            registrationService.deassign(registration.getId());
+            assertThat(registrationChangeRecorder.changes().size(),
+                    is(equalTo(0)));
+        } finally {
+            userTransaction.rollback();
+        }
+        assertThat(registrationChangeRecorder.changes().size(), is(equalTo(0)));
+
+        // The change is published once the transaction commits
+        userTransaction.begin();
+        try {
+            registrationService.deassign(registration.getId());
+            assertThat(registrationChangeRecorder.changes().size(),
+                    is(equalTo(0)));
+            userTransaction.commit();
+        } finally {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        }
+        List<RegistrationChange> changes = registrationChangeRecorder.changes();
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getGuestId(), is(nullValue()));
+        assertThat(changes.get(0).getRegistrationId(),
+                is(equalTo(registration.getId())));
+
+    }
+
+    // deassignByFacilityAndDate() tests
+
+    @Test
+    public void deassignByFacilityAndDateHappy() throws Exception {
+
+        // Seed unassigned registrations and assign the first three
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facilityId, registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facilityId);
+        assertThat(guests.size(), is(greaterThan(2)));
+        List<Registration> assigneds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Assign assign = new Assign(
+                    "Bulk assignment " + i,
+                    guests.get(i).getId(),
+                    new BigDecimal("5.00"),
+                    $$,
+                    LocalTime.parse("04:00"),
+                    LocalTime.parse("05:00")
+            );
+            assigneds.add(registrationService.assign
+                    (registrations.get(i).getId(), assign));
+        }
+
+        // Deassign selected mats, including one that is not assigned
+        int count1 = registrationService.deassignByFacilityAndDate
+                (facilityId, registrationDate, List.of(
+                        registrations.get(0).getMatNumber(),
+                        registrations.get(1).getMatNumber(),
+                        registrations.get(3).getMatNumber()));
+        assertThat(count1, is(equalTo(2)));
+        List<Registration> results1 = registrationService
+                .findByFacilityAndDate(facilityId, registrationDate);
+        for (int i = 0; i < 2; i++) {
+            Registration result = results1.get(i);
+            assertThat(result.getComments(), is(nullValue()));
+            assertThat(result.getGuestId(), is(nullValue()));
+            assertThat(result.getPaymentAmount(), is(nullValue()));
+            assertThat(result.getPaymentType(), is(nullValue()));
+            assertThat(result.getShowerTime(), is(nullValue()));
+            assertThat(result.getWakeupTime(), is(nullValue()));
+            assertThat(result.getUpdated().isBefore
+                    (assigneds.get(i).getUpdated()), is(false));
+        }
+        assertThat(results1.get(2).getGuestId(),
+                is(equalTo(guests.get(2).getId())));
+
+        // Deassigned mats can be assigned again
+        registrationService.assign(registrations.get(0).getId(), new Assign(
+                "Reassignment",
+                guests.get(0).getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        ));
+
+        // Deassign the rest of the night
+        int count2 = registrationService.deassignByFacilityAndDate
+                (facilityId, registrationDate, new ArrayList<>());
+        assertThat(count2, is(equalTo(2)));
+        for (Registration result : registrationService
+                .findByFacilityAndDate(facilityId, registrationDate)) {
+            assertThat(result.getGuestId(), is(nullValue()));
+        }
+        assertThat(registrationService.deassignByFacilityAndDate
+                (facilityId, registrationDate, new ArrayList<>()),
+                is(equalTo(0)));
+
+    }
+
     // delete() tests
 
     @Test
@@ -436,6 +777,23 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void deleteByFacilityAndDatePublished() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        seedUnassignedRegistrations(facility.get().getId(), registrationDate);
+        registrationChangeRecorder.clear();
+
+        // Bulk delete publishes one change for the facility and date
+        registrationService.deleteByFacilityAndDate
+                (facility.get().getId(), registrationDate);
+        assertPublished(facility.get().getId(), registrationDate);
+
+    }
+
     // find() tests
 
     @Test
@@ -538,6 +896,278 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    // findByFacilityAndDateRange() tests
+
+    @Test
+    public void findByFacilityAndDateRangeHappy() throws Exception {
+
+        // Seed registrations on four consecutive dates
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate fromDate = LocalDate.parse("2020-08-01");
+        LocalDate toDate = LocalDate.parse("2020-08-03");
+        for (int i = 0; i < 4; i++) {
+            seedUnassignedRegistrations
+                    (facility.get().getId(), fromDate.plusDays(i));
+        }
+
+        // Page through the first three dates, three rows at a time
+        List<Registration> registrations = new ArrayList<>();
+        LocalDate afterDate = fromDate.minusDays(1);
+        Integer afterMatNumber = Integer.MAX_VALUE;
+        while (true) {
+            List<Registration> page =
+                    registrationService.findByFacilityAndDateRange(
+                            facility.get().getId(), toDate,
+                            afterDate, afterMatNumber, 3);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertThat(page.size() <= 3, is(true));
+            registrations.addAll(page);
+            afterDate = page.get(page.size() - 1).getRegistrationDate();
+            afterMatNumber = page.get(page.size() - 1).getMatNumber();
+        }
+
+        // Verify we got every row in the range exactly once, in order
+        assertThat(registrations.size(), is(equalTo(12)));
+        for (int i = 0; i < registrations.size(); i++) {
+            Registration registration = registrations.get(i);
+            assertThat(registration.getFacilityId(),
+                    is(equalTo(facility.get().getId())));
+            assertThat(registration.getRegistrationDate(),
+                    is(equalTo(fromDate.plusDays(i / 4))));
+            assertThat(registration.getMatNumber(),
+                    is(equalTo((i % 4) + 1)));
+        }
+
+    }
+
+    // findSnapshotByFacilityAndDate() tests
+
+    @Test
+    public void findSnapshotByFacilityAndDateHappy() throws Exception {
+
+        // Seed unassigned registrations
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facilityId, registrationDate);
+        List<Guest> guests = findGuestsByFacilityId(facilityId);
+
+        // Unchanged snapshot is reused
+        RegistrationSnapshotService.Snapshot snapshot1 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot1.getRegistrations().size(),
+                is(equalTo(registrations.size())));
+        RegistrationSnapshotService.Snapshot snapshot2 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot2.getTag(), is(equalTo(snapshot1.getTag())));
+
+        // Assignment produces a new snapshot
+        Assign assign = new Assign(
+                "Snapshot assignment",
+                guests.get(0).getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+        registrationService.assign(registrations.get(0).getId(), assign);
+        RegistrationSnapshotService.Snapshot snapshot3 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot3.getTag(), is(not(equalTo(snapshot2.getTag()))));
+        assertThat(snapshot3.getRegistrations().get(0).getGuestId(),
+                is(equalTo(guests.get(0).getId())));
+
+        // Deassignment produces a new snapshot
+        registrationService.deassign(registrations.get(0).getId());
+        RegistrationSnapshotService.Snapshot snapshot4 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot4.getTag(), is(not(equalTo(snapshot3.getTag()))));
+        assertThat(snapshot4.getRegistrations().get(0).getGuestId(),
+                is(nullValue()));
+
+    }
+
+    @Test
+    public void findSnapshotByFacilityAndDateGuestUpdated() throws Exception {
+
+        // Seed unassigned registrations and assign one of them
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facilityId, registrationDate);
+        Guest guest = findGuestsByFacilityId(facilityId).get(0);
+        registrationService.assign(registrations.get(0).getId(), new Assign(
+                "Snapshot assignment", guest.getId(), null, CT, null, null));
+        RegistrationSnapshotService.Snapshot snapshot1 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+
+        // Renaming the assigned guest produces a new snapshot
+        guest.setFirstName(guest.getFirstName() + "Renamed");
+        guestService.update(guest.getId(), guest);
+        RegistrationSnapshotService.Snapshot snapshot2 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot2.getTag(), is(not(equalTo(snapshot1.getTag()))));
+        assertThat(snapshot2.getRegistrations().get(0).getGuest().getFirstName(),
+                is(equalTo(guest.getFirstName())));
+
+    }
+
+    @Test
+    public void findSnapshotByFacilityAndDateGuestDeleted() throws Exception {
+
+        // Seed unassigned registrations and assign one of them
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facilityId, registrationDate);
+        Guest guest = findGuestsByFacilityId(facilityId).get(0);
+        registrationService.assign(registrations.get(0).getId(), new Assign(
+                "Snapshot assignment", guest.getId(), null, CT, null, null));
+        RegistrationSnapshotService.Snapshot snapshot1 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+
+        // Deleting the assigned guest (and their registration) produces
+        // a new snapshot without it
+        guestService.delete(guest.getId());
+        RegistrationSnapshotService.Snapshot snapshot2 =
+                registrationService.findSnapshotByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(snapshot2.getTag(), is(not(equalTo(snapshot1.getTag()))));
+        assertThat(snapshot2.getRegistrations().size(),
+                is(equalTo(snapshot1.getRegistrations().size() - 1)));
+        for (Registration registration : snapshot2.getRegistrations()) {
+            assertThat(registration.getGuestId(),
+                    is(not(equalTo(guest.getId()))));
+        }
+
+    }
+
+    // findSummariesByFacilityAndDate() tests
+
+    @Test
+    public void findSummariesByFacilityAndDateHappy() throws Exception {
+
+        // Seed registrations and assign one of them
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Long facilityId = facility.get().getId();
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        List<Registration> registrations = seedUnassignedRegistrations
+                (facilityId, registrationDate);
+        Guest guest = findGuestsByFacilityId(facilityId).get(0);
+        Assign assign = new Assign(
+                "Summary assignment",
+                guest.getId(),
+                new BigDecimal("5.00"),
+                $$,
+                null,
+                null
+        );
+        registrationService.assign(registrations.get(0).getId(), assign);
+
+        // Summaries match registrations, with the assigned guest's name
+        List<RegistrationSummary> summaries =
+                registrationService.findSummariesByFacilityAndDate
+                        (facilityId, registrationDate);
+        assertThat(summaries.size(), is(equalTo(registrations.size())));
+        Integer previousMatNumber = null;
+        for (RegistrationSummary summary : summaries) {
+            assertThat(summary.getFacilityId(), is(equalTo(facilityId)));
+            assertThat(summary.getRegistrationDate(),
+                    is(equalTo(registrationDate)));
+            if (previousMatNumber != null) {
+                assertThat(summary.getMatNumber(),
+                        is(greaterThan(previousMatNumber)));
+            }
+            previousMatNumber = summary.getMatNumber();
+        }
+        RegistrationSummary assigned = summaries.get(0);
+        assertThat(assigned.getId(),
+                is(equalTo(registrations.get(0).getId())));
+        assertThat(assigned.getGuestId(), is(equalTo(guest.getId())));
+        assertThat(assigned.getFirstName(), is(equalTo(guest.getFirstName())));
+        assertThat(assigned.getLastName(), is(equalTo(guest.getLastName())));
+        assertThat(assigned.getComments(), is(equalTo("Summary assignment")));
+        RegistrationSummary unassigned = summaries.get(1);
+        assertThat(unassigned.getGuestId(), is(nullValue()));
+        assertThat(unassigned.getFirstName(), is(nullValue()));
+        assertThat(unassigned.getLastName(), is(nullValue()));
+
+        // Summaries by guest include the same registration
+        List<RegistrationSummary> guestSummaries =
+                registrationService.findSummariesByGuestId(guest.getId());
+        assertThat(guestSummaries.stream().anyMatch
+                (s -> s.getId().equals(assigned.getId())), is(true));
+
+    }
+
+    @Test
+    public void findSummariesByFacilityAndDateRangeHappy() throws Exception {
+
+        // Seed registrations on four consecutive dates
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate fromDate = LocalDate.parse("2020-08-01");
+        LocalDate toDate = LocalDate.parse("2020-08-03");
+        for (int i = 0; i < 4; i++) {
+            seedUnassignedRegistrations
+                    (facility.get().getId(), fromDate.plusDays(i));
+        }
+
+        // Page through the first three dates, three rows at a time
+        List<RegistrationSummary> summaries = new ArrayList<>();
+        LocalDate afterDate = fromDate.minusDays(1);
+        Integer afterMatNumber = Integer.MAX_VALUE;
+        while (true) {
+            List<RegistrationSummary> page =
+                    registrationService.findSummariesByFacilityAndDateRange(
+                            facility.get().getId(), toDate,
+                            afterDate, afterMatNumber, 3);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertThat(page.size() <= 3, is(true));
+            summaries.addAll(page);
+            afterDate = page.get(page.size() - 1).getRegistrationDate();
+            afterMatNumber = page.get(page.size() - 1).getMatNumber();
+        }
+
+        // Verify we got every row in the range exactly once, in order
+        assertThat(summaries.size(), is(equalTo(12)));
+        for (int i = 0; i < summaries.size(); i++) {
+            RegistrationSummary summary = summaries.get(i);
+            assertThat(summary.getFacilityId(),
+                    is(equalTo(facility.get().getId())));
+            assertThat(summary.getRegistrationDate(),
+                    is(equalTo(fromDate.plusDays(i / 4))));
+            assertThat(summary.getMatNumber(),
+                    is(equalTo((i % 4) + 1)));
+        }
+
+    }
+
     // importByFacilityAndDate() tests
 
     @Test
@@ -640,6 +1270,213 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void importByFacilityAndDateLarge() throws Exception {
+
+        String facilityName = "Portland";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-08-01");
+
+        // Half unassigned, half assigned to 25 recurring new guests
+        // (so most of them end up as reported problems)
+        List<ImportRequest> importRequests = new ArrayList<>();
+        for (int matNumber = 1; matNumber <= 500; matNumber++) {
+            if ((matNumber % 2) == 0) {
+                importRequests.add(new ImportRequest(null, matNumber));
+            } else {
+                importRequests.add(new ImportRequest(
+                        null,
+                        null,
+                        "First" + (matNumber % 25),
+                        "Last" + (matNumber % 25),
+                        matNumber,
+                        null,
+                        CT,
+                        null,
+                        null
+                ));
+            }
+        }
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        JdbcBatchCounter.clear();
+        ImportResults importResults =
+                registrationService.importByFacilityAndDate(
+                        facility.get().getId(),
+                        registrationDate,
+                        importRequests
+                );
+        long queries = statistics.getQueryExecutionCount();
+        long batches = JdbcBatchCounter.batches();
+
+        // Each guest is assigned once, and later mats are left unassigned
+        assertThat(importResults.getRegistrations().size(), is(equalTo(500)));
+        assertThat(importResults.getProblems().size(), is(equalTo(250 - 25)));
+        long assigneds = importResults.getRegistrations().stream()
+                .filter(r -> r.getGuestId() != null)
+                .count();
+        assertThat(assigneds, is(equalTo(25L)));
+
+        // Query count does not depend on the number of rows
+        assertThat(queries, is(lessThan(10L)));
+
+        // New guests and registrations are flushed together at the end of
+        // the import, in JDBC batches rather than one at a time
+        assertThat(batches, is(greaterThan(0L)));
+        assertThat(batches, is(lessThanOrEqualTo(1L + (500L / 50L))));
+
+    }
+
+    @Test
+    public void importByFacilityAndDateBanned() throws Exception {
+
+        // Fred is banned on this date, and Barney is not
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-08-15");
+
+        List<ImportRequest> importRequests = new ArrayList<>();
+        importRequests.add(new ImportRequest(
+                null, null, "Fred", "Flintstone", 1, null, AG, null, null));
+        importRequests.add(new ImportRequest(
+                null, null, "Barney", "Rubble", 2, null, AG, null, null));
+
+        ImportResults importResults =
+                registrationService.importByFacilityAndDate(
+                        facility.get().getId(),
+                        registrationDate,
+                        importRequests
+                );
+        assertThat(importResults.getRegistrations().size(), is(equalTo(2)));
+        assertThat(importResults.getRegistrations().get(0).getGuestId(),
+                is(nullValue()));
+        assertThat(importResults.getRegistrations().get(1).getGuestId(),
+                is(notNullValue()));
+        assertThat(importResults.getProblems().size(), is(equalTo(1)));
+        assertThat(importResults.getProblems().get(0).getMessage(),
+                containsString("banned through 2020-08-31"));
+        assertThat(importResults.getProblems().get(0).getResolution(),
+                is(equalTo("Left unassigned")));
+
+    }
+
+    @Test
+    public void importByFacilityAndDateNames() throws Exception {
+
+        // These names would collide if joined into a single string key
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+
+        List<ImportRequest> importRequests = new ArrayList<>();
+        importRequests.add(new ImportRequest(
+                null, null, "Fred|X", "Smith", 1, null, AG, null, null));
+        importRequests.add(new ImportRequest(
+                null, null, "X", "Smith|Fred", 2, null, AG, null, null));
+
+        ImportResults importResults =
+                registrationService.importByFacilityAndDate(
+                        facility.get().getId(),
+                        registrationDate,
+                        importRequests
+                );
+        assertThat(importResults.getProblems().size(), is(equalTo(0)));
+        assertThat(importResults.getRegistrations().size(), is(equalTo(2)));
+        Long guestId0 = importResults.getRegistrations().get(0).getGuestId();
+        Long guestId1 = importResults.getRegistrations().get(1).getGuestId();
+        assertThat(guestId0, is(notNullValue()));
+        assertThat(guestId1, is(notNullValue()));
+        assertThat(guestId0, is(not(equalTo(guestId1))));
+
+    }
+
+    @Test
+    public void importByFacilityAndDateNotUnique() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-05");
+
+        List<ImportRequest> importRequests = new ArrayList<>();
+        importRequests.add(new ImportRequest(null, 1));
+        importRequests.add(new ImportRequest(null, 2));
+        importRequests.add(new ImportRequest(null, 1));
+        assertThrows(NotUnique.class,
+                () -> registrationService.importByFacilityAndDate(
+                        facility.get().getId(),
+                        registrationDate,
+                        importRequests
+                ));
+
+    }
+
+    @Test
+    public void importByFacilityAndDateProblems() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-05");
+
+        // Same guest on two different mats
+        List<ImportRequest> importRequests = new ArrayList<>();
+        for (int matNumber = 1; matNumber <= 2; matNumber++) {
+            importRequests.add(new ImportRequest(
+                    null,
+                    null,
+                    "Fred",
+                    "Flintstone",
+                    matNumber,
+                    null,
+                    AG,
+                    null,
+                    null
+            ));
+        }
+
+        ImportResults importResults =
+                registrationService.importByFacilityAndDate(
+                        facility.get().getId(),
+                        registrationDate,
+                        importRequests
+                );
+        assertThat(importResults.getRegistrations().size(), is(equalTo(2)));
+        assertThat(importResults.getRegistrations().get(0).getGuestId(),
+                is(notNullValue()));
+        assertThat(importResults.getRegistrations().get(1).getGuestId(),
+                is(nullValue()));
+        assertThat(importResults.getProblems().size(), is(equalTo(1)));
+        assertThat(importResults.getProblems().get(0).getMessage(),
+                startsWith("NotUnique: guestId: Guest "));
+        assertThat(importResults.getProblems().get(0).getResolution(),
+                is(equalTo("Left unassigned")));
+
+    }
+
+    @Test
+    public void importByFacilityAndDatePublished() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+
+        // Import publishes one change for the facility and date
+        List<ImportRequest> importRequests = new ArrayList<>();
+        importRequests.add(new ImportRequest(null, 1));
+        importRequests.add(new ImportRequest(null, 2));
+        registrationService.importByFacilityAndDate
+                (facility.get().getId(), registrationDate, importRequests);
+        assertPublished(facility.get().getId(), registrationDate);
+
+    }
+
     // insert() tests
 
     @Test
@@ -707,6 +1544,35 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void insertConcurrent() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+        assertThat(findRegistrationsByFacilityAndDate
+                (facility.get().getId(), registrationDate).size(), is(0));
+
+        // Race several inserts of the same mat, with no pre-check query
+        // to lose the race, so only the unique index can catch it
+        int attempts = 8;
+        List<Exception> outcomes = race(attempts, Collections.nCopies(attempts,
+                () -> registrationService.insert(newRegistration
+                        (facility.get().getId(), 1, registrationDate))));
+
+        // Exactly one insert won, and every loser saw NotUnique
+        assertThat(outcomes.toString(),
+                outcomes.stream().filter(Objects::isNull).count(),
+                is(equalTo(1L)));
+        assertThat(outcomes.toString(),
+                outcomes.stream().filter(e -> e instanceof NotUnique).count(),
+                is(equalTo((long) (attempts - 1))));
+        assertThat(findRegistrationsByFacilityAndDate
+                (facility.get().getId(), registrationDate).size(), is(1));
+
+    }
+
     @Test
     public void insertNotUnique() throws Exception {
 
@@ -722,6 +1588,109 @@ public class RegistrationServiceTest extends AbstractServiceTest {
 
     }
 
+    // insertAll() tests
+
+    @Test
+    public void insertAllHappy() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+
+        List<Registration> registrations = new ArrayList<>();
+        for (int matNumber = 1; matNumber <= 20; matNumber++) {
+            registrations.add(newRegistration
+                    (null, matNumber, null));
+        }
+        List<Registration> inserteds = registrationService.insertAll
+                (facility.get().getId(), registrationDate, registrations);
+        assertThat(inserteds.size(), is(equalTo(20)));
+        for (Registration inserted : inserteds) {
+            assertThat(inserted.getId(), is(notNullValue()));
+            assertThat(inserted.getFacilityId(),
+                    is(equalTo(facility.get().getId())));
+            assertThat(inserted.getRegistrationDate(),
+                    is(equalTo(registrationDate)));
+        }
+        assertThat(findRegistrationsByFacilityAndDate
+                        (facility.get().getId(), registrationDate).size(),
+                is(equalTo(20)));
+
+    }
+
+    @Test
+    public void insertAllBadRequest() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-06");
+        List<Registration> registrations = new ArrayList<>();
+        registrations.add(newRegistration(null, 1, null));
+
+        // Invalid facilityId
+        assertThrows(BadRequest.class,
+                () -> registrationService.insertAll
+                        (Long.MAX_VALUE, registrationDate, registrations));
+
+        // Attempt to insert with a guestId
+        List<Guest> guests = findGuestsByFacilityId(facility.get().getId());
+        assertThat(guests.size(), is(greaterThan(0)));
+        List<Registration> assigneds = new ArrayList<>();
+        Registration assigned = newRegistration(null, 2, null);
+        assigned.setGuestId(guests.get(0).getId());
+        assigneds.add(assigned);
+        assertThrows(BadRequest.class,
+                () -> registrationService.insertAll
+                        (facility.get().getId(), registrationDate, assigneds));
+
+        // Registrations already exist for this date
+        seedUnassignedRegistrations(facility.get().getId(), registrationDate);
+        assertThrows(BadRequest.class,
+                () -> registrationService.insertAll
+                        (facility.get().getId(), registrationDate, registrations));
+
+    }
+
+    @Test
+    public void insertAllNotUnique() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-05");
+
+        List<Registration> registrations = new ArrayList<>();
+        registrations.add(newRegistration(null, 1, null));
+        registrations.add(newRegistration(null, 2, null));
+        registrations.add(newRegistration(null, 1, null));
+        assertThrows(NotUnique.class,
+                () -> registrationService.insertAll
+                        (facility.get().getId(), registrationDate, registrations));
+        assertThat(findRegistrationsByFacilityAndDate
+                        (facility.get().getId(), registrationDate).size(),
+                is(equalTo(0)));
+
+    }
+
+    @Test
+    public void insertAllPublished() throws Exception {
+
+        String facilityName = "San Jose";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        LocalDate registrationDate = LocalDate.parse("2020-07-04");
+
+        // Generated registrations publish one change for the date
+        List<Registration> registrations = new ArrayList<>();
+        registrations.add(newRegistration(null, 1, null));
+        registrationService.insertAll
+                (facility.get().getId(), registrationDate, registrations);
+        assertPublished(facility.get().getId(), registrationDate);
+
+    }
+
     // update() tests
 
     @Test
@@ -784,6 +1753,19 @@ public class RegistrationServiceTest extends AbstractServiceTest {
                 .getResultList();
     }
 
+    /**
+     * <p>Assert that exactly one change, telling clients to reload the
+     * specified facility and registration date, has been published.</p>
+     */
+    private void assertPublished(Long facilityId, LocalDate registrationDate) {
+        List<RegistrationChange> changes = registrationChangeRecorder.changes();
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getFacilityId(), is(equalTo(facilityId)));
+        assertThat(changes.get(0).getRegistrationDate(),
+                is(equalTo(registrationDate)));
+        assertThat(changes.get(0).getRegistrationId(), is(nullValue()));
+    }
+
     private Registration newRegistration
             (Long facilityId, Integer matNumber, LocalDate registrationDate) {
         return new Registration(
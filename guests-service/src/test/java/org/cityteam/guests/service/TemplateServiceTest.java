@@ -15,12 +15,15 @@
  */
 package org.cityteam.guests.service;
 
+import org.cityteam.guests.action.GenerateResult;
 import org.cityteam.guests.model.Facility;
 import org.cityteam.guests.model.Registration;
 import org.cityteam.guests.model.Template;
 import org.craigmcc.library.shared.exception.BadRequest;
 import org.craigmcc.library.shared.exception.NotFound;
 import org.craigmcc.library.shared.exception.NotUnique;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
@@ -53,6 +56,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
@@ -401,6 +405,138 @@ public class TemplateServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void generateQueryCount() throws Exception {
+
+        String facilityName = "Chester";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        Template smallTemplate = templateService.insert(new Template(
+                "1-10",
+                null,
+                facility.get().getId(),
+                null,
+                "Small Template",
+                null
+        ));
+        Template largeTemplate = templateService.insert(new Template(
+                "1-200",
+                null,
+                facility.get().getId(),
+                "1-20",
+                "Large Template",
+                "21-40"
+        ));
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        // Generate a small number of mats and count the queries and batches
+        statistics.clear();
+        JdbcBatchCounter.clear();
+        List<Registration> smallRegistrations = templateService.generate
+                (smallTemplate.getId(), LocalDate.parse("2020-08-01"));
+        assertThat(smallRegistrations.size(), is(equalTo(10)));
+        long smallCount = statistics.getQueryExecutionCount();
+        long smallBatches = JdbcBatchCounter.batches();
+
+        // Generate a large number of mats and count the queries and batches
+        statistics.clear();
+        JdbcBatchCounter.clear();
+        List<Registration> largeRegistrations = templateService.generate
+                (largeTemplate.getId(), LocalDate.parse("2020-08-02"));
+        assertThat(largeRegistrations.size(), is(equalTo(200)));
+        long largeCount = statistics.getQueryExecutionCount();
+        long largeBatches = JdbcBatchCounter.batches();
+
+        // Query count must not depend on the number of mats
+        assertThat(largeCount, is(equalTo(smallCount)));
+
+        // Inserts must be sent in JDBC batches (of up to 50 rows, per
+        // hibernate.jdbc.batch_size), not one statement per mat
+        assertThat(smallBatches, is(equalTo(1L)));
+        assertThat(largeBatches, is(greaterThan(0L)));
+        assertThat(largeBatches, is(lessThanOrEqualTo(4L)));
+
+    }
+
+    // generateRange() tests
+
+    @Test
+    public void generateRangeBadRequest() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        String templateName = "San Francisco COVID";
+        Optional<Template> template = findTemplateByNameExact
+                (facility.get().getId(), templateName);
+        assertThat(template.isPresent(), is(true));
+
+        // Dates out of order
+        assertThrows(BadRequest.class,
+                () -> templateService.generateRange(template.get().getId(),
+                        LocalDate.parse("2020-07-12"),
+                        LocalDate.parse("2020-07-10")));
+
+        // Range too long
+        LocalDate fromDate = LocalDate.parse("2020-07-10");
+        assertThrows(BadRequest.class,
+                () -> templateService.generateRange(template.get().getId(),
+                        fromDate,
+                        fromDate.plusDays(TemplateService.MAX_GENERATE_DAYS)));
+
+    }
+
+    @Test
+    public void generateRangeHappy() throws Exception {
+
+        String facilityName = "San Francisco";
+        Optional<Facility> facility = findFacilityByNameExact(facilityName);
+        assertThat(facility.isPresent(), is(true));
+        String templateName = "San Francisco COVID";
+        Optional<Template> template = findTemplateByNameExact
+                (facility.get().getId(), templateName);
+        assertThat(template.isPresent(), is(true));
+
+        // Force at least one mat for the middle date
+        LocalDate fromDate = LocalDate.parse("2020-07-10");
+        LocalDate existingDate = LocalDate.parse("2020-07-11");
+        LocalDate toDate = LocalDate.parse("2020-07-12");
+        registrationService.insert(new Registration(
+                facility.get().getId(),
+                null,
+                1,
+                existingDate
+        ));
+
+        List<GenerateResult> results = templateService.generateRange
+                (template.get().getId(), fromDate, toDate);
+        assertThat(results.size(), is(equalTo(3)));
+
+        LocalDate registrationDate = fromDate;
+        for (GenerateResult result : results) {
+            assertThat(result.getRegistrationDate(),
+                    is(equalTo(registrationDate)));
+            if (registrationDate.equals(existingDate)) {
+                assertThat(result.getMessage(), is(notNullValue()));
+                assertThat(result.getRegistrations().size(), is(equalTo(0)));
+                assertThat(registrationService.findByFacilityAndDate
+                        (facility.get().getId(), registrationDate).size(),
+                        is(equalTo(1)));
+            } else {
+                assertThat(result.getMessage(), is(nullValue()));
+                assertThat(result.getRegistrations().size(), is(equalTo(12)));
+                for (Registration registration : result.getRegistrations()) {
+                    assertThat(registration.getId(), is(notNullValue()));
+                    assertThat(registration.getRegistrationDate(),
+                            is(equalTo(registrationDate)));
+                }
+            }
+            registrationDate = registrationDate.plusDays(1);
+        }
+
+    }
+
     // insert() tests
 
     @Test